@@ -0,0 +1,94 @@
+package application.benchmark;
+
+import application.AggregationKernels;
+import application.ColumnarTransactionList;
+import application.LedgerAggregates;
+import application.TransactionEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Full recompute of the summary totals: the original stream/HashMap code against the
+// column kernels, with and without the Vector API
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AggregationBenchmark extends BenchmarkSettings {
+
+    @State(Scope.Benchmark)
+    public static class Ledger {
+        @Param({"1000000", "10000000", "50000000"})
+        public int rows;
+
+        public ColumnarTransactionList ledger;
+
+        @Setup(Level.Trial)
+        public void setup() throws InterruptedException {
+            AggregationKernels.startWarmUp();
+            ledger = LedgerFixture.ledger(rows, 42, true);
+            // Measure the compiled vector code, not the fallback used while it warms up
+            boolean vectorApi = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+                && !Boolean.getBoolean("budgettracker.scalar");
+            for (int wait = 0; vectorApi && !AggregationKernels.isVectorized() && wait < 600; wait++) {
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    // The same rows as built objects, as the app used to hold them. 50M rows of objects do
+    // not fit in the benchmark heap.
+    @State(Scope.Benchmark)
+    public static class Entries {
+        @Param({"1000000", "10000000"})
+        public int rows;
+
+        public List<TransactionEntry> entries;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            entries = LedgerFixture.entries(rows, 42, true);
+        }
+    }
+
+    // What the summary's refresh button and updatePieChart used to do over the whole list
+    @Benchmark
+    public void streamAndHashMap(Entries state, Blackhole blackhole) {
+        double income = state.entries.stream()
+            .filter(t -> t.getType().equalsIgnoreCase("Income"))
+            .mapToDouble(TransactionEntry::getAmount)
+            .sum();
+        double expenses = state.entries.stream()
+            .filter(t -> t.getType().equalsIgnoreCase("Expense"))
+            .mapToDouble(TransactionEntry::getAmount)
+            .sum();
+        Map<String, Double> categoryTotals = new HashMap<>();
+        for (TransactionEntry entry : state.entries) {
+            if (entry.getType().equalsIgnoreCase("Expense")) {
+                categoryTotals.merge(entry.getCategory(), entry.getAmount(), Double::sum);
+            }
+        }
+        blackhole.consume(income - expenses);
+        blackhole.consume(categoryTotals);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "-Dbudgettracker.scalar=true"})
+    public LedgerAggregates columnsScalar(Ledger state) {
+        return LedgerAggregates.of(state.ledger);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", "--add-modules=jdk.incubator.vector"})
+    public LedgerAggregates columnsVector(Ledger state) {
+        return LedgerAggregates.of(state.ledger);
+    }
+}
@@ -0,0 +1,43 @@
+package application.benchmark;
+
+import application.TransactionEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+
+// Single-row add, edit and delete as the entry form and the table's edit/delete buttons do them,
+// including the listener work (aggregates, rollup, indexes, filtered view) each change triggers
+public class LedgerEditBenchmark extends BenchmarkSettings {
+
+    // Append, then remove it again so the ledger size stays fixed across invocations
+    @Benchmark
+    public int addRow(LedgerState state) {
+        state.ledger.add(LedgerFixture.entry(state.random));
+        state.ledger.remove(state.ledger.size() - 1);
+        return state.ledger.size();
+    }
+
+    // Edit by ID, the lookup the edit dialog uses
+    @Benchmark
+    public int editRow(LedgerState state) {
+        long id = state.ledger.idAt(state.random.nextInt(state.ledger.size()));
+        int index = state.ledger.indexOfId(id);
+        state.ledger.set(index, LedgerFixture.entry(state.random));
+        return index;
+    }
+
+    // Delete a row from the middle and put it back, paying the column shift both ways
+    @Benchmark
+    public int deleteRow(LedgerState state) {
+        int index = state.random.nextInt(state.ledger.size());
+        TransactionEntry removed = state.ledger.remove(state.ledger.indexOfId(state.ledger.idAt(index)));
+        state.ledger.add(index, removed);
+        return index;
+    }
+
+    // Edit a row and take it back: two history steps' worth of snapshots and chunk copies
+    @Benchmark
+    public boolean editAndUndo(LedgerState state) {
+        int index = state.random.nextInt(state.ledger.size());
+        state.ledger.set(index, LedgerFixture.entry(state.random));
+        return state.history.undo();
+    }
+}
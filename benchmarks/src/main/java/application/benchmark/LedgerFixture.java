@@ -0,0 +1,84 @@
+package application.benchmark;
+
+import application.ColumnarTransactionList;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Synthetic ledgers shaped like a real one: mostly small expenses over a handful of
+// categories, a paycheck now and then, dates spread over the last ten years
+public final class LedgerFixture {
+
+    static final String[] EXPENSE_CATEGORIES = {"Dining Out", "Bills", "Entertainment", "Gas", "Groceries", "Shopping", "Other"};
+    static final String[] MERCHANTS = {"Starbucks", "Shell", "Netflix", "Walmart", "Amazon", "Kroger", "Comcast", "Target", "Chipotle", "Costco"};
+    static final LocalDate START = LocalDate.of(2015, 1, 1);
+    static final int DAYS = 3650;
+
+    private LedgerFixture() {
+    }
+
+    public static TransactionEntry entry(SplittableRandom random) {
+        return entry(random, false);
+    }
+
+    // pooledTitles reuses one String per merchant and number, for ledgers of tens of millions
+    // of rows where a String per row would not fit in the benchmark heap
+    public static TransactionEntry entry(SplittableRandom random, boolean pooledTitles) {
+        LocalDate date = START.plusDays(random.nextInt(DAYS));
+        if (random.nextInt(20) == 0) {
+            return new TransactionEntry("Paycheck", 1500 + random.nextInt(150000) / 100.0, "Income", "Income", date);
+        }
+        int merchant = random.nextInt(MERCHANTS.length);
+        String category = EXPENSE_CATEGORIES[random.nextInt(EXPENSE_CATEGORIES.length)];
+        // Skewed towards small amounts, with the occasional large one
+        double amount = random.nextInt(100) < 90 ? random.nextInt(10000) / 100.0 : random.nextInt(200000) / 100.0;
+        int number = random.nextInt(1000);
+        String title = pooledTitles ? TitlePool.TITLES[merchant * 1000 + number] : MERCHANTS[merchant] + " #" + number;
+        return new TransactionEntry(title, amount, category, "Expense", date);
+    }
+
+    // The rows ledger(rows, seed, pooledTitles) holds, as objects
+    public static List<TransactionEntry> entries(int rows, long seed, boolean pooledTitles) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<TransactionEntry> entries = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            entries.add(entry(random, pooledTitles));
+        }
+        return entries;
+    }
+
+    // Fills a ledger in batches, so the whole row set never exists as objects at once
+    public static ColumnarTransactionList ledger(int rows, long seed) {
+        return ledger(rows, seed, false);
+    }
+
+    public static ColumnarTransactionList ledger(int rows, long seed, boolean pooledTitles) {
+        SplittableRandom random = new SplittableRandom(seed);
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        ledger.ensureCapacity(rows);
+        List<TransactionEntry> batch = new ArrayList<>(65536);
+        for (int i = 0; i < rows; i++) {
+            batch.add(entry(random, pooledTitles));
+            if (batch.size() == 65536) {
+                ledger.addAll(batch);
+                batch.clear();
+            }
+        }
+        ledger.addAll(batch);
+        return ledger;
+    }
+
+    // Built on first use only
+    private static final class TitlePool {
+        static final String[] TITLES = new String[MERCHANTS.length * 1000];
+
+        static {
+            for (int i = 0; i < TITLES.length; i++) {
+                TITLES[i] = MERCHANTS[i / 1000] + " #" + i % 1000;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package application.benchmark;
+
+import application.IndexedSortedList;
+import application.LedgerAggregates;
+import application.LedgerFilter;
+import application.LedgerSnapshot;
+import application.LedgerSortIndex;
+import application.TransactionEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+
+// Read paths behind the table and the summary screen
+public class LedgerQueryBenchmark extends BenchmarkSettings {
+
+    private static final LedgerFilter GROCERIES = new LedgerFilter("Expense", "Groceries", null, null, -1);
+    private static final LedgerFilter LAST_YEAR_LARGE = new LedgerFilter(null, null, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), 3);
+    private static final Comparator<TransactionEntry> BY_AMOUNT = Comparator.comparingDouble(TransactionEntry::getAmount);
+    private static final Comparator<TransactionEntry> BY_DATE = Comparator.comparing(TransactionEntry::getDate);
+
+    // One filter combo change: bitmap intersection plus the view's change event
+    @Benchmark
+    public int filter(LedgerState state) {
+        state.filtered.setFilter(state.filtered.getFilter() == GROCERIES ? LAST_YEAR_LARGE : GROCERIES);
+        return state.filtered.size();
+    }
+
+    // The table's sorted view over the filtered ledger, sorted by date as Main leaves it
+    @State(Scope.Benchmark)
+    public static class Sorted {
+        public IndexedSortedList view;
+        public LedgerSortIndex byDate;
+        public LedgerSortIndex byAmount;
+        public boolean amountSorted;
+
+        @Setup(Level.Trial)
+        public void setup(LedgerState state) {
+            view = new IndexedSortedList(state.filtered, state.ledger);
+            byDate = state.index.getSortIndex(LedgerSortIndex.Key.DATE);
+            byAmount = state.index.getSortIndex(LedgerSortIndex.Key.AMOUNT);
+            view.setSortIndex(byDate, false);
+        }
+    }
+
+    // Clicking the Amount or Date header: one walk of that column's sort index
+    @Benchmark
+    public int sortSwitch(Sorted sorted) {
+        sorted.amountSorted = !sorted.amountSorted;
+        sorted.view.setSortIndex(sorted.amountSorted ? sorted.byAmount : sorted.byDate, false);
+        return sorted.view.size();
+    }
+
+    // The same switch through the comparator path, which other columns and multi-column sorts
+    // take and which every sort used to take
+    @Benchmark
+    public int sortComparator(Sorted sorted) {
+        sorted.amountSorted = !sorted.amountSorted;
+        sorted.view.setComparator(sorted.amountSorted ? BY_AMOUNT : BY_DATE);
+        return sorted.view.size();
+    }
+
+    // Adding a row while the table is sorted by date, then deleting it again: the sort index
+    // update plus placing the row in the view by binary search
+    @Benchmark
+    public int insertSorted(LedgerState state, Sorted sorted) {
+        state.ledger.add(LedgerFixture.entry(state.random));
+        state.ledger.remove(state.ledger.size() - 1);
+        return sorted.view.size();
+    }
+
+    // Full recompute of the summary totals, what the old summary streams did on every refresh
+    @Benchmark
+    public long summarizeFull(LedgerState state) {
+        return LedgerAggregates.of(state.ledger).getBalanceCents();
+    }
+
+    // What a summary refresh costs now: read the running totals and the pie chart data
+    @Benchmark
+    public Map<String, Long> summarizeIncremental(LedgerState state) {
+        return state.aggregates.getExpenseByCategory();
+    }
+
+    // A period report answered from the rollup
+    @Benchmark
+    public long summarizeQuarter(LedgerState state) {
+        return state.rollup.total("Expense", LocalDate.of(2023, 10, 1), LocalDate.of(2023, 12, 31));
+    }
+
+    // A consistent copy for a background reader
+    @Benchmark
+    public LedgerSnapshot snapshot(LedgerState state) {
+        return state.ledger.snapshot();
+    }
+}
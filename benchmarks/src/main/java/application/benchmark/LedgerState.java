@@ -0,0 +1,45 @@
+package application.benchmark;
+
+import application.ColumnarTransactionList;
+import application.IndexedFilteredList;
+import application.LedgerAggregates;
+import application.LedgerHistory;
+import application.LedgerIndex;
+import application.LedgerRollup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+
+// A ledger wired up the way Main wires it: aggregates, rollup, indexes, the table's filtered
+// view and the undo history
+@State(Scope.Benchmark)
+public class LedgerState {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    public ColumnarTransactionList ledger;
+    public LedgerAggregates aggregates;
+    public LedgerRollup rollup;
+    public LedgerIndex index;
+    public IndexedFilteredList filtered;
+    public LedgerHistory history;
+    public SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ledger = LedgerFixture.ledger(rows, 42);
+        aggregates = LedgerAggregates.of(ledger);
+        rollup = LedgerRollup.of(ledger);
+        ledger.addListener(aggregates);
+        ledger.addListener(rollup);
+        index = new LedgerIndex(ledger);
+        filtered = new IndexedFilteredList(index);
+        history = new LedgerHistory(ledger);
+        random = new SplittableRandom(7);
+    }
+}
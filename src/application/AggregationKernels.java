@@ -0,0 +1,87 @@
+package application;
+
+// Single-pass income, expense and per-category sums over the ledger's primitive columns.
+// Uses the JDK Vector API when the incubator module is present (run with
+// --add-modules jdk.incubator.vector) and a plain scalar loop otherwise; both give the same
+// result to the cent. -Dbudgettracker.scalar=true forces the scalar loop.
+// Vector code is very slow until the JIT has compiled it, so it is warmed up on a background
+// thread when this class loads and the scalar loop is used until that has finished.
+public final class AggregationKernels {
+
+    // Classes of type codes
+    public static final byte OTHER = 0;
+    public static final byte INCOME = 1;
+    public static final byte EXPENSE = 2;
+
+    private static final boolean VECTOR_API = !Boolean.getBoolean("budgettracker.scalar")
+        && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+    private static volatile boolean vectorReady;
+
+    static {
+        if (VECTOR_API) {
+            Thread.ofVirtual().name("aggregation-warmup").start(() -> {
+                VectorAggregationKernels.warmUp();
+                vectorReady = true;
+            });
+        }
+    }
+
+    // Sums for one range of rows; category arrays are indexed by category code
+    public static final class Totals {
+        public long income;
+        public long expense;
+        public final long[] categoryCents;
+        public final int[] categoryCounts;
+
+        public Totals(int categories) {
+            categoryCents = new long[categories];
+            categoryCounts = new int[categories];
+        }
+    }
+
+    private AggregationKernels() {
+    }
+
+    // Loading the class starts the warm-up; called early so it overlaps with startup work
+    public static void startWarmUp() {
+    }
+
+    // False until the vector code is warmed up, and always without the Vector API
+    public static boolean isVectorized() {
+        return vectorReady;
+    }
+
+    // Adds rows [from, to) to the totals. typeClasses maps a type code to INCOME, EXPENSE or
+    // neither; only expense rows count towards the categories
+    public static void sum(long[] cents, int[] typeCodes, int[] categoryCodes, int from, int to,
+                           byte[] typeClasses, Totals into) {
+        if (vectorReady) {
+            VectorAggregationKernels.sum(cents, typeCodes, categoryCodes, from, to, typeClasses, into);
+        } else {
+            sumScalar(cents, typeCodes, categoryCodes, from, to, typeClasses, into);
+        }
+    }
+
+    // Branch-free on the type: every row adds to all three sums, masked to zero where it
+    // does not belong, so mixed income and expense rows cost no mispredictions
+    static void sumScalar(long[] cents, int[] typeCodes, int[] categoryCodes, int from, int to,
+                          byte[] typeClasses, Totals into) {
+        long income = 0;
+        long expense = 0;
+        long[] categoryCents = into.categoryCents;
+        int[] categoryCounts = into.categoryCounts;
+        for (int i = from; i < to; i++) {
+            int typeClass = typeClasses[typeCodes[i]];
+            long amount = cents[i];
+            long incomeMask = -(long) (typeClass & 1);
+            long expenseMask = -(long) (typeClass >>> 1);
+            income += amount & incomeMask;
+            expense += amount & expenseMask;
+            int category = categoryCodes[i];
+            categoryCents[category] += amount & expenseMask;
+            categoryCounts[category] += typeClass >>> 1;
+        }
+        into.income += income;
+        into.expense += expense;
+    }
+}
@@ -0,0 +1,94 @@
+package application;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executor;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Runs a recomputation on a background virtual thread and publishes the result on the
+// FX thread. The input is captured on the FX thread as a snapshot, so the background work
+// never reads state the UI is changing. Requests arriving while one is queued or running
+// collapse into a single rerun: a burst of ledger changes costs one computation and one
+// UI update instead of one per change.
+public class BackgroundRecompute<S, R> {
+
+    private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().name("recompute").start(task);
+
+    private final Supplier<S> snapshot;
+    private final Function<S, R> compute;
+    private final BiPredicate<S, R> publish;
+    private final Executor background;
+    private final Executor ui;
+
+    // Only touched on the FX thread
+    private boolean scheduled;
+    private boolean running;
+    private boolean dirty;
+
+    // publish returns false when the result no longer applies, which triggers a rerun
+    public BackgroundRecompute(Supplier<S> snapshot, Function<S, R> compute, BiPredicate<S, R> publish) {
+        this(snapshot, compute, publish, VIRTUAL_THREADS, Platform::runLater);
+    }
+
+    public BackgroundRecompute(Supplier<S> snapshot, Function<S, R> compute, BiPredicate<S, R> publish,
+                               Executor background, Executor ui) {
+        this.snapshot = snapshot;
+        this.compute = compute;
+        this.publish = publish;
+        this.background = background;
+        this.ui = ui;
+    }
+
+    // Coalescing only, for updates whose inputs are already cheap to read on the FX thread
+    public static BackgroundRecompute<Void, Void> onFxThread(Runnable update) {
+        return new BackgroundRecompute<>(() -> null, input -> null, (input, result) -> {
+            update.run();
+            return true;
+        }, Runnable::run, Platform::runLater);
+    }
+
+    // Called on the FX thread whenever the inputs changed
+    public void request() {
+        if (running) {
+            dirty = true;
+        } else if (!scheduled) {
+            // Deferred to the end of the current burst of events, so they share one snapshot
+            scheduled = true;
+            ui.execute(this::start);
+        }
+    }
+
+    public boolean isBusy() {
+        return scheduled || running;
+    }
+
+    private void start() {
+        scheduled = false;
+        running = true;
+        dirty = false;
+        S input = snapshot.get();
+        background.execute(() -> {
+            try {
+                R result = compute.apply(input);
+                ui.execute(() -> finish(input, result));
+            } catch (RuntimeException | Error ex) {
+                ui.execute(() -> {
+                    running = false;
+                    throw ex;
+                });
+            }
+        });
+    }
+
+    private void finish(S input, R result) {
+        running = false;
+        if (!publish.test(input, result)) {
+            dirty = true;
+        }
+        if (dirty) {
+            request();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package application;
+
+import javafx.scene.chart.PieChart;
+import javafx.scene.control.Label;
+import javafx.scene.layout.VBox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Spending-by-category pie chart and its legend. Each refresh is reconciled against the
+// slices already shown: values are updated in place and only categories that appeared or
+// disappeared add or drop nodes. A category keeps its colour for the whole session, and
+// everything past the largest topN - 1 categories is folded into one "Other" slice.
+public class CategoryChart {
+
+    public static final String OTHER = "Other";
+    static final int DEFAULT_TOP_N = 8;
+
+    private static final String[] COLORS = {
+        "#e6194b", "#3cb44b", "#ffe119", "#4363d8", "#f58231",
+        "#911eb4", "#46f0f0", "#f032e6", "#bcf60c", "#fabebe"
+    };
+    private static final String OTHER_COLOR = "#a9a9a9";
+
+    private final PieChart chart = new PieChart();
+    private final VBox legend = new VBox(5);
+    private final Map<String, PieChart.Data> slices = new HashMap<>();
+    private final Map<String, Label> legendItems = new HashMap<>();
+    private final Map<String, String> colors = new HashMap<>();
+    private int topN;
+
+    // A bad -Dbudgettracker.chartCategories falls back to the default rather than failing
+    // to build the Summary tab
+    public CategoryChart() {
+        this(configuredTopN());
+    }
+
+    public CategoryChart(int topN) {
+        setTopN(topN);
+        chart.setTitle("Spending by Category");
+        chart.setLabelsVisible(false);
+        chart.setLegendVisible(false);
+    }
+
+    private static int configuredTopN() {
+        int topN = Integer.getInteger("budgettracker.chartCategories", DEFAULT_TOP_N);
+        if (topN < 2) {
+            System.err.println("Ignoring budgettracker.chartCategories=" + System.getProperty("budgettracker.chartCategories")
+                + ", must be at least 2; using " + DEFAULT_TOP_N);
+            return DEFAULT_TOP_N;
+        }
+        return topN;
+    }
+
+    public PieChart getChart() { return chart; }
+    public VBox getLegend() { return legend; }
+
+    public int getTopN() { return topN; }
+
+    // Takes effect on the next update
+    public void setTopN(int topN) {
+        if (topN < 2) {
+            throw new IllegalArgumentException("topN must be at least 2: " + topN);
+        }
+        this.topN = topN;
+    }
+
+    public void update(Map<String, Long> categoryTotals) {
+        LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.PIE_CHART);
+        Map<String, Long> shown = topCategories(categoryTotals, topN);
+
+        List<PieChart.Data> stale = new ArrayList<>();
+        List<Label> staleItems = new ArrayList<>();
+        for (PieChart.Data slice : chart.getData()) {
+            if (!shown.containsKey(slice.getName())) {
+                stale.add(slice);
+                staleItems.add(legendItems.remove(slice.getName()));
+                slices.remove(slice.getName());
+            }
+        }
+        if (!stale.isEmpty()) {
+            chart.getData().removeAll(stale);
+            legend.getChildren().removeAll(staleItems);
+        }
+
+        for (Map.Entry<String, Long> entry : shown.entrySet()) {
+            double value = ColumnarTransactionList.fromCents(entry.getValue());
+            PieChart.Data slice = slices.get(entry.getKey());
+            if (slice != null) {
+                if (slice.getPieValue() != value) {
+                    slice.setPieValue(value);
+                }
+                continue;
+            }
+            slice = new PieChart.Data(entry.getKey(), value);
+            slices.put(entry.getKey(), slice);
+            chart.getData().add(slice);
+
+            // The slice node exists once the data is in the chart
+            String color = colorOf(entry.getKey());
+            slice.getNode().setStyle("-fx-pie-color: " + color + ";");
+
+            Label legendItem = new Label(entry.getKey());
+            legendItem.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white; -fx-padding: 2 6 2 6;");
+            legendItems.put(entry.getKey(), legendItem);
+            legend.getChildren().add(legendItem);
+        }
+        timing.finish(shown.size());
+    }
+
+    // Colours go out in the order categories are first shown and are never reassigned
+    private String colorOf(String category) {
+        if (category.equals(OTHER)) {
+            return OTHER_COLOR;
+        }
+        return colors.computeIfAbsent(category, c -> COLORS[colors.size() % COLORS.length]);
+    }
+
+    // At most topN entries: the largest topN - 1 categories in their original order, then
+    // "Other" with the rest (and the "Other" category itself). Nothing is folded when all
+    // categories fit, so a ledger with few categories shows them all.
+    public static Map<String, Long> topCategories(Map<String, Long> categoryTotals, int topN) {
+        Long ownOther = categoryTotals.get(OTHER);
+        int named = categoryTotals.size() - (ownOther != null ? 1 : 0);
+        int keep = named + (ownOther != null ? 1 : 0) <= topN ? named : topN - 1;
+
+        Map<String, Long> shown = new LinkedHashMap<>();
+        if (keep == named) {
+            for (Map.Entry<String, Long> entry : categoryTotals.entrySet()) {
+                if (!entry.getKey().equals(OTHER)) {
+                    shown.put(entry.getKey(), entry.getValue());
+                }
+            }
+            if (ownOther != null) {
+                shown.put(OTHER, ownOther);
+            }
+            return shown;
+        }
+
+        // Smallest value a kept category may have; ties at the cut go to earlier categories
+        List<Long> values = new ArrayList<>(named);
+        for (Map.Entry<String, Long> entry : categoryTotals.entrySet()) {
+            if (!entry.getKey().equals(OTHER)) {
+                values.add(entry.getValue());
+            }
+        }
+        values.sort(null);
+        long cut = values.get(named - keep);
+        int above = 0;
+        for (long value : values) {
+            if (value > cut) {
+                above++;
+            }
+        }
+        int atCut = keep - above;
+
+        long other = ownOther != null ? ownOther : 0;
+        for (Map.Entry<String, Long> entry : categoryTotals.entrySet()) {
+            String category = entry.getKey();
+            long value = entry.getValue();
+            if (category.equals(OTHER)) {
+                continue;
+            }
+            if (value > cut || (value == cut && atCut-- > 0)) {
+                shown.put(category, value);
+            } else {
+                other += value;
+            }
+        }
+        shown.put(OTHER, other);
+        return shown;
+    }
+}
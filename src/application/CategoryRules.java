@@ -0,0 +1,395 @@
+package application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// User-defined categorization rules, one per line of rules.txt, first matching rule wins:
+//
+//   title contains SHELL -> Gas
+//   title starts with "AMZN MKTP" and amount < 50 -> Shopping
+//   type is Income and amount >= 1000 -> Salary
+//   title contains rent and date >= 2024-01-01 -> Bills
+//
+// Conditions are joined with "and"; titles match case-insensitively, and a text may be
+// quoted (needed when it contains " and "). All title texts are compiled into one
+// Aho-Corasick automaton with a dense transition table, so a title is categorized in a
+// single pass over its characters however many rules there are; only the rules whose
+// text occurs in it (plus rules without a title condition) have their amount, date and
+// type conditions checked. Immutable, so one instance serves any number of threads.
+public final class CategoryRules {
+
+    public static final CategoryRules NONE = new CategoryRules(List.of());
+
+    private record Rule(String category, String text, boolean prefix, long minCents, long maxCents,
+                        int minDay, int maxDay, String type) {
+
+        boolean accepts(int end, long cents, String entryType, int epochDay) {
+            return (!prefix || end == text.length())
+                && cents >= minCents && cents <= maxCents
+                && epochDay >= minDay && epochDay <= maxDay
+                && (type == null || type.equalsIgnoreCase(entryType));
+        }
+    }
+
+    private final Rule[] rules;
+    // Rules without a title condition, in rule order
+    private final int[] untitled;
+
+    // Automaton: state s on character class c goes to transitions[s * width + c]
+    private final char[] classes = new char[Character.MAX_VALUE + 1];
+    private final int width;
+    private final int[] transitions;
+    // Rules whose text ends at state s are outputs[outputStart[s] .. outputStart[s + 1]),
+    // ascending; dictionary[s] is the nearest shorter match state, or -1
+    private final int[] outputStart;
+    private final int[] outputs;
+    private final int[] dictionary;
+
+    private CategoryRules(List<Rule> ruleList) {
+        rules = ruleList.toArray(new Rule[0]);
+        untitled = IntStream.range(0, rules.length).filter(r -> rules[r].text() == null).toArray();
+
+        // Character classes: one per character used in a rule text, 0 for every other one
+        int classCount = 1;
+        for (Rule rule : rules) {
+            if (rule.text() != null) {
+                for (int i = 0; i < rule.text().length(); i++) {
+                    char c = rule.text().charAt(i);
+                    if (classes[c] == 0) {
+                        classes[c] = (char) classCount++;
+                    }
+                }
+            }
+        }
+        width = classCount;
+
+        // Trie
+        List<int[]> children = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        children.add(newRow());
+        ends.add(new ArrayList<>());
+        for (int r = 0; r < rules.length; r++) {
+            String text = rules[r].text();
+            if (text == null) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int c = classes[text.charAt(i)];
+                if (children.get(state)[c] < 0) {
+                    children.get(state)[c] = children.size();
+                    children.add(newRow());
+                    ends.add(new ArrayList<>());
+                }
+                state = children.get(state)[c];
+            }
+            ends.get(state).add(r);
+        }
+
+        // Breadth first: failure links, then the full transition table
+        int states = children.size();
+        transitions = new int[states * width];
+        dictionary = new int[states];
+        int[] failure = new int[states];
+        Arrays.fill(dictionary, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < width; c++) {
+            int child = children.get(0)[c];
+            transitions[c] = Math.max(child, 0);
+            if (child > 0) {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int fail = failure[state];
+            dictionary[state] = ends.get(fail).isEmpty() ? dictionary[fail] : fail;
+            for (int c = 0; c < width; c++) {
+                int child = children.get(state)[c];
+                if (child < 0) {
+                    transitions[state * width + c] = transitions[fail * width + c];
+                } else {
+                    transitions[state * width + c] = child;
+                    failure[child] = transitions[fail * width + c];
+                    queue.add(child);
+                }
+            }
+        }
+
+        outputStart = new int[states + 1];
+        List<Integer> flat = new ArrayList<>();
+        for (int s = 0; s < states; s++) {
+            outputStart[s] = flat.size();
+            flat.addAll(ends.get(s));
+        }
+        outputStart[states] = flat.size();
+        outputs = flat.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int[] newRow() {
+        int[] row = new int[width];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    // rules.txt next to the journal
+    public static Path defaultPath() {
+        return LedgerJournal.defaultPath().resolveSibling("rules.txt");
+    }
+
+    // NONE if the file does not exist
+    public static CategoryRules load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return NONE;
+        }
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    // Blank lines and lines starting with # are ignored; errors name source and line
+    public static CategoryRules parse(List<String> lines, String source) throws IOException {
+        List<Rule> rules = new ArrayList<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                rules.add(parseRule(line));
+            } catch (IllegalArgumentException | DateTimeParseException ex) {
+                throw new IOException(source + ":" + (n + 1) + ": " + ex.getMessage());
+            }
+        }
+        return rules.isEmpty() ? NONE : new CategoryRules(rules);
+    }
+
+    public int size() { return rules.length; }
+
+    // Category of the first rule that matches, or null; cents is the (positive) amount
+    public String categorize(String title, long cents, String type, int epochDay) {
+        int best = Integer.MAX_VALUE;
+        if (transitions.length > width) {
+            int state = 0;
+            for (int i = 0; i < title.length() && best > 0; i++) {
+                state = transitions[state * width + classes[Character.toLowerCase(title.charAt(i))]];
+                for (int s = outputStart[state] < outputStart[state + 1] ? state : dictionary[state]; s >= 0; s = dictionary[s]) {
+                    for (int o = outputStart[s]; o < outputStart[s + 1] && outputs[o] < best; o++) {
+                        if (rules[outputs[o]].accepts(i + 1, cents, type, epochDay)) {
+                            best = outputs[o];
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        for (int r : untitled) {
+            if (r >= best) {
+                break;
+            }
+            if (rules[r].accepts(0, cents, type, epochDay)) {
+                best = r;
+                break;
+            }
+        }
+        return best == Integer.MAX_VALUE ? null : rules[best].category();
+    }
+
+    public String categorize(TransactionEntry entry) {
+        return categorize(entry.getTitle(), ColumnarTransactionList.toCents(Math.abs(entry.getAmount())),
+            entry.getType(), (int) entry.getDate().toEpochDay());
+    }
+
+    // ---- Parsing ----
+
+    private static final Map<String, String> TYPES = Map.of("income", "Income", "expense", "Expense");
+
+    private static Rule parseRule(String line) {
+        int arrow = line.lastIndexOf("->");
+        if (arrow < 0) {
+            throw new IllegalArgumentException("expected \"<conditions> -> <category>\"");
+        }
+        String category = line.substring(arrow + 2).strip();
+        if (category.isEmpty()) {
+            throw new IllegalArgumentException("missing category after ->");
+        }
+        Cursor in = new Cursor(line.substring(0, arrow));
+        String text = null;
+        boolean prefix = false;
+        long minCents = Long.MIN_VALUE;
+        long maxCents = Long.MAX_VALUE;
+        int minDay = Integer.MIN_VALUE;
+        int maxDay = Integer.MAX_VALUE;
+        String type = null;
+        do {
+            String field = in.word();
+            switch (field) {
+                case "title" -> {
+                    if (text != null) {
+                        throw new IllegalArgumentException("only one title condition per rule");
+                    }
+                    String how = in.word();
+                    if (how.equals("starts")) {
+                        in.expect("with");
+                        prefix = true;
+                    } else if (!how.equals("contains")) {
+                        throw new IllegalArgumentException("expected \"contains\" or \"starts with\" after title");
+                    }
+                    text = fold(in.text());
+                    if (text.isEmpty()) {
+                        throw new IllegalArgumentException("empty title text");
+                    }
+                }
+                case "amount" -> {
+                    String op = in.operator();
+                    long cents = ColumnarTransactionList.toCents(Math.abs(Double.parseDouble(in.word())));
+                    long[] range = narrow(op, cents, minCents, maxCents);
+                    minCents = range[0];
+                    maxCents = range[1];
+                }
+                case "date" -> {
+                    String op = in.operator();
+                    long day = LocalDate.parse(in.word()).toEpochDay();
+                    long[] range = narrow(op, day, minDay, maxDay);
+                    minDay = (int) range[0];
+                    maxDay = (int) range[1];
+                }
+                case "type" -> {
+                    String word = in.word();
+                    if (word.equals("is")) {
+                        word = in.word();
+                    }
+                    type = TYPES.get(word);
+                    if (type == null) {
+                        throw new IllegalArgumentException("type must be Income or Expense");
+                    }
+                }
+                default -> throw new IllegalArgumentException("unknown condition \"" + field + "\"");
+            }
+        } while (in.and());
+        return new Rule(category, text, prefix, minCents, maxCents, minDay, maxDay, type);
+    }
+
+    private static long[] narrow(String op, long value, long min, long max) {
+        switch (op) {
+            case ">" -> min = Math.max(min, value + 1);
+            case ">=" -> min = Math.max(min, value);
+            case "<" -> max = Math.min(max, value - 1);
+            case "<=" -> max = Math.min(max, value);
+            default -> {
+                min = Math.max(min, value);
+                max = Math.min(max, value);
+            }
+        }
+        return new long[] {min, max};
+    }
+
+    // Case folding used on both rule texts and titles, one char at a time
+    private static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    // Reads the conditions part of a rule
+    private static final class Cursor {
+        private static final List<String> FIELDS = List.of("title", "amount", "date", "type");
+
+        private final String s;
+        private int at;
+
+        Cursor(String s) {
+            this.s = s;
+        }
+
+        // Next space-separated word, lower case
+        String word() {
+            skipSpaces();
+            int start = at;
+            while (at < s.length() && !Character.isWhitespace(s.charAt(at))) {
+                at++;
+            }
+            if (start == at) {
+                throw new IllegalArgumentException("incomplete condition");
+            }
+            return s.substring(start, at).toLowerCase(Locale.ROOT);
+        }
+
+        void expect(String word) {
+            if (!word().equals(word)) {
+                throw new IllegalArgumentException("expected \"" + word + "\"");
+            }
+        }
+
+        String operator() {
+            String op = word();
+            if (!List.of(">", ">=", "<", "<=", "=").contains(op)) {
+                throw new IllegalArgumentException("expected one of > >= < <= = but found \"" + op + "\"");
+            }
+            return op;
+        }
+
+        // A quoted text, or everything up to the next "and <condition>"
+        String text() {
+            skipSpaces();
+            if (at < s.length() && s.charAt(at) == '"') {
+                int end = s.indexOf('"', at + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("unterminated quote");
+                }
+                String text = s.substring(at + 1, end);
+                at = end + 1;
+                return text;
+            }
+            int start = at;
+            while (at < s.length() && !atAnd()) {
+                at++;
+            }
+            return s.substring(start, at).strip();
+        }
+
+        // Consumes " and " between conditions; false at the end of the conditions
+        boolean and() {
+            skipSpaces();
+            if (at >= s.length()) {
+                return false;
+            }
+            if (!s.regionMatches(true, at, "and", 0, 3) || at + 3 >= s.length() || !Character.isWhitespace(s.charAt(at + 3))) {
+                throw new IllegalArgumentException("expected \"and\" or \"->\" at \"" + s.substring(at).strip() + "\"");
+            }
+            at += 3;
+            return true;
+        }
+
+        // Whether " and <condition keyword>" starts here
+        private boolean atAnd() {
+            if (!Character.isWhitespace(s.charAt(at)) || !s.regionMatches(true, at + 1, "and ", 0, 4)) {
+                return false;
+            }
+            String rest = s.substring(at + 5).stripLeading().toLowerCase(Locale.ROOT);
+            for (String field : FIELDS) {
+                if (rest.startsWith(field + " ")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void skipSpaces() {
+            while (at < s.length() && Character.isWhitespace(s.charAt(at))) {
+                at++;
+            }
+        }
+    }
+}
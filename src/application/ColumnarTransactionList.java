@@ -0,0 +1,464 @@
+package application;
+
+import javafx.collections.ModifiableObservableListBase;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Transaction ledger stored column by column in primitive arrays.
+// Amounts are kept as cents, dates as epoch days and category/type as dictionary codes,
+// so a row costs about 24 bytes plus its title (27 measured with growth slack) instead of a
+// TransactionEntry, a LocalDate and a list slot (65 measured); the stable row ID and its
+// position slot add another 12 bytes. Rows are handed out as TransactionEntry objects built
+// on demand, so callers address rows by index or by their stable ID rather than by object
+// identity, and treat the entries as read-only.
+// The columns are cut into chunks of up to 4096 rows that are copied on write once a
+// snapshot shares them, so snapshot() only copies the chunk directory and an edit after it
+// copies just the chunk it touches.
+public class ColumnarTransactionList extends ModifiableObservableListBase<TransactionEntry> {
+
+    private static final int INITIAL_CHUNKS = 4;
+    // Row IDs index positions and the row bitmaps directly, so they stay within int range
+    public static final long MAX_ID = Integer.MAX_VALUE - 8;
+
+    private final StringDictionary categories = new StringDictionary();
+    private final StringDictionary types = new StringDictionary();
+
+    // starts[c] is the ledger index of chunk c's first row, starts[chunkCount] == size
+    private LedgerChunk[] chunks = new LedgerChunk[INITIAL_CHUNKS];
+    private int[] starts = new int[INITIAL_CHUNKS + 1];
+    private int chunkCount;
+    private int size;
+    private int lastChunk; // lookup hint
+    // Chunks created in an earlier generation may be shared with a snapshot
+    private int generation;
+
+    // Position of each live ID, -1 for IDs that were deleted or never used; sized by the
+    // highest ID, so a ledger loaded with mostly dead IDs is renumbered (see withDenseIds)
+    private int[] positions = unusedPositions(16);
+    private long nextId = 1;
+    // Bumped by every change, so work done against an older state can tell it is stale
+    private long version;
+    // The outermost mutation in progress, timed with the listeners it notifies
+    private LedgerOperationEvent mutation;
+    private int mutationDepth;
+    // Entries built by get(), by row ID. The table asks for the same row once per cell and
+    // once more for the row itself whenever it scrolls, so a row shown on screen costs one
+    // TransactionEntry and LocalDate until the ledger next changes rather than six.
+    private static final int ENTRY_CACHE = 1024;
+    private final TransactionEntry[] entryCache = new TransactionEntry[ENTRY_CACHE];
+    private long entryCacheVersion;
+
+    public static long toCents(double amount) { return Math.round(amount * 100); }
+    public static double fromCents(long cents) { return cents / 100.0; }
+
+    @Override
+    public TransactionEntry get(int index) {
+        LedgerChunk chunk = chunkAt(index);
+        int at = index - starts[lastChunk];
+        long id = chunk.ids[at];
+        if (entryCacheVersion != version) {
+            Arrays.fill(entryCache, null);
+            entryCacheVersion = version;
+        }
+        int slot = (int) id & (ENTRY_CACHE - 1);
+        TransactionEntry entry = entryCache[slot];
+        if (entry == null || entry.getId() != id) {
+            entry = new TransactionEntry(id, chunk.titles[at], fromCents(chunk.amountCents[at]),
+                    categories.decode(chunk.categoryCodes[at]), types.decode(chunk.typeCodes[at]),
+                    LocalDate.ofEpochDay(chunk.epochDays[at]));
+            entryCache[slot] = entry;
+        }
+        return entry;
+    }
+
+    @Override
+    public int size() { return size; }
+
+    // Column accessors, for code that can work on primitives without materializing rows
+    public long amountCentsAt(int index) { return chunkAt(index).amountCents[index - starts[lastChunk]]; }
+    public int epochDayAt(int index) { return chunkAt(index).epochDays[index - starts[lastChunk]]; }
+    public int categoryCodeAt(int index) { return chunkAt(index).categoryCodes[index - starts[lastChunk]]; }
+    public int typeCodeAt(int index) { return chunkAt(index).typeCodes[index - starts[lastChunk]]; }
+    public String titleAt(int index) { return chunkAt(index).titles[index - starts[lastChunk]]; }
+    public long idAt(int index) { return chunkAt(index).ids[index - starts[lastChunk]]; }
+    public StringDictionary getCategories() { return categories; }
+    public StringDictionary getTypes() { return types; }
+    public long getVersion() { return version; }
+    // Rows added from now on without an ID of their own get this ID or a higher one
+    public long getNextId() { return nextId; }
+
+    // The ledger as it is now, unaffected by later changes and safe to read from any thread.
+    // Costs a copy of the chunk directory (one slot per 4096 rows), not of the rows
+    public LedgerSnapshot snapshot() {
+        generation++;
+        return new LedgerSnapshot(Arrays.copyOf(chunks, chunkCount), Arrays.copyOf(starts, chunkCount + 1),
+                size, version, categories.toArray(), types.toArray());
+    }
+
+    // Adds rows [fromIndex, toIndex) to the totals straight from the columns; see AggregationKernels
+    public void sumRange(int fromIndex, int toIndex, byte[] typeClasses, AggregationKernels.Totals into) {
+        checkRange(fromIndex, toIndex);
+        for (int c = fromIndex == toIndex ? chunkCount : LedgerChunk.find(starts, chunkCount, fromIndex, lastChunk);
+             c < chunkCount && starts[c] < toIndex; c++) {
+            LedgerChunk chunk = chunks[c];
+            int from = Math.max(fromIndex, starts[c]) - starts[c];
+            int to = Math.min(toIndex, starts[c + 1]) - starts[c];
+            AggregationKernels.sum(chunk.amountCents, chunk.typeCodes, chunk.categoryCodes, from, to, typeClasses, into);
+        }
+    }
+
+    // The rows as given if their IDs are dense enough to keep, otherwise copies without IDs,
+    // which the ledger numbers 1, 2, ... as they are added. For rows read back from the
+    // journal: once deleted rows' IDs far outnumber the live ones, positions would mostly
+    // hold dead slots. A caller that renumbers rewrites the journal with the new IDs.
+    public static List<TransactionEntry> withDenseIds(List<TransactionEntry> rows) {
+        long highest = 0;
+        for (TransactionEntry row : rows) {
+            highest = Math.max(highest, row.getId());
+        }
+        if (highest <= Math.max(1024, 2L * rows.size())) {
+            return rows;
+        }
+        List<TransactionEntry> renumbered = new ArrayList<>(rows.size());
+        for (TransactionEntry row : rows) {
+            renumbered.add(new TransactionEntry(row.getTitle(), row.getAmount(), row.getCategory(), row.getType(), row.getDate()));
+        }
+        return renumbered;
+    }
+
+    // Current position of the row with the given ID, or -1; constant time
+    public int indexOfId(long id) {
+        return id > 0 && id < positions.length ? positions[(int) id] : -1;
+    }
+
+    // Replaces rows [fromIndex, toIndex) with the given rows as a single change. Rows that
+    // overlap are edited in place and keep their IDs; extra rows keep their own IDs if free
+    public void replaceRange(int fromIndex, int toIndex, List<? extends TransactionEntry> rows) {
+        checkRange(fromIndex, toIndex);
+        int common = Math.min(toIndex - fromIndex, rows.size());
+        beginMutation();
+        beginChange();
+        try {
+            for (int i = 0; i < common; i++) {
+                set(fromIndex + i, rows.get(i));
+            }
+            if (fromIndex + common < toIndex) {
+                removeRange(fromIndex + common, toIndex);
+            } else if (common < rows.size()) {
+                addAll(fromIndex + common, rows.subList(common, rows.size()));
+            }
+        } finally {
+            endChange();
+            endMutation(Math.max(toIndex - fromIndex, rows.size()));
+        }
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends TransactionEntry> c) {
+        ensureCapacity(size + c.size());
+        beginMutation();
+        try {
+            return super.addAll(c);
+        } finally {
+            endMutation(c.size());
+        }
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends TransactionEntry> c) {
+        beginMutation();
+        try {
+            return super.addAll(index, c);
+        } finally {
+            endMutation(c.size());
+        }
+    }
+
+    @Override
+    public boolean setAll(Collection<? extends TransactionEntry> c) {
+        int replaced = size;
+        beginMutation();
+        try {
+            return super.setAll(c);
+        } finally {
+            endMutation(Math.max(replaced, c.size()));
+        }
+    }
+
+    @Override
+    public void add(int index, TransactionEntry element) {
+        beginMutation();
+        try {
+            super.add(index, element);
+        } finally {
+            endMutation(1);
+        }
+    }
+
+    @Override
+    public TransactionEntry set(int index, TransactionEntry element) {
+        beginMutation();
+        try {
+            return super.set(index, element);
+        } finally {
+            endMutation(1);
+        }
+    }
+
+    @Override
+    public TransactionEntry remove(int index) {
+        beginMutation();
+        try {
+            return super.remove(index);
+        } finally {
+            endMutation(1);
+        }
+    }
+
+    @Override
+    protected void doAdd(int index, TransactionEntry element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        // Keep the entry's own ID (e.g. replayed from the journal) unless another row already has it
+        long id = element.getId();
+        if (id <= 0 || indexOfId(id) >= 0) {
+            id = nextId;
+        }
+        if (id > MAX_ID) {
+            throw new IllegalArgumentException(element.getId() == id
+                ? "Row ID " + id + " is out of range" : "Row IDs are used up; reopen the ledger to renumber them");
+        }
+        version++;
+        int c = chunkForInsert(index);
+        LedgerChunk chunk = writable(c);
+        int at = index - starts[c];
+        chunk.insertGap(at);
+        for (int k = c + 1; k <= chunkCount; k++) {
+            starts[k]++;
+        }
+        size++;
+        store(chunk, at, element);
+        nextId = Math.max(nextId, id + 1);
+        chunk.ids[at] = id;
+        reposition(index);
+    }
+
+    @Override
+    protected TransactionEntry doSet(int index, TransactionEntry element) {
+        TransactionEntry old = get(index);
+        version++;
+        int c = lastChunk;
+        store(writable(c), index - starts[c], element); // an edited row keeps its ID
+        return old;
+    }
+
+    @Override
+    protected TransactionEntry doRemove(int index) {
+        TransactionEntry old = get(index);
+        version++;
+        shiftDown(index, index + 1);
+        return old;
+    }
+
+    // Removes a whole range with one pass over the chunks and one change event
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if (fromIndex == toIndex) {
+            return;
+        }
+        beginMutation();
+        try {
+            List<TransactionEntry> removed = detachedCopy(fromIndex, toIndex);
+            beginChange();
+            nextRemove(fromIndex, removed);
+            version++;
+            shiftDown(fromIndex, toIndex);
+            modCount++;
+            endChange();
+        } finally {
+            endMutation(toIndex - fromIndex);
+        }
+    }
+
+    // Sizes the chunk directory for the given row count up front
+    public void ensureCapacity(int capacity) {
+        int needed = capacity / LedgerChunk.CAPACITY + 2;
+        if (needed > chunks.length) {
+            growDirectory(needed);
+        }
+    }
+
+    // Mutations nest (setAll removes and adds, replaceRange sets and adds); only the
+    // outermost one is recorded in LedgerMetrics
+    private void beginMutation() {
+        if (mutationDepth++ == 0) {
+            mutation = LedgerMetrics.begin(LedgerMetrics.Operation.LEDGER_CHANGE);
+        }
+    }
+
+    private void endMutation(int rows) {
+        if (--mutationDepth == 0) {
+            mutation.finish(rows);
+            mutation = null;
+        }
+    }
+
+    private void store(LedgerChunk chunk, int at, TransactionEntry element) {
+        chunk.amountCents[at] = toCents(element.getAmount());
+        chunk.epochDays[at] = (int) element.getDate().toEpochDay();
+        chunk.categoryCodes[at] = categories.encode(element.getCategory());
+        chunk.typeCodes[at] = types.encode(element.getType());
+        chunk.titles[at] = element.getTitle();
+    }
+
+    private LedgerChunk chunkAt(int index) {
+        checkIndex(index);
+        lastChunk = LedgerChunk.find(starts, chunkCount, index, lastChunk);
+        return chunks[lastChunk];
+    }
+
+    // The chunk a row inserted at index goes into, splitting a full one. Appends start a
+    // new chunk instead of splitting, so a ledger filled in order keeps its chunks full
+    private int chunkForInsert(int index) {
+        if (chunkCount == 0 || index == size && chunks[chunkCount - 1].size == LedgerChunk.CAPACITY) {
+            insertChunk(chunkCount, new LedgerChunk(generation), size);
+            return chunkCount - 1;
+        }
+        int c = index == size ? chunkCount - 1 : LedgerChunk.find(starts, chunkCount, index, lastChunk);
+        if (chunks[c].size < LedgerChunk.CAPACITY) {
+            return c;
+        }
+        LedgerChunk left = writable(c);
+        LedgerChunk right = new LedgerChunk(generation);
+        int half = left.size / 2;
+        right.append(left, half, left.size);
+        left.remove(half, left.size);
+        insertChunk(c + 1, right, starts[c] + half);
+        return index - starts[c] <= half ? c : c + 1;
+    }
+
+    // Chunk c, copied first if a snapshot may share it
+    private LedgerChunk writable(int c) {
+        LedgerChunk chunk = chunks[c];
+        if (chunk.generation != generation) {
+            chunk = chunk.copy(generation);
+            chunks[c] = chunk;
+        }
+        return chunk;
+    }
+
+    private void insertChunk(int c, LedgerChunk chunk, int start) {
+        if (chunkCount + 1 >= chunks.length) {
+            growDirectory(chunks.length * 2);
+        }
+        System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+        System.arraycopy(starts, c, starts, c + 1, chunkCount - c + 1);
+        chunks[c] = chunk;
+        starts[c] = start;
+        chunkCount++;
+    }
+
+    private void growDirectory(int length) {
+        chunks = Arrays.copyOf(chunks, length);
+        starts = Arrays.copyOf(starts, length + 1);
+    }
+
+    private void shiftDown(int fromIndex, int toIndex) {
+        int first = LedgerChunk.find(starts, chunkCount, fromIndex, lastChunk);
+        int kept = first;
+        for (int c = first; c < chunkCount; c++) {
+            int start = starts[c];
+            int end = starts[c + 1];
+            int from = Math.max(fromIndex, start) - start;
+            int to = Math.min(toIndex, end) - start;
+            LedgerChunk chunk = chunks[c];
+            if (from < to) {
+                for (int i = from; i < to; i++) {
+                    positions[(int) chunk.ids[i]] = -1;
+                }
+                if (to - from < chunk.size) {
+                    chunk = writable(c);
+                    chunk.remove(from, to);
+                } else {
+                    chunk = null; // removed entirely, snapshots may still hold it
+                }
+            }
+            if (chunk != null) {
+                chunks[kept] = chunk;
+                starts[kept] = kept == 0 ? 0 : starts[kept - 1] + chunks[kept - 1].size;
+                kept++;
+            }
+        }
+        Arrays.fill(chunks, kept, chunkCount, null);
+        chunkCount = kept;
+        size -= toIndex - fromIndex;
+        starts[chunkCount] = size;
+        mergeSmall(Math.min(first, chunkCount - 1));
+        lastChunk = 0;
+        reposition(fromIndex);
+    }
+
+    // Folds a chunk left small by deletes into its neighbour, so the directory does not fill
+    // up with near-empty chunks
+    private void mergeSmall(int c) {
+        if (c < 0 || c + 1 >= chunkCount || chunks[c].size + chunks[c + 1].size > LedgerChunk.CAPACITY / 2) {
+            return;
+        }
+        writable(c).append(chunks[c + 1], 0, chunks[c + 1].size);
+        System.arraycopy(chunks, c + 2, chunks, c + 1, chunkCount - c - 2);
+        System.arraycopy(starts, c + 2, starts, c + 1, chunkCount - c - 1);
+        chunks[--chunkCount] = null;
+    }
+
+    // Rows at or after a shift moved, so their ID -> position entries are rewritten
+    private void reposition(int fromIndex) {
+        if (nextId > positions.length) {
+            int[] grown = unusedPositions((int) Math.min(Math.max(nextId, positions.length + (positions.length >> 1)), MAX_ID + 1));
+            System.arraycopy(positions, 0, grown, 0, positions.length);
+            positions = grown;
+        }
+        if (fromIndex >= size) {
+            return;
+        }
+        for (int c = LedgerChunk.find(starts, chunkCount, fromIndex, lastChunk); c < chunkCount; c++) {
+            LedgerChunk chunk = chunks[c];
+            int start = starts[c];
+            for (int i = Math.max(fromIndex - start, 0); i < chunk.size; i++) {
+                positions[(int) chunk.ids[i]] = start + i;
+            }
+        }
+    }
+
+    // Materializes the rows in [fromIndex, toIndex) before they are overwritten
+    private List<TransactionEntry> detachedCopy(int fromIndex, int toIndex) {
+        TransactionEntry[] rows = new TransactionEntry[toIndex - fromIndex];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = get(fromIndex + i);
+        }
+        return Arrays.asList(rows);
+    }
+
+    private static int[] unusedPositions(int length) {
+        int[] unused = new int[length];
+        Arrays.fill(unused, -1);
+        return unused;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range: " + fromIndex + ".." + toIndex + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package application;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Insets;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+// Diagnostics tab: ledger size, heap, allocation rate and per-operation latencies from
+// LedgerMetrics. Refreshes once a second while started, i.e. while its tab is selected.
+public class DiagnosticsView {
+
+    private static final String[] HEADERS = {"Operation", "Count", "Last", "Median", "99th %", "Max"};
+
+    private final VBox layout;
+    private final Label rowsLabel = new Label();
+    private final Label heapLabel = new Label();
+    private final Label allocationLabel = new Label();
+    private final Label[][] cells = new Label[LedgerMetrics.Operation.values().length][HEADERS.length];
+    private final Timeline timeline = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    private long lastAllocated = -1;
+    private long lastSampleNanos;
+
+    public DiagnosticsView() {
+        GridPane table = new GridPane();
+        table.setHgap(20);
+        table.setVgap(4);
+        for (int c = 0; c < HEADERS.length; c++) {
+            Label header = new Label(HEADERS[c]);
+            header.setStyle("-fx-font-weight: bold;");
+            table.add(header, c, 0);
+        }
+        for (LedgerMetrics.Operation operation : LedgerMetrics.Operation.values()) {
+            int r = operation.ordinal();
+            for (int c = 0; c < HEADERS.length; c++) {
+                cells[r][c] = new Label(c == 0 ? operation.getLabel() : "");
+                table.add(cells[r][c], c, r + 1);
+            }
+        }
+
+        // Clears the latencies, so the table shows only what happens from now on
+        Button resetBtn = new Button("Reset");
+        resetBtn.setOnAction(e -> {
+            LedgerMetrics.reset();
+            refresh();
+        });
+
+        layout = new VBox(10, rowsLabel, heapLabel, allocationLabel, table, resetBtn);
+        layout.setPadding(new Insets(15));
+        timeline.setCycleCount(Timeline.INDEFINITE);
+        refresh();
+    }
+
+    public VBox getView() { return layout; }
+
+    public void start() {
+        lastAllocated = -1;
+        refresh();
+        timeline.play();
+    }
+
+    public void stop() {
+        timeline.stop();
+    }
+
+    private void refresh() {
+        rowsLabel.setText("Ledger rows: " + LedgerMetrics.ledgerRows());
+        Runtime runtime = Runtime.getRuntime();
+        heapLabel.setText(String.format("Heap used: %d MB of %d MB",
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20));
+
+        long allocated = LedgerMetrics.allocatedBytes();
+        long now = System.nanoTime();
+        if (allocated < 0) {
+            allocationLabel.setText("Allocation rate: not available");
+        } else if (lastAllocated >= 0 && now > lastSampleNanos) {
+            double mbPerSecond = (allocated - lastAllocated) / 1048576.0 / ((now - lastSampleNanos) / 1e9);
+            allocationLabel.setText(String.format("Allocation rate: %.1f MB/s", mbPerSecond));
+        } else {
+            allocationLabel.setText("Allocation rate: measuring...");
+        }
+        lastAllocated = allocated;
+        lastSampleNanos = now;
+
+        for (LedgerMetrics.Operation operation : LedgerMetrics.Operation.values()) {
+            LatencyHistogram histogram = LedgerMetrics.histogram(operation);
+            Label[] row = cells[operation.ordinal()];
+            long count = histogram.count();
+            row[1].setText(Long.toString(count));
+            row[2].setText(count == 0 ? "-" : formatNanos(histogram.last()));
+            row[3].setText(count == 0 ? "-" : formatNanos(histogram.percentile(0.5)));
+            row[4].setText(count == 0 ? "-" : formatNanos(histogram.percentile(0.99)));
+            row[5].setText(count == 0 ? "-" : formatNanos(histogram.max()));
+        }
+    }
+
+    static String formatNanos(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1f µs", nanos / 1e3);
+        }
+        return String.format("%.1f ms", nanos / 1e6);
+    }
+}
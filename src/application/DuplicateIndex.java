@@ -0,0 +1,251 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Finds ledger rows with the same date, signed amount and normalized title as a new
+// transaction (titles compare case-insensitively on letters and digits only, so "SHELL OIL
+// #1234" matches "Shell Oil 1234"). Each row's 64-bit fingerprint sits in a blocked Bloom
+// filter, one word per fingerprint and small enough to stay in cache, which rejects most new
+// rows with a single read; the rest probe an open-addressing table from fingerprint to row
+// ID and are confirmed against the row's own columns, so a match is never a hash collision.
+// Kept in step with the ledger through change events, like LedgerIndex.
+public class DuplicateIndex implements ListChangeListener<TransactionEntry> {
+
+    private static final int MIN_CAPACITY = 1 << 10;
+    private static final int BLOOM_BITS = 4;
+
+    private final ColumnarTransactionList ledger;
+    // Linear probing; a zero key marks an empty slot. Rows sharing a fingerprint get a slot each.
+    private long[] keys = new long[MIN_CAPACITY];
+    private int[] ids = new int[MIN_CAPACITY];
+    private int count;
+    // One word per fingerprint, capacity / 16 words (8 to 16 bits per row)
+    private long[] bloom = new long[MIN_CAPACITY / 16];
+    // Removed rows whose Bloom bits are still set; the filter is rebuilt when they outnumber live rows
+    private int stale;
+
+    // Registers itself on the ledger
+    public DuplicateIndex(ColumnarTransactionList ledger) {
+        this.ledger = ledger;
+        for (int row = 0; row < ledger.size(); row++) {
+            indexRow(row);
+        }
+        ledger.addListener(this);
+    }
+
+    public int size() { return count; }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue; // IDs do not move
+            }
+            if (c.wasRemoved()) {
+                for (TransactionEntry old : c.getRemoved()) {
+                    unindex(old);
+                }
+            }
+            for (int row = c.getFrom(); c.wasAdded() && row < c.getTo(); row++) {
+                indexRow(row);
+            }
+        }
+        if (stale > count + MIN_CAPACITY) {
+            rebuildBloom();
+        }
+    }
+
+    // ID of a row the entry duplicates, or -1
+    public long findDuplicate(TransactionEntry entry) {
+        return find(entry, Long.MAX_VALUE, null);
+    }
+
+    // Removes rows that duplicate an existing ledger row from successive import batches. Each
+    // ledger row absorbs at most one imported row, so two identical coffees on a re-imported
+    // statement skip the two already there but not a third; rows added by the import itself
+    // are never matched. Use on the FX thread, like the index.
+    public final class ImportFilter {
+        private final RowBitmap claimed = new RowBitmap();
+        private long firstNewId = -1;
+        private long skipped;
+
+        private ImportFilter() {
+        }
+
+        public List<TransactionEntry> removeDuplicates(List<TransactionEntry> batch) {
+            if (firstNewId < 0) {
+                firstNewId = ledger.getNextId();
+            }
+            List<TransactionEntry> kept = new ArrayList<>(batch.size());
+            for (TransactionEntry entry : batch) {
+                long id = find(entry, firstNewId, claimed);
+                if (id < 0) {
+                    kept.add(entry);
+                } else {
+                    claimed.add((int) id);
+                    skipped++;
+                }
+            }
+            return kept;
+        }
+
+        public long getSkipped() { return skipped; }
+    }
+
+    public ImportFilter newImportFilter() {
+        return new ImportFilter();
+    }
+
+    // First matching row with an ID below idLimit that is not in excluded, or -1
+    private long find(TransactionEntry entry, long idLimit, RowBitmap excluded) {
+        String title = entry.getTitle();
+        int epochDay = (int) entry.getDate().toEpochDay();
+        long cents = signedCents(ColumnarTransactionList.toCents(entry.getAmount()), entry.getType());
+        long key = fingerprint(epochDay, cents, title);
+        long word = bloom[(int) (key >>> 32) & (bloom.length - 1)];
+        long bits = bloomBits(key);
+        if ((word & bits) != bits) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int slot = (int) key & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            int id = ids[slot];
+            if (keys[slot] != key || id >= idLimit || (excluded != null && excluded.contains(id))) {
+                continue;
+            }
+            int row = ledger.indexOfId(id);
+            if (row >= 0 && ledger.epochDayAt(row) == epochDay
+                    && signedCents(ledger.amountCentsAt(row), ledger.getTypes().decode(ledger.typeCodeAt(row))) == cents
+                    && sameTitle(ledger.titleAt(row), title)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private void indexRow(int row) {
+        long key = fingerprint(ledger.epochDayAt(row),
+            signedCents(ledger.amountCentsAt(row), ledger.getTypes().decode(ledger.typeCodeAt(row))), ledger.titleAt(row));
+        if (++count > keys.length / 2) {
+            rehash(keys.length * 2);
+        }
+        insert(key, (int) ledger.idAt(row));
+        bloom[(int) (key >>> 32) & (bloom.length - 1)] |= bloomBits(key);
+    }
+
+    private void unindex(TransactionEntry old) {
+        long key = fingerprint((int) old.getDate().toEpochDay(),
+            signedCents(ColumnarTransactionList.toCents(old.getAmount()), old.getType()), old.getTitle());
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (keys[slot] != key || ids[slot] != old.getId()) {
+            if (keys[slot] == 0) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // Backward-shift deletion: pull later slots of the probe run into the hole
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = (int) keys[next] & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                ids[hole] = ids[next];
+                hole = next;
+            }
+        }
+        keys[hole] = 0;
+        count--;
+        stale++;
+    }
+
+    private void insert(long key, int id) {
+        int mask = keys.length - 1;
+        int slot = (int) key & mask;
+        while (keys[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        ids[slot] = id;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[capacity];
+        ids = new int[capacity];
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldKeys[slot] != 0) {
+                insert(oldKeys[slot], oldIds[slot]);
+            }
+        }
+        rebuildBloom();
+    }
+
+    private void rebuildBloom() {
+        bloom = new long[keys.length / 16];
+        for (long key : keys) {
+            if (key != 0) {
+                bloom[(int) (key >>> 32) & (bloom.length - 1)] |= bloomBits(key);
+            }
+        }
+        stale = 0;
+    }
+
+    // BLOOM_BITS bit positions within the fingerprint's word, from its low 24 bits
+    private static long bloomBits(long key) {
+        long bits = 0;
+        for (int b = 0; b < BLOOM_BITS; b++) {
+            bits |= 1L << (key >>> (6 * b));
+        }
+        return bits;
+    }
+
+    // Income positive, expenses negative, so a refund does not match the purchase
+    private static long signedCents(long cents, String type) {
+        return "Income".equals(type) ? cents : -cents;
+    }
+
+    // Never zero, which marks an empty slot
+    static long fingerprint(int epochDay, long signedCents, String title) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                h = (h ^ Character.toLowerCase(c)) * 0x100000001b3L;
+            }
+        }
+        h ^= epochDay * 0x9e3779b97f4a7c15L;
+        h ^= signedCents * 0xc2b2ae3d27d4eb4fL;
+        // MurmurHash3 finalizer
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    // Titles equal on lower-cased letters and digits, without building normalized copies
+    static boolean sameTitle(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (true) {
+            while (i < a.length() && !Character.isLetterOrDigit(a.charAt(i))) {
+                i++;
+            }
+            while (j < b.length() && !Character.isLetterOrDigit(b.charAt(j))) {
+                j++;
+            }
+            if (i == a.length() || j == b.length()) {
+                return i == a.length() && j == b.length();
+            }
+            if (Character.toLowerCase(a.charAt(i++)) != Character.toLowerCase(b.charAt(j++))) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package application;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Projects the balance day by day and each budgeted category's monthly spending from the
+// day after today, without creating the future transactions. Each day of the horizon is
+// one slot of a primitive array: recurring rules add their occurrences straight into the
+// slots, entries already recorded for future dates come from the rollup, and one running
+// sum turns the slots into balances. Category spending per month is answered from the
+// rollup plus each rule's occurrence count in the month, which RecurringRule computes
+// arithmetically. A projection costs O(days + occurrences + months x budgets), so years
+// ahead take milliseconds. Occurrences up to and including today are taken to be in the
+// ledger already.
+public final class ForecastEngine {
+
+    // Projected spending of a category in a month, above its budget
+    public record Overrun(YearMonth month, String category, long budgetCents, long projectedCents) {
+    }
+
+    public static final class Forecast {
+        private final LocalDate firstDay;
+        private final long openingBalance;
+        private final long[] balances;
+        private final int lowest;
+        private final int firstNegative;
+        private final List<Overrun> overruns;
+
+        Forecast(LocalDate firstDay, long openingBalance, long[] balances, List<Overrun> overruns) {
+            this.firstDay = firstDay;
+            this.openingBalance = openingBalance;
+            this.balances = balances;
+            this.overruns = List.copyOf(overruns);
+            int low = 0;
+            int negative = -1;
+            for (int d = 0; d < balances.length; d++) {
+                if (balances[d] < balances[low]) {
+                    low = d;
+                }
+                if (negative < 0 && balances[d] < 0) {
+                    negative = d;
+                }
+            }
+            lowest = low;
+            firstNegative = negative;
+        }
+
+        // Balance at the end of today, where the projection starts
+        public long getOpeningBalance() { return openingBalance; }
+        public int days() { return balances.length; }
+        public LocalDate dateAt(int day) { return firstDay.plusDays(day); }
+        // Projected balance at the end of the given day of the horizon, 0 being tomorrow
+        public long balanceAt(int day) { return balances[day]; }
+        public long getClosingBalance() { return balances.length == 0 ? openingBalance : balances[balances.length - 1]; }
+        public long getLowestBalance() { return balances.length == 0 ? openingBalance : balances[lowest]; }
+        public LocalDate getLowestDate() { return balances.length == 0 ? null : dateAt(lowest); }
+        // First day the balance is projected below zero, or null
+        public LocalDate getFirstNegativeDate() { return firstNegative < 0 ? null : dateAt(firstNegative); }
+        // In month order, then budget order
+        public List<Overrun> getOverruns() { return overruns; }
+    }
+
+    private ForecastEngine() {
+    }
+
+    // The `days` days after today
+    public static Forecast project(ForecastPlan plan, LedgerRollup rollup, LocalDate today, int days) {
+        LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.FORECAST);
+        LocalDate firstDate = today.plusDays(1);
+        long first = firstDate.toEpochDay();
+        long last = first + days - 1;
+        long opening = rollup.total("Income", null, today) - rollup.total("Expense", null, today);
+
+        long[] balances = new long[days];
+        for (RecurringRule rule : plan.rules()) {
+            long signed = rule.signedCents();
+            rule.forEachDay(first, last, day -> balances[(int) (day - first)] += signed);
+        }
+        long[] income = rollup.totalsPerPeriod("Income", null, firstDate, Period.ofDays(1), days);
+        long[] expense = rollup.totalsPerPeriod("Expense", null, firstDate, Period.ofDays(1), days);
+        long balance = opening;
+        for (int d = 0; d < days; d++) {
+            balance += balances[d] + income[d] - expense[d];
+            balances[d] = balance;
+        }
+
+        List<Overrun> overruns = new ArrayList<>();
+        if (!plan.budgets().isEmpty() && days > 0) {
+            Map<String, List<RecurringRule>> expenseRules = new LinkedHashMap<>();
+            for (RecurringRule rule : plan.rules()) {
+                if (rule.type().equalsIgnoreCase("Expense")) {
+                    expenseRules.computeIfAbsent(rule.category(), c -> new ArrayList<>()).add(rule);
+                }
+            }
+            YearMonth lastMonth = YearMonth.from(LocalDate.ofEpochDay(last));
+            for (YearMonth month = YearMonth.from(today); !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+                LocalDate monthStart = month.atDay(1);
+                LocalDate monthEnd = month.atEndOfMonth();
+                long projectFrom = Math.max(first, monthStart.toEpochDay());
+                long projectTo = Math.min(last, monthEnd.toEpochDay());
+                for (Map.Entry<String, Long> budget : plan.budgets().entrySet()) {
+                    long spent = rollup.total("Expense", budget.getKey(), monthStart, monthEnd);
+                    for (RecurringRule rule : expenseRules.getOrDefault(budget.getKey(), List.of())) {
+                        spent += rule.count(projectFrom, projectTo) * rule.cents();
+                    }
+                    if (spent > budget.getValue()) {
+                        overruns.add(new Overrun(month, budget.getKey(), budget.getValue(), spent));
+                    }
+                }
+            }
+        }
+        timing.finish(days);
+        return new Forecast(firstDate, opening, balances, overruns);
+    }
+}
@@ -0,0 +1,121 @@
+package application;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// What the forecast projects: the recurring transactions and the monthly budget of each
+// category, kept in forecast.txt next to the journal, one per line:
+//
+//   monthly from 2024-01-01: Expense, 1200.00, Bills, Rent
+//   every 2 weeks from 2024-01-05: Income, 2000.00, Income, Paycheck
+//   budget Groceries: 400.00
+//
+// See RecurringRule for the schedules. Immutable; edits return a new plan.
+public record ForecastPlan(List<RecurringRule> rules, Map<String, Long> budgets) {
+
+    public static final ForecastPlan EMPTY = new ForecastPlan(List.of(), Map.of());
+
+    public ForecastPlan {
+        rules = List.copyOf(rules);
+        budgets = Collections.unmodifiableMap(new LinkedHashMap<>(budgets));
+    }
+
+    // forecast.txt next to the journal
+    public static Path defaultPath() {
+        return LedgerJournal.defaultPath().resolveSibling("forecast.txt");
+    }
+
+    // EMPTY if the file does not exist
+    public static ForecastPlan load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return EMPTY;
+        }
+        return parse(Files.readAllLines(file, StandardCharsets.UTF_8), file.toString());
+    }
+
+    // Blank lines and lines starting with # are ignored; errors name source and line
+    public static ForecastPlan parse(List<String> lines, String source) throws IOException {
+        List<RecurringRule> rules = new ArrayList<>();
+        Map<String, Long> budgets = new LinkedHashMap<>();
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            try {
+                if (line.regionMatches(true, 0, "budget ", 0, 7)) {
+                    int colon = line.lastIndexOf(':');
+                    if (colon < 0 || line.substring(7, colon).isBlank()) {
+                        throw new IllegalArgumentException("expected \"budget <category>: <amount>\"");
+                    }
+                    budgets.put(line.substring(7, colon).strip(), parseCents(line.substring(colon + 1).strip()));
+                } else {
+                    rules.add(RecurringRule.parse(line));
+                }
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(source + ":" + (n + 1) + ": " + ex.getMessage());
+            }
+        }
+        return new ForecastPlan(rules, budgets);
+    }
+
+    private static long parseCents(String amount) {
+        try {
+            return ColumnarTransactionList.toCents(Math.abs(Double.parseDouble(amount)));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("amount must be a number: \"" + amount + "\"");
+        }
+    }
+
+    public List<String> format() {
+        List<String> lines = new ArrayList<>();
+        for (RecurringRule rule : rules) {
+            lines.add(rule.format());
+        }
+        for (Map.Entry<String, Long> budget : budgets.entrySet()) {
+            lines.add("budget " + budget.getKey() + ": "
+                + String.format(Locale.ROOT, "%.2f", ColumnarTransactionList.fromCents(budget.getValue())));
+        }
+        return lines;
+    }
+
+    // Replaces the file in one step, so a crash leaves the old plan or the new one
+    public void save(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, format(), StandardCharsets.UTF_8);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public ForecastPlan withRule(RecurringRule rule) {
+        List<RecurringRule> more = new ArrayList<>(rules);
+        more.add(rule);
+        return new ForecastPlan(more, budgets);
+    }
+
+    public ForecastPlan withoutRule(RecurringRule rule) {
+        List<RecurringRule> fewer = new ArrayList<>(rules);
+        fewer.remove(rule);
+        return new ForecastPlan(fewer, budgets);
+    }
+
+    // Monthly budget for a category; zero or less removes it
+    public ForecastPlan withBudget(String category, long cents) {
+        Map<String, Long> changed = new LinkedHashMap<>(budgets);
+        if (cents > 0) {
+            changed.put(category, cents);
+        } else {
+            changed.remove(category);
+        }
+        return new ForecastPlan(rules, changed);
+    }
+}
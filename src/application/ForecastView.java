@@ -0,0 +1,247 @@
+package application;
+
+import javafx.geometry.Insets;
+import javafx.scene.chart.CategoryAxis;
+import javafx.scene.chart.LineChart;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.TextField;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+// Forecast tab: projected balance and budget overruns from ForecastEngine, and the
+// recurring transactions and monthly budgets of the plan, which are saved to the plan
+// file on every edit. Re-projects whenever the ledger changes.
+public class ForecastView {
+
+    private static final String[] CATEGORIES = {"Income", "Dining Out", "Bills", "Entertainment", "Gas", "Groceries", "Shopping", "Other"};
+
+    private enum Horizon {
+        THREE_MONTHS("3 Months", 3), ONE_YEAR("1 Year", 12), TWO_YEARS("2 Years", 24),
+        FIVE_YEARS("5 Years", 60), TEN_YEARS("10 Years", 120);
+
+        private final String label;
+        private final int months;
+
+        Horizon(String label, int months) {
+            this.label = label;
+            this.months = months;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    private final LedgerRollup rollup;
+    private final Path planFile;
+    private ForecastPlan plan = ForecastPlan.EMPTY;
+
+    private final ScrollPane layout;
+    private final ComboBox<Horizon> horizonBox = new ComboBox<>();
+    private final Label openingLabel = new Label();
+    private final Label closingLabel = new Label();
+    private final Label lowestLabel = new Label();
+    private final Label warningLabel = new Label();
+    private final XYChart.Series<String, Number> balanceSeries = new XYChart.Series<>();
+    private final ListView<String> overrunList = new ListView<>();
+    private final ListView<RecurringRule> ruleList = new ListView<>();
+    private final Label budgetsLabel = new Label();
+    private final Label status = new Label();
+
+    public ForecastView(LedgerRollup rollup, Path planFile) {
+        this.rollup = rollup;
+        this.planFile = planFile;
+
+        // Projection
+        horizonBox.getItems().setAll(Horizon.values());
+        horizonBox.setValue(Horizon.ONE_YEAR);
+        horizonBox.setOnAction(e -> refresh());
+        LineChart<String, Number> chart = new LineChart<>(new CategoryAxis(), new NumberAxis());
+        chart.setTitle("Projected Balance at Month End");
+        chart.setLegendVisible(false);
+        chart.setCreateSymbols(false);
+        chart.setAnimated(false);
+        chart.setPrefHeight(250);
+        chart.getData().add(balanceSeries);
+        overrunList.setPrefHeight(120);
+        VBox projection = new VBox(10, new HBox(10, new Label("Horizon:"), horizonBox),
+            openingLabel, closingLabel, lowestLabel, warningLabel, chart, new Label("Budget overruns:"), overrunList);
+        HBox.setHgrow(projection, Priority.ALWAYS);
+
+        // Recurring transactions
+        ruleList.setPrefHeight(150);
+        Button removeBtn = new Button("Remove Selected");
+        removeBtn.setOnAction(e -> {
+            RecurringRule selected = ruleList.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                edit(plan.withoutRule(selected));
+            }
+        });
+
+        TextField titleField = new TextField();
+        titleField.setPromptText("Title");
+        TextField amountField = new TextField();
+        amountField.setPromptText("Amount");
+        ComboBox<String> typeBox = new ComboBox<>();
+        typeBox.getItems().setAll("Expense", "Income");
+        typeBox.setValue("Expense");
+        ComboBox<String> categoryBox = new ComboBox<>();
+        categoryBox.getItems().setAll(CATEGORIES);
+        categoryBox.setValue("Bills");
+        DatePicker startPicker = new DatePicker(LocalDate.now().plusDays(1));
+        Spinner<Integer> everySpinner = new Spinner<>(1, 366, 1);
+        everySpinner.setPrefWidth(80);
+        ComboBox<RecurringRule.Unit> unitBox = new ComboBox<>();
+        unitBox.getItems().setAll(RecurringRule.Unit.values());
+        unitBox.setValue(RecurringRule.Unit.MONTHS);
+        DatePicker untilPicker = new DatePicker();
+        untilPicker.setPromptText("Optional");
+        Button addRuleBtn = new Button("Add Recurring");
+        addRuleBtn.setOnAction(e -> {
+            if (titleField.getText().isBlank() || amountField.getText().isBlank() || startPicker.getValue() == null) {
+                status.setText("Title, amount and start date are required.");
+                return;
+            }
+            try {
+                double amount = Double.parseDouble(amountField.getText());
+                TransactionEntry template = new TransactionEntry(titleField.getText().strip(), amount,
+                    categoryBox.getValue(), typeBox.getValue(), startPicker.getValue());
+                edit(plan.withRule(RecurringRule.of(template, unitBox.getValue(), everySpinner.getValue(), untilPicker.getValue())));
+                titleField.clear();
+                amountField.clear();
+                untilPicker.setValue(null);
+            } catch (NumberFormatException ex) {
+                status.setText("Amount must be a number.");
+            } catch (IllegalArgumentException ex) {
+                status.setText("Cannot add the rule: " + ex.getMessage() + ".");
+            }
+        });
+
+        GridPane ruleForm = new GridPane();
+        ruleForm.setHgap(8);
+        ruleForm.setVgap(6);
+        ruleForm.addRow(0, new Label("Title:"), titleField);
+        ruleForm.addRow(1, new Label("Amount:"), amountField);
+        ruleForm.addRow(2, new Label("Type:"), typeBox);
+        ruleForm.addRow(3, new Label("Category:"), categoryBox);
+        ruleForm.addRow(4, new Label("Starts:"), startPicker);
+        ruleForm.addRow(5, new Label("Every:"), new HBox(5, everySpinner, unitBox));
+        ruleForm.addRow(6, new Label("Until:"), untilPicker);
+
+        // Monthly budgets; an empty or zero amount removes the budget
+        ComboBox<String> budgetCategoryBox = new ComboBox<>();
+        budgetCategoryBox.getItems().setAll(List.of(CATEGORIES).subList(1, CATEGORIES.length));
+        budgetCategoryBox.setValue("Groceries");
+        TextField budgetField = new TextField();
+        budgetField.setPromptText("Monthly budget");
+        budgetField.setPrefWidth(110);
+        Button budgetBtn = new Button("Set Budget");
+        budgetBtn.setOnAction(e -> {
+            try {
+                double amount = budgetField.getText().isBlank() ? 0 : Double.parseDouble(budgetField.getText());
+                edit(plan.withBudget(budgetCategoryBox.getValue(), ColumnarTransactionList.toCents(Math.abs(amount))));
+                budgetField.clear();
+            } catch (NumberFormatException ex) {
+                status.setText("Budget must be a number.");
+            }
+        });
+
+        VBox editor = new VBox(10, new Label("Recurring transactions:"), ruleList, removeBtn, ruleForm, addRuleBtn,
+            new Label("Monthly budget:"), new HBox(8, budgetCategoryBox, budgetField, budgetBtn), budgetsLabel);
+        budgetsLabel.setWrapText(true);
+        editor.setPrefWidth(380);
+        status.setWrapText(true);
+        status.setMaxWidth(380);
+
+        // A plan file that does not parse is left as it is, not overwritten by edits
+        try {
+            plan = ForecastPlan.load(planFile);
+        } catch (IOException ex) {
+            editor.setDisable(true);
+            status.setText("Could not read the forecast plan: " + ex.getMessage());
+        }
+        showPlan();
+
+        HBox content = new HBox(20, projection, new VBox(10, editor, status));
+        content.setPadding(new Insets(15));
+        layout = new ScrollPane(content);
+        layout.setFitToWidth(true);
+
+        // A burst of ledger changes re-projects once
+        BackgroundRecompute<Void, Void> update = BackgroundRecompute.onFxThread(this::refresh);
+        rollup.revisionProperty().addListener((obs, oldVal, newVal) -> update.request());
+        refresh();
+    }
+
+    public ScrollPane getView() { return layout; }
+
+    private void edit(ForecastPlan edited) {
+        plan = edited;
+        showPlan();
+        try {
+            plan.save(planFile);
+            status.setText("");
+        } catch (IOException ex) {
+            status.setText("Could not save the forecast plan: " + ex.getMessage());
+        }
+        refresh();
+    }
+
+    private void showPlan() {
+        ruleList.getItems().setAll(plan.rules());
+        List<String> budgets = new ArrayList<>();
+        plan.budgets().forEach((category, cents) ->
+            budgets.add(String.format("%s $%.2f", category, ColumnarTransactionList.fromCents(cents))));
+        budgetsLabel.setText(budgets.isEmpty() ? "No budgets set." : "Budgets: " + String.join(", ", budgets));
+    }
+
+    private void refresh() {
+        LocalDate today = LocalDate.now();
+        int days = (int) (today.plusMonths(horizonBox.getValue().months).toEpochDay() - today.toEpochDay());
+        ForecastEngine.Forecast forecast = ForecastEngine.project(plan, rollup, today, days);
+
+        openingLabel.setText(String.format("Balance today: $%.2f", ColumnarTransactionList.fromCents(forecast.getOpeningBalance())));
+        closingLabel.setText(String.format("Projected balance on %s: $%.2f", forecast.dateAt(days - 1),
+            ColumnarTransactionList.fromCents(forecast.getClosingBalance())));
+        lowestLabel.setText(String.format("Lowest projected balance: $%.2f on %s",
+            ColumnarTransactionList.fromCents(forecast.getLowestBalance()), forecast.getLowestDate()));
+        LocalDate negative = forecast.getFirstNegativeDate();
+        warningLabel.setText(negative == null ? "The balance stays positive over this horizon." : "The balance is projected to go negative on " + negative + ".");
+        warningLabel.setStyle(negative == null ? "-fx-font-weight: bold;" : "-fx-font-weight: bold; -fx-text-fill: #c62828;");
+
+        // One point per month: the balance on its last day within the horizon
+        List<XYChart.Data<String, Number>> points = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            LocalDate date = forecast.dateAt(d);
+            if (d == days - 1 || date.getMonthValue() != date.plusDays(1).getMonthValue()) {
+                points.add(new XYChart.Data<>(YearMonth.from(date).toString(), ColumnarTransactionList.fromCents(forecast.balanceAt(d))));
+            }
+        }
+        balanceSeries.getData().setAll(points);
+
+        List<String> overruns = new ArrayList<>();
+        for (ForecastEngine.Overrun overrun : forecast.getOverruns()) {
+            overruns.add(String.format("%s  %s: $%.2f projected, budget $%.2f", overrun.month(), overrun.category(),
+                ColumnarTransactionList.fromCents(overrun.projectedCents()), ColumnarTransactionList.fromCents(overrun.budgetCents())));
+        }
+        overrunList.getItems().setAll(overruns);
+    }
+}
@@ -0,0 +1,290 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Filtered view of the ledger driven by LedgerIndex bitmaps. Changing the filter is a
+// bitmap intersection rather than a predicate run over every row, and ledger changes
+// are applied incrementally by testing only the added rows against the column values.
+public class IndexedFilteredList extends TransformationList<TransactionEntry, TransactionEntry> {
+
+    private final ColumnarTransactionList ledger;
+    private final LedgerIndex index;
+    private LedgerFilter filter = LedgerFilter.ALL;
+
+    // Source rows in view order (ascending ledger positions)
+    private int[] selection = new int[0];
+    private int size;
+
+    // Lazily resolved per dictionary code: 0 = unknown, 1 = matches, 2 = does not
+    private byte[] typeMatches = new byte[0];
+    private byte[] categoryMatches = new byte[0];
+
+    public IndexedFilteredList(LedgerIndex index) {
+        super(index.getLedger());
+        this.index = index;
+        this.ledger = index.getLedger();
+        refilter();
+    }
+
+    public LedgerFilter getFilter() { return filter; }
+
+    public void setFilter(LedgerFilter filter) {
+        LedgerIndex.Query query = prepareFilter(filter);
+        applyFilter(query, query.resolve());
+    }
+
+    // First half of a filter change, on the FX thread; the query's resolve() may then run
+    // on a background thread and its result be handed to applyFilter
+    public LedgerIndex.Query prepareFilter(LedgerFilter filter) {
+        return index.prepare(filter == null ? LedgerFilter.ALL : filter);
+    }
+
+    // Installs a resolved filter (the matching row IDs, null for all rows), unless the
+    // ledger changed since the query was prepared
+    public boolean applyFilter(LedgerIndex.Query query, int[] ids) {
+        if (query.getVersion() != ledger.getVersion()) {
+            return false;
+        }
+        LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.FILTER_APPLY);
+        filter = query.getFilter();
+        typeMatches = new byte[0];
+        categoryMatches = new byte[0];
+
+        int[] oldSelection = selection;
+        int oldSize = size;
+        selection = positionsOf(ids);
+        size = selection.length;
+
+        if (oldSize > 0 || size > 0) {
+            fireChange(new ReplaceAllChange(rowsAt(oldSelection, 0, oldSize)));
+        }
+        timing.finish(size);
+        return true;
+    }
+
+    @Override
+    public TransactionEntry get(int i) {
+        checkIndex(i);
+        return ledger.get(selection[i]);
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public int getSourceIndex(int i) {
+        checkIndex(i);
+        return selection[i];
+    }
+
+    @Override
+    public int getViewIndex(int sourceIndex) {
+        int at = Arrays.binarySearch(selection, 0, size, sourceIndex);
+        return at >= 0 ? at : -1;
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends TransactionEntry> c) {
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                permuted(c);
+            } else if (!c.wasUpdated()) {
+                spliced(c);
+            }
+        }
+        endChange();
+    }
+
+    // Applies one add/remove/replace of source rows [from, from + removed) -> [from, from + added)
+    private void spliced(ListChangeListener.Change<? extends TransactionEntry> c) {
+        int from = c.getFrom();
+        int removedCount = c.wasRemoved() ? c.getRemovedSize() : 0;
+        int addedCount = c.wasAdded() ? c.getAddedSize() : 0;
+
+        int a = lowerBound(from);
+        int b = lowerBound(from + removedCount);
+        List<TransactionEntry> removed = new ArrayList<>(b - a);
+        for (int k = a; k < b; k++) {
+            removed.add(c.getRemoved().get(selection[k] - from));
+        }
+
+        int[] addedRows = new int[addedCount];
+        int matched = 0;
+        for (int row = from; row < from + addedCount; row++) {
+            if (accepts(row)) {
+                addedRows[matched++] = row;
+            }
+        }
+
+        int tail = size - b;
+        int newSize = a + matched + tail;
+        if (newSize > selection.length) {
+            selection = Arrays.copyOf(selection, Math.max(newSize, selection.length + (selection.length >> 1)));
+        }
+        System.arraycopy(selection, b, selection, a + matched, tail);
+        int delta = addedCount - removedCount;
+        if (delta != 0) {
+            for (int k = a + matched; k < newSize; k++) {
+                selection[k] += delta;
+            }
+        }
+        System.arraycopy(addedRows, 0, selection, a, matched);
+        size = newSize;
+
+        if (!removed.isEmpty() && matched > 0) {
+            nextReplace(a, a + matched, removed);
+        } else if (!removed.isEmpty()) {
+            nextRemove(a, removed);
+        } else if (matched > 0) {
+            nextAdd(a, a + matched);
+        }
+    }
+
+    // A reordered ledger is rare (explicit sort), so the whole selection is reported as
+    // replaced. The same rows still match, so their new positions are looked up rather
+    // than the filter being resolved again on the FX thread.
+    private void permuted(ListChangeListener.Change<? extends TransactionEntry> c) {
+        List<TransactionEntry> removed = new ArrayList<>(size);
+        for (int k = 0; k < size; k++) {
+            removed.add(ledger.get(c.getPermutation(selection[k])));
+        }
+        for (int k = 0; k < size; k++) {
+            selection[k] = c.getPermutation(selection[k]);
+        }
+        Arrays.sort(selection, 0, size);
+        if (!removed.isEmpty()) {
+            nextRemove(0, removed);
+        }
+        if (size > 0) {
+            nextAdd(0, size);
+        }
+    }
+
+    // Recomputes the selection from the bitmap indexes
+    private void refilter() {
+        selection = positionsOf(index.prepare(filter).resolve());
+        size = selection.length;
+    }
+
+    // Ledger positions of the given row IDs, in ascending order. IDs are handed out in
+    // append order, so the positions usually come out sorted already
+    private int[] positionsOf(int[] ids) {
+        int[] rows;
+        if (ids == null) {
+            rows = new int[ledger.size()];
+            for (int i = 0; i < rows.length; i++) {
+                rows[i] = i;
+            }
+            return rows;
+        }
+        rows = new int[ids.length];
+        boolean sorted = true;
+        for (int i = 0; i < ids.length; i++) {
+            rows[i] = ledger.indexOfId(ids[i]);
+            sorted &= i == 0 || rows[i] > rows[i - 1];
+        }
+        if (!sorted) {
+            Arrays.sort(rows);
+        }
+        return rows;
+    }
+
+    // Tests one ledger row against the current filter using the column values
+    private boolean accepts(int row) {
+        if (filter.isAll()) {
+            return true;
+        }
+        if (filter.getType() != null) {
+            typeMatches = resolve(typeMatches, ledger.getTypes(), filter.getType(), ledger.typeCodeAt(row));
+            if (typeMatches[ledger.typeCodeAt(row)] != 1) {
+                return false;
+            }
+        }
+        if (filter.getCategory() != null) {
+            categoryMatches = resolve(categoryMatches, ledger.getCategories(), filter.getCategory(), ledger.categoryCodeAt(row));
+            if (categoryMatches[ledger.categoryCodeAt(row)] != 1) {
+                return false;
+            }
+        }
+        if (filter.getAmountBand() >= 0 && LedgerIndex.bandOf(ledger.amountCentsAt(row)) != filter.getAmountBand()) {
+            return false;
+        }
+        int day = ledger.epochDayAt(row);
+        if (filter.getFrom() != null && day < filter.getFrom().toEpochDay()) {
+            return false;
+        }
+        if (filter.getTo() != null && day > filter.getTo().toEpochDay()) {
+            return false;
+        }
+        return filter.getTitle() == null || TitleSearchIndex.matches(ledger.titleAt(row), filter.getTitle());
+    }
+
+    private static byte[] resolve(byte[] matches, StringDictionary dictionary, String value, int code) {
+        if (code >= matches.length) {
+            matches = Arrays.copyOf(matches, dictionary.size());
+        }
+        if (matches[code] == 0) {
+            String candidate = dictionary.decode(code);
+            matches[code] = (byte) (candidate != null && candidate.equalsIgnoreCase(value) ? 1 : 2);
+        }
+        return matches;
+    }
+
+    // First selection slot whose source row is >= row
+    private int lowerBound(int row) {
+        int at = Arrays.binarySearch(selection, 0, size, row);
+        return at >= 0 ? at : -at - 1;
+    }
+
+    // Whole-view replacement fired directly, because the change builder would copy every
+    // removed row up front even when no listener looks at them
+    private final class ReplaceAllChange extends ListChangeListener.Change<TransactionEntry> {
+        private final List<TransactionEntry> removed;
+        private boolean onChange;
+
+        ReplaceAllChange(List<TransactionEntry> removed) {
+            super(IndexedFilteredList.this);
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if (onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override public void reset() { onChange = false; }
+        @Override public int getFrom() { return 0; }
+        @Override public int getTo() { return size; }
+        @Override public List<TransactionEntry> getRemoved() { return removed; }
+        @Override protected int[] getPermutation() { return new int[0]; }
+    }
+
+    // Old rows as seen before a filter change; only materialized if a listener asks
+    private List<TransactionEntry> rowsAt(int[] rows, int from, int to) {
+        if (from == to) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<>() {
+            @Override public TransactionEntry get(int i) { return ledger.get(rows[from + i]); }
+            @Override public int size() { return to - from; }
+        };
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.TransformationList;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+// Sorted view over the filtered ledger, replacing SortedList. Sorting by date or amount
+// walks that column's LedgerSortIndex, so switching columns is one linear pass over
+// primitive arrays instead of a comparator sort over entries; other columns (and sorting
+// by several columns) still sort with a comparator. Ledger and filter changes are merged
+// into the current order: changed rows are located in one pass, and added rows are
+// sorted among themselves and merged in, without re-sorting the view.
+public class IndexedSortedList extends TransformationList<TransactionEntry, TransactionEntry> {
+
+    // A change touching more than 1/REPLACE_FRACTION of the view is reported as a whole-view
+    // replacement rather than row by row
+    private static final int REPLACE_FRACTION = 4;
+
+    private interface RowOrder {
+        // Compares two source (filtered list) rows
+        int compare(int a, int b);
+    }
+
+    private final IndexedFilteredList filtered;
+    private final ColumnarTransactionList ledger;
+
+    private LedgerSortIndex sortIndex;
+    private boolean descending;
+    private Comparator<TransactionEntry> comparator;
+    private RowOrder rowOrder = Integer::compare;
+
+    // Source rows in view order
+    private int[] order = new int[0];
+    private int size;
+    // View index of each source row, rebuilt on demand
+    private int[] viewIndexes;
+
+    public IndexedSortedList(IndexedFilteredList filtered, ColumnarTransactionList ledger) {
+        super(filtered);
+        this.filtered = filtered;
+        this.ledger = ledger;
+        resort();
+    }
+
+    // Sorts by the index's column, in its order or in reverse
+    public void setSortIndex(LedgerSortIndex sortIndex, boolean descending) {
+        this.sortIndex = sortIndex;
+        this.descending = descending;
+        this.comparator = null;
+        replaceAll();
+    }
+
+    // Sorts with a comparator over entries, ties in source order; null for source order
+    public void setComparator(Comparator<TransactionEntry> comparator) {
+        this.sortIndex = null;
+        this.comparator = comparator;
+        replaceAll();
+    }
+
+    @Override
+    public TransactionEntry get(int i) {
+        checkIndex(i);
+        return filtered.get(order[i]);
+    }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public int getSourceIndex(int i) {
+        checkIndex(i);
+        return order[i];
+    }
+
+    @Override
+    public int getViewIndex(int sourceIndex) {
+        if (viewIndexes == null) {
+            viewIndexes = new int[filtered.size()];
+            for (int p = 0; p < size; p++) {
+                viewIndexes[order[p]] = p;
+            }
+        }
+        return sourceIndex >= 0 && sourceIndex < viewIndexes.length ? viewIndexes[sourceIndex] : -1;
+    }
+
+    @Override
+    protected void sourceChanged(ListChangeListener.Change<? extends TransactionEntry> c) {
+        viewIndexes = null;
+        int changed = 0;
+        int subChanges = 0;
+        while (c.next()) {
+            subChanges++;
+            changed += c.wasPermutated() ? 0 : c.getRemovedSize() + c.getAddedSize();
+        }
+        c.reset();
+        if (subChanges == 1 && (long) changed * REPLACE_FRACTION > size) {
+            c.next();
+            replaceAfter(c);
+            return;
+        }
+
+        beginChange();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                permuted(c);
+            } else if (!c.wasUpdated()) {
+                spliced(c);
+            }
+        }
+        endChange();
+    }
+
+    // Applies one add/remove/replace of source rows [from, from + removed) -> [from, from + added)
+    private void spliced(ListChangeListener.Change<? extends TransactionEntry> c) {
+        int from = c.getFrom();
+        int removedCount = c.wasRemoved() ? c.getRemovedSize() : 0;
+        int addedCount = c.wasAdded() ? c.getAddedSize() : 0;
+        int delta = addedCount - removedCount;
+
+        // One pass drops the removed rows and renumbers the rows after them
+        int kept = 0;
+        for (int p = 0; p < size; p++) {
+            int s = order[p];
+            if (s >= from && s < from + removedCount) {
+                nextRemove(kept, c.getRemoved().get(s - from));
+            } else {
+                order[kept++] = s >= from + removedCount ? s + delta : s;
+            }
+        }
+
+        // Added rows are sorted among themselves and each one's place among the kept rows is
+        // binary searched, since comparing rows costs column reads; equal kept rows stay first
+        int[] added = new int[addedCount];
+        for (int i = 0; i < addedCount; i++) {
+            added[i] = from + i;
+        }
+        sort(added, addedCount);
+        int[] positions = new int[addedCount];
+        int low = 0;
+        for (int a = 0; a < addedCount; a++) {
+            int high = kept;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (rowOrder.compare(order[mid], added[a]) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            positions[a] = low + a;
+        }
+
+        // Kept rows move up in blocks, from the back
+        int newSize = kept + addedCount;
+        if (newSize > order.length) {
+            order = Arrays.copyOf(order, Math.max(newSize, order.length + (order.length >> 1)));
+        }
+        int end = kept;
+        for (int a = addedCount - 1; a >= 0; a--) {
+            int start = positions[a] - a;
+            System.arraycopy(order, start, order, start + a + 1, end - start);
+            order[positions[a]] = added[a];
+            end = start;
+        }
+        size = newSize;
+        for (int a = 0; a < addedCount; ) {
+            int run = a + 1;
+            while (run < addedCount && positions[run] == positions[run - 1] + 1) {
+                run++;
+            }
+            nextAdd(positions[a], positions[run - 1] + 1);
+            a = run;
+        }
+    }
+
+    // Reordered source rows keep their place unless the order depends on source positions
+    private void permuted(ListChangeListener.Change<? extends TransactionEntry> c) {
+        int[] oldOrder = Arrays.copyOf(order, size);
+        resort();
+        int[] newView = new int[size];
+        for (int p = 0; p < size; p++) {
+            newView[order[p]] = p;
+        }
+        int[] permutation = new int[size];
+        boolean moved = false;
+        for (int p = 0; p < size; p++) {
+            permutation[p] = newView[c.getPermutation(oldOrder[p])];
+            moved |= permutation[p] != p;
+        }
+        if (moved) {
+            nextPermutation(0, size, permutation);
+        }
+    }
+
+    // Large changes: the old view is reported removed and the new one added in one change,
+    // with the old rows only materialized if a listener asks for them
+    private void replaceAfter(ListChangeListener.Change<? extends TransactionEntry> c) {
+        int[] oldOrder = order.clone();
+        int oldSize = size;
+        int from = c.getFrom();
+        int removedCount = c.wasRemoved() ? c.getRemovedSize() : 0;
+        int delta = (c.wasAdded() ? c.getAddedSize() : 0) - removedCount;
+        List<? extends TransactionEntry> removedRows = c.getRemoved();
+        List<TransactionEntry> removed = new AbstractList<>() {
+            @Override
+            public TransactionEntry get(int i) {
+                int s = oldOrder[i];
+                if (s < from) {
+                    return filtered.get(s);
+                }
+                return s < from + removedCount ? removedRows.get(s - from) : filtered.get(s + delta);
+            }
+
+            @Override public int size() { return oldSize; }
+        };
+        resort();
+        if (oldSize > 0 || size > 0) {
+            fireChange(new ReplaceAllChange(removed));
+        }
+    }
+
+    // Re-sorts after a sort change
+    private void replaceAll() {
+        viewIndexes = null;
+        List<TransactionEntry> removed = rowsAt(order.clone(), size);
+        resort();
+        if (!removed.isEmpty() || size > 0) {
+            fireChange(new ReplaceAllChange(removed));
+        }
+    }
+
+    // Recomputes the order from scratch: a walk of the sort index, a comparator sort, or
+    // source order
+    private void resort() {
+        LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.SORT_APPLY);
+        size = filtered.size();
+        order = new int[size];
+        if (sortIndex != null) {
+            LedgerSortIndex index = sortIndex;
+            int sign = descending ? -1 : 1;
+            rowOrder = (a, b) -> sign * index.compareRows(filtered.getSourceIndex(a), filtered.getSourceIndex(b));
+            // Source row of each ledger row, or -1 when the filter excludes it
+            int[] sourceOf = null;
+            if (size < ledger.size()) {
+                sourceOf = new int[ledger.size()];
+                Arrays.fill(sourceOf, -1);
+                for (int s = 0; s < size; s++) {
+                    sourceOf[filtered.getSourceIndex(s)] = s;
+                }
+            }
+            int[] next = {0};
+            int[] rows = sourceOf;
+            index.forEach(descending, id -> {
+                int row = ledger.indexOfId(id);
+                int s = rows == null ? row : rows[row];
+                if (s >= 0) {
+                    order[next[0]++] = s;
+                }
+            });
+        } else {
+            for (int s = 0; s < size; s++) {
+                order[s] = s;
+            }
+            if (comparator == null) {
+                rowOrder = Integer::compare;
+            } else {
+                // The full sort reads each row once; later merges read rows as they compare them
+                Comparator<TransactionEntry> entries = comparator;
+                TransactionEntry[] rows = filtered.toArray(new TransactionEntry[0]);
+                rowOrder = (a, b) -> {
+                    int result = entries.compare(rows[a], rows[b]);
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+                sort(order, size);
+                rowOrder = (a, b) -> {
+                    int result = entries.compare(filtered.get(a), filtered.get(b));
+                    return result != 0 ? result : Integer.compare(a, b);
+                };
+            }
+        }
+        timing.finish(size);
+    }
+
+    // Stable bottom-up merge sort of source rows by the current row order
+    private void sort(int[] rows, int n) {
+        int[] from = rows;
+        int[] to = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int mid = Math.min(low + width, n);
+                int high = Math.min(low + 2 * width, n);
+                int a = low;
+                int b = mid;
+                for (int k = low; k < high; k++) {
+                    if (a < mid && (b >= high || rowOrder.compare(from[a], from[b]) <= 0)) {
+                        to[k] = from[a++];
+                    } else {
+                        to[k] = from[b++];
+                    }
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != rows) {
+            System.arraycopy(from, 0, rows, 0, n);
+        }
+    }
+
+    // Rows of the view as it is now, read lazily
+    private List<TransactionEntry> rowsAt(int[] rows, int count) {
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+        return new AbstractList<>() {
+            @Override public TransactionEntry get(int i) { return filtered.get(rows[i]); }
+            @Override public int size() { return count; }
+        };
+    }
+
+    // Whole-view replacement fired directly, like IndexedFilteredList's
+    private final class ReplaceAllChange extends ListChangeListener.Change<TransactionEntry> {
+        private final List<TransactionEntry> removed;
+        private boolean onChange;
+
+        ReplaceAllChange(List<TransactionEntry> removed) {
+            super(IndexedSortedList.this);
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if (onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override public void reset() { onChange = false; }
+        @Override public int getFrom() { return 0; }
+        @Override public int getTo() { return size; }
+        @Override public List<TransactionEntry> getRemoved() { return removed; }
+        @Override protected int[] getPermutation() { return new int[0]; }
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package application;
+
+// Sorts an array of primitive keys together with the row (position or ID) each key belongs
+// to, as used for the sort indexes: on the page store's disk runs and on LedgerSortIndex's
+// batches. Stable, so rows with equal keys keep the order they were given in.
+final class KeyRowSort {
+
+    private KeyRowSort() {
+    }
+
+    // Bottom-up merge sort of keys[0 .. n) with rows alongside; the scratch arrays hold at
+    // least n values each
+    static void mergeSort(long[] keys, int[] rows, long[] keyScratch, int[] rowScratch, int n) {
+        long[] fromKeys = keys;
+        int[] fromRows = rows;
+        long[] toKeys = keyScratch;
+        int[] toRows = rowScratch;
+        for (int width = 1; width < n; width *= 2) {
+            for (int low = 0; low < n; low += 2 * width) {
+                int mid = Math.min(low + width, n);
+                int high = Math.min(low + 2 * width, n);
+                int a = low;
+                int b = mid;
+                for (int k = low; k < high; k++) {
+                    if (a < mid && (b >= high || fromKeys[a] <= fromKeys[b])) {
+                        toKeys[k] = fromKeys[a];
+                        toRows[k] = fromRows[a++];
+                    } else {
+                        toKeys[k] = fromKeys[b];
+                        toRows[k] = fromRows[b++];
+                    }
+                }
+            }
+            long[] swapKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = swapKeys;
+            int[] swapRows = fromRows;
+            fromRows = toRows;
+            toRows = swapRows;
+        }
+        if (fromKeys != keys) {
+            System.arraycopy(fromKeys, 0, keys, 0, n);
+            System.arraycopy(fromRows, 0, rows, 0, n);
+        }
+    }
+}
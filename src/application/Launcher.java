@@ -0,0 +1,13 @@
+package application;
+
+// Main class of the runnable jar. The java launcher refuses to start an Application subclass
+// when JavaFX is on the class path rather than the module path, so the jar starts here.
+public final class Launcher {
+
+    private Launcher() {
+    }
+
+    public static void main(String[] args) {
+        Main.main(args);
+    }
+}
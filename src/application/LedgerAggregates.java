@@ -0,0 +1,142 @@
+package application;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.collections.ListChangeListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Running income/expense totals and per-category expense totals, kept in cents.
+// Attached to the transaction list, it applies each add/remove/replace as a delta so
+// the summary never has to rescan the ledger, and integer cents keep it exactly equal
+// to a full recompute.
+public class LedgerAggregates implements ListChangeListener<TransactionEntry> {
+
+    private final ReadOnlyLongWrapper incomeCents = new ReadOnlyLongWrapper(this, "incomeCents");
+    private final ReadOnlyLongWrapper expenseCents = new ReadOnlyLongWrapper(this, "expenseCents");
+    private final ReadOnlyIntegerWrapper revision = new ReadOnlyIntegerWrapper(this, "revision");
+    private final Map<String, Bucket> expenseByCategory = new LinkedHashMap<>();
+
+    // Added batches at least this large are summed from the columns instead of row by row
+    private static final int COLUMN_BATCH = 64;
+
+    private long income;
+    private long expense;
+
+    private static final class Bucket {
+        long cents;
+        int count;
+    }
+
+    // Full recompute over a list, used for verification and for ledgers not attached to a listener
+    public static LedgerAggregates of(List<? extends TransactionEntry> entries) {
+        LedgerAggregates aggregates = new LedgerAggregates();
+        for (TransactionEntry entry : entries) {
+            aggregates.apply(entry, 1);
+        }
+        aggregates.publish();
+        return aggregates;
+    }
+
+    // Full recompute straight from the ledger's columns, without materializing any rows
+    public static LedgerAggregates of(ColumnarTransactionList ledger) {
+        LedgerAggregates aggregates = new LedgerAggregates();
+        aggregates.applyRows(ledger, 0, ledger.size());
+        aggregates.publish();
+        return aggregates;
+    }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue; // order does not affect totals
+            }
+            if (c.wasRemoved()) {
+                for (TransactionEntry entry : c.getRemoved()) {
+                    apply(entry, -1);
+                }
+            }
+            if (c.wasAdded() && c.getAddedSize() >= COLUMN_BATCH && c.getList() instanceof ColumnarTransactionList ledger) {
+                applyRows(ledger, c.getFrom(), c.getTo());
+            } else if (c.wasAdded()) {
+                for (TransactionEntry entry : c.getAddedSubList()) {
+                    apply(entry, 1);
+                }
+            }
+        }
+        publish();
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) one transaction from the totals
+    public void apply(TransactionEntry entry, int sign) {
+        apply(entry.getType(), entry.getCategory(), ColumnarTransactionList.toCents(entry.getAmount()), sign);
+    }
+
+    public void apply(String type, String category, long cents, int sign) {
+        if (type.equalsIgnoreCase("Income")) {
+            income += sign * cents;
+        } else if (type.equalsIgnoreCase("Expense")) {
+            expense += sign * cents;
+            Bucket bucket = expenseByCategory.computeIfAbsent(category, k -> new Bucket());
+            bucket.cents += sign * cents;
+            bucket.count += sign;
+            if (bucket.count == 0) {
+                expenseByCategory.remove(category);
+            }
+        }
+    }
+
+    // Adds ledger rows [from, to) in one pass over the primitive columns
+    private void applyRows(ColumnarTransactionList ledger, int from, int to) {
+        StringDictionary types = ledger.getTypes();
+        byte[] typeClasses = new byte[types.size()];
+        for (int code = 0; code < typeClasses.length; code++) {
+            String type = types.decode(code);
+            typeClasses[code] = type.equalsIgnoreCase("Income") ? AggregationKernels.INCOME
+                : type.equalsIgnoreCase("Expense") ? AggregationKernels.EXPENSE : AggregationKernels.OTHER;
+        }
+        StringDictionary categories = ledger.getCategories();
+        AggregationKernels.Totals totals = new AggregationKernels.Totals(categories.size());
+        ledger.sumRange(from, to, typeClasses, totals);
+
+        income += totals.income;
+        expense += totals.expense;
+        for (int code = 0; code < totals.categoryCounts.length; code++) {
+            if (totals.categoryCounts[code] > 0) {
+                Bucket bucket = expenseByCategory.computeIfAbsent(categories.decode(code), k -> new Bucket());
+                bucket.cents += totals.categoryCents[code];
+                bucket.count += totals.categoryCounts[code];
+            }
+        }
+    }
+
+    // Pushes the running totals out to the observable properties
+    public void publish() {
+        incomeCents.set(income);
+        expenseCents.set(expense);
+        revision.set(revision.get() + 1);
+    }
+
+    public long getIncomeCents() { return income; }
+    public long getExpenseCents() { return expense; }
+    public long getBalanceCents() { return income - expense; }
+
+    // Expense totals per category, in first-seen order
+    public Map<String, Long> getExpenseByCategory() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        expenseByCategory.forEach((category, bucket) -> totals.put(category, bucket.cents));
+        return Collections.unmodifiableMap(totals);
+    }
+
+    public ReadOnlyLongProperty incomeCentsProperty() { return incomeCents.getReadOnlyProperty(); }
+    public ReadOnlyLongProperty expenseCentsProperty() { return expenseCents.getReadOnlyProperty(); }
+
+    // Bumped once per applied change, for views that redraw from the totals
+    public ReadOnlyIntegerProperty revisionProperty() { return revision.getReadOnlyProperty(); }
+}
@@ -0,0 +1,132 @@
+package application;
+
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// Read-only transaction table for a ledger too large to load, served page by page from
+// a LedgerPageStore. Sorting (by amount or date) and filtering (by type and category)
+// swap in a new view built from the on-disk indexes on a background thread; the table's
+// own sort is replaced, since it would need every row on the heap.
+public class LedgerBrowser {
+
+    // Rows above which the app opens the journal here rather than loading it: when the
+    // ledger would take more than half the heap, at about 128 bytes a row once loaded
+    static final int LOADED_ROW_BYTES = 128;
+
+    private record Selection(LedgerPageStore.SortKey key, boolean descending, String type, String category) {}
+
+    private final LedgerPageStore store;
+    private final PagedLedgerList items;
+    private final VBox layout;
+
+    public LedgerBrowser(LedgerPageStore store) {
+        this.store = store;
+        items = new PagedLedgerList(new LedgerPageView(store, null, false));
+
+        ComboBox<String> typeFilter = new ComboBox<>();
+        typeFilter.getItems().add("All");
+        typeFilter.getItems().addAll(store.getTypes());
+        typeFilter.setValue("All");
+        ComboBox<String> categoryFilter = new ComboBox<>();
+        categoryFilter.getItems().add("All");
+        categoryFilter.getItems().addAll(store.getCategories());
+        categoryFilter.setValue("All");
+        Label status = new Label(rowCount(items.size()));
+
+        TableView<TransactionEntry> table = new TableView<>(items);
+        TableColumn<TransactionEntry, String> titleCol = new TableColumn<>("Title");
+        titleCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getTitle()));
+        TableColumn<TransactionEntry, Double> amountCol = new TableColumn<>("Amount");
+        amountCol.setCellValueFactory(cell -> new SimpleDoubleProperty(cell.getValue().getAmount()).asObject());
+        TableColumn<TransactionEntry, String> categoryCol = new TableColumn<>("Category");
+        categoryCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getCategory()));
+        TableColumn<TransactionEntry, String> typeCol = new TableColumn<>("Type");
+        typeCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getType()));
+        TableColumn<TransactionEntry, LocalDate> dateCol = new TableColumn<>("Date");
+        dateCol.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getDate()));
+        // Only the columns with a sort index can be sorted
+        titleCol.setSortable(false);
+        categoryCol.setSortable(false);
+        typeCol.setSortable(false);
+        table.getColumns().add(titleCol);
+        table.getColumns().add(amountCol);
+        table.getColumns().add(categoryCol);
+        table.getColumns().add(typeCol);
+        table.getColumns().add(dateCol);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+
+        // A sort index is built the first time its column is sorted; later switches only map it
+        BackgroundRecompute<Selection, LedgerPageView> viewUpdate = new BackgroundRecompute<>(
+            () -> {
+                status.setText("Loading...");
+                TableColumn<TransactionEntry, ?> column = table.getSortOrder().isEmpty() ? null : table.getSortOrder().get(0);
+                LedgerPageStore.SortKey key = column == amountCol ? LedgerPageStore.SortKey.AMOUNT
+                    : column == dateCol ? LedgerPageStore.SortKey.DATE : null;
+                return new Selection(key, key != null && column.getSortType() == TableColumn.SortType.DESCENDING,
+                    filterValue(typeFilter), filterValue(categoryFilter));
+            },
+            this::view,
+            (selection, view) -> {
+                if (view == null) {
+                    status.setText("Could not read the ledger indexes in " + store.getJournalPath().getParent());
+                    return true;
+                }
+                table.getSelectionModel().clearSelection();
+                items.setView(view);
+                status.setText(rowCount(view.size()));
+                return true;
+            });
+        table.setSortPolicy(t -> {
+            viewUpdate.request();
+            return true;
+        });
+        typeFilter.setOnAction(e -> viewUpdate.request());
+        categoryFilter.setOnAction(e -> viewUpdate.request());
+
+        HBox filters = new HBox(10, new Label("Type:"), typeFilter, new Label("Category:"), categoryFilter, status);
+        layout = new VBox(10, new Label("Read-only view of " + store.getJournalPath()), filters, table);
+        VBox.setVgrow(table, Priority.ALWAYS);
+        layout.setPadding(new Insets(10));
+    }
+
+    public VBox getView() { return layout; }
+
+    // Whether the journal is too large to load into the app in the current heap
+    public static boolean tooLargeToLoad(Path journalPath) {
+        long bytes = journalPath.toFile().length();
+        long rows = Math.max(0, bytes - LedgerJournal.HEADER_SIZE) / LedgerJournal.RECORD_SIZE;
+        return rows * LOADED_ROW_BYTES > Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    // Runs on the background thread; null if the indexes could not be read or built
+    private LedgerPageView view(Selection selection) {
+        try {
+            return new LedgerPageView(store, store.select(selection.key(), selection.type(), selection.category()),
+                selection.descending());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private static String filterValue(ComboBox<String> filter) {
+        String value = filter.getValue();
+        return value == null || value.equals("All") ? null : value;
+    }
+
+    private static String rowCount(int rows) {
+        return String.format("%,d transactions", rows);
+    }
+}
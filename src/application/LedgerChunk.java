@@ -0,0 +1,120 @@
+package application;
+
+import java.util.Arrays;
+
+// One run of up to CAPACITY consecutive ledger rows, column by column. A chunk belongs to
+// the snapshot generation it was created in; once the ledger has moved on to a later
+// generation the chunk may be shared with snapshots and is never written again, the
+// ledger copies it first. Shared by ColumnarTransactionList and LedgerSnapshot.
+final class LedgerChunk {
+
+    static final int CAPACITY = 4096;
+    private static final int INITIAL_CAPACITY = 16;
+
+    final int generation;
+    long[] amountCents;
+    int[] epochDays;
+    int[] categoryCodes;
+    int[] typeCodes;
+    String[] titles;
+    long[] ids;
+    int size;
+
+    LedgerChunk(int generation) {
+        this(generation, INITIAL_CAPACITY);
+    }
+
+    private LedgerChunk(int generation, int capacity) {
+        this.generation = generation;
+        amountCents = new long[capacity];
+        epochDays = new int[capacity];
+        categoryCodes = new int[capacity];
+        typeCodes = new int[capacity];
+        titles = new String[capacity];
+        ids = new long[capacity];
+    }
+
+    // Writable copy for the given generation
+    LedgerChunk copy(int generation) {
+        LedgerChunk copy = new LedgerChunk(generation, amountCents.length);
+        copy.size = size;
+        System.arraycopy(amountCents, 0, copy.amountCents, 0, size);
+        System.arraycopy(epochDays, 0, copy.epochDays, 0, size);
+        System.arraycopy(categoryCodes, 0, copy.categoryCodes, 0, size);
+        System.arraycopy(typeCodes, 0, copy.typeCodes, 0, size);
+        System.arraycopy(titles, 0, copy.titles, 0, size);
+        System.arraycopy(ids, 0, copy.ids, 0, size);
+        return copy;
+    }
+
+    // Opens a gap of one row at offset; the caller fills it
+    void insertGap(int offset) {
+        if (size == amountCents.length) {
+            grow(Math.min(CAPACITY, size * 2));
+        }
+        int tail = size - offset;
+        System.arraycopy(amountCents, offset, amountCents, offset + 1, tail);
+        System.arraycopy(epochDays, offset, epochDays, offset + 1, tail);
+        System.arraycopy(categoryCodes, offset, categoryCodes, offset + 1, tail);
+        System.arraycopy(typeCodes, offset, typeCodes, offset + 1, tail);
+        System.arraycopy(titles, offset, titles, offset + 1, tail);
+        System.arraycopy(ids, offset, ids, offset + 1, tail);
+        size++;
+    }
+
+    void remove(int from, int to) {
+        int tail = size - to;
+        System.arraycopy(amountCents, to, amountCents, from, tail);
+        System.arraycopy(epochDays, to, epochDays, from, tail);
+        System.arraycopy(categoryCodes, to, categoryCodes, from, tail);
+        System.arraycopy(typeCodes, to, typeCodes, from, tail);
+        System.arraycopy(titles, to, titles, from, tail);
+        System.arraycopy(ids, to, ids, from, tail);
+        Arrays.fill(titles, size - (to - from), size, null);
+        size -= to - from;
+    }
+
+    // Copies rows [from, to) of another chunk to the end of this one; the source is not touched
+    void append(LedgerChunk source, int from, int to) {
+        int count = to - from;
+        grow(Math.max(amountCents.length, size + count));
+        System.arraycopy(source.amountCents, from, amountCents, size, count);
+        System.arraycopy(source.epochDays, from, epochDays, size, count);
+        System.arraycopy(source.categoryCodes, from, categoryCodes, size, count);
+        System.arraycopy(source.typeCodes, from, typeCodes, size, count);
+        System.arraycopy(source.titles, from, titles, size, count);
+        System.arraycopy(source.ids, from, ids, size, count);
+        size += count;
+    }
+
+    private void grow(int capacity) {
+        if (capacity <= amountCents.length) {
+            return;
+        }
+        amountCents = Arrays.copyOf(amountCents, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+    }
+
+    // Chunk holding the given row: starts[c] is the first row of chunk c, starts[count] the
+    // row count. hint is tried first, since lookups tend to stay in one chunk
+    static int find(int[] starts, int count, int index, int hint) {
+        if (hint < count && starts[hint] <= index && index < starts[hint + 1]) {
+            return hint;
+        }
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,41 @@
+package application;
+
+import java.time.LocalDate;
+
+// Immutable description of what the transaction table shows; null (or -1 for the band) means "All".
+// The title is search text as understood by TitleSearchIndex.
+public final class LedgerFilter {
+
+    public static final LedgerFilter ALL = new LedgerFilter(null, null, null, null, -1);
+
+    private final String type;
+    private final String category;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final int amountBand;
+    private final String title;
+
+    public LedgerFilter(String type, String category, LocalDate from, LocalDate to, int amountBand) {
+        this(type, category, from, to, amountBand, null);
+    }
+
+    public LedgerFilter(String type, String category, LocalDate from, LocalDate to, int amountBand, String title) {
+        this.type = type;
+        this.category = category;
+        this.from = from;
+        this.to = to;
+        this.amountBand = amountBand;
+        this.title = TitleSearchIndex.isBlank(title) ? null : title;
+    }
+
+    public String getType() { return type; }
+    public String getCategory() { return category; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public int getAmountBand() { return amountBand; }
+    public String getTitle() { return title; }
+
+    public boolean isAll() {
+        return type == null && category == null && from == null && to == null && amountBand < 0 && title == null;
+    }
+}
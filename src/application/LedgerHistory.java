@@ -0,0 +1,127 @@
+package application;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Multi-level undo and redo for the ledger. Every change is recorded as the ledger snapshots
+// before and after it plus the row ranges it touched; snapshots share all untouched chunks,
+// so a step costs the chunks the change copied, not a copy of the ledger. Undo writes the
+// old rows back through the ledger, so the journal, totals and indexes follow as usual.
+public class LedgerHistory implements ListChangeListener<TransactionEntry> {
+
+    static final int DEFAULT_LIMIT = 100;
+
+    // One sub-change: at ledger index from, removed rows were replaced by added ones
+    private record Range(int from, int removed, int added) {}
+
+    private record Step(LedgerSnapshot before, LedgerSnapshot after, List<Range> ranges) {}
+
+    private final ColumnarTransactionList ledger;
+    private final int limit;
+    private final Deque<Step> undoSteps = new ArrayDeque<>();
+    private final Deque<Step> redoSteps = new ArrayDeque<>();
+    private final ReadOnlyBooleanWrapper canUndo = new ReadOnlyBooleanWrapper(this, "canUndo");
+    private final ReadOnlyBooleanWrapper canRedo = new ReadOnlyBooleanWrapper(this, "canRedo");
+    private LedgerSnapshot current;
+    private boolean restoring;
+
+    // Registers itself on the ledger; changes made before this are not undoable
+    public LedgerHistory(ColumnarTransactionList ledger) {
+        this(ledger, DEFAULT_LIMIT);
+    }
+
+    public LedgerHistory(ColumnarTransactionList ledger, int limit) {
+        this.ledger = ledger;
+        this.limit = limit;
+        current = ledger.snapshot();
+        ledger.addListener(this);
+    }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        if (restoring) {
+            return;
+        }
+        List<Range> ranges = new ArrayList<>();
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                ranges.add(new Range(c.getFrom(), c.getTo() - c.getFrom(), c.getTo() - c.getFrom()));
+            } else {
+                ranges.add(new Range(c.getFrom(), c.wasRemoved() ? c.getRemovedSize() : 0, c.wasAdded() ? c.getAddedSize() : 0));
+            }
+        }
+        LedgerSnapshot after = ledger.snapshot();
+        undoSteps.push(new Step(current, after, ranges));
+        if (undoSteps.size() > limit) {
+            undoSteps.removeLast();
+        }
+        redoSteps.clear();
+        current = after;
+        update();
+    }
+
+    // Puts back the rows the last change replaced; false if there is nothing to undo
+    public boolean undo() {
+        Step step = undoSteps.poll();
+        if (step == null) {
+            return false;
+        }
+        restoring = true;
+        try {
+            // Last sub-change first, each one's rows taken from the ledger as it was before.
+            // Sub-changes are in index order, so earlier ones shift where later ones started
+            int shift = 0;
+            for (Range range : step.ranges()) {
+                shift += range.added() - range.removed();
+            }
+            for (int r = step.ranges().size() - 1; r >= 0; r--) {
+                Range range = step.ranges().get(r);
+                shift -= range.added() - range.removed();
+                int from = range.from() - shift;
+                ledger.replaceRange(range.from(), range.from() + range.added(),
+                    step.before().subList(from, from + range.removed()));
+            }
+        } finally {
+            restoring = false;
+        }
+        redoSteps.push(step);
+        current = step.before();
+        update();
+        return true;
+    }
+
+    // Applies the last undone change again; false if there is nothing to redo
+    public boolean redo() {
+        Step step = redoSteps.poll();
+        if (step == null) {
+            return false;
+        }
+        restoring = true;
+        try {
+            for (Range range : step.ranges()) {
+                ledger.replaceRange(range.from(), range.from() + range.removed(),
+                    step.after().subList(range.from(), range.from() + range.added()));
+            }
+        } finally {
+            restoring = false;
+        }
+        undoSteps.push(step);
+        current = step.after();
+        update();
+        return true;
+    }
+
+    public ReadOnlyBooleanProperty canUndoProperty() { return canUndo.getReadOnlyProperty(); }
+    public ReadOnlyBooleanProperty canRedoProperty() { return canRedo.getReadOnlyProperty(); }
+
+    private void update() {
+        canUndo.set(!undoSteps.isEmpty());
+        canRedo.set(!redoSteps.isEmpty());
+    }
+}
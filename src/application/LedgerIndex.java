@@ -0,0 +1,234 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+// Secondary bitmap indexes over the ledger: one RowBitmap per type code, category code,
+// calendar month and amount band, plus the title search index and the date and amount
+// sort indexes. The bitmaps hold stable row
+// IDs rather than positions, so inserting or deleting a row touches only that row's bits
+// instead of shifting every later one. Kept in step with the list through change events,
+// so resolving a filter is a handful of bitmap intersections instead of a scan.
+public class LedgerIndex implements ListChangeListener<TransactionEntry> {
+
+    // Upper bounds (exclusive, in cents) of the amount bands; the last band is open-ended
+    static final long[] BAND_LIMITS = {1_000, 5_000, 10_000, 50_000, 100_000};
+    public static final String[] BAND_LABELS = {"Under $10", "$10 - $50", "$50 - $100", "$100 - $500", "$500 - $1,000", "$1,000+"};
+
+    private final ColumnarTransactionList ledger;
+    private final List<RowBitmap> byType = new ArrayList<>();
+    private final List<RowBitmap> byCategory = new ArrayList<>();
+    private final TreeMap<Integer, RowBitmap> byMonth = new TreeMap<>();
+    private final RowBitmap[] byBand = new RowBitmap[BAND_LIMITS.length + 1];
+    private final TitleSearchIndex titles;
+    private final LedgerSortIndex byDate;
+    private final LedgerSortIndex byAmount;
+
+    // Registers itself on the ledger
+    public LedgerIndex(ColumnarTransactionList ledger) {
+        this.ledger = ledger;
+        for (int b = 0; b < byBand.length; b++) {
+            byBand[b] = new RowBitmap();
+        }
+        for (int row = 0; row < ledger.size(); row++) {
+            indexRow(row);
+        }
+        ledger.addListener(this);
+        titles = new TitleSearchIndex(ledger);
+        byDate = new LedgerSortIndex(ledger, LedgerSortIndex.Key.DATE);
+        byAmount = new LedgerSortIndex(ledger, LedgerSortIndex.Key.AMOUNT);
+    }
+
+    public ColumnarTransactionList getLedger() { return ledger; }
+    public TitleSearchIndex getTitles() { return titles; }
+
+    public LedgerSortIndex getSortIndex(LedgerSortIndex.Key key) {
+        return key == LedgerSortIndex.Key.DATE ? byDate : byAmount;
+    }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue; // IDs do not move
+            }
+            if (c.wasRemoved()) {
+                for (TransactionEntry old : c.getRemoved()) {
+                    unindex(old);
+                }
+            }
+            for (int row = c.getFrom(); c.wasAdded() && row < c.getTo(); row++) {
+                indexRow(row);
+            }
+        }
+    }
+
+    // Captures everything resolving the filter needs from the live indexes. This part runs
+    // on the FX thread and is cheap (bitmap snapshots, the two boundary months and the
+    // title search's gram bitmaps); the returned query can then be resolved on any thread
+    // while the ledger keeps changing.
+    public Query prepare(LedgerFilter filter) {
+        List<List<RowBitmap>> parts = new ArrayList<>();
+        TitleSearchIndex.Search title = null;
+        if (!filter.isAll()) {
+            if (filter.getType() != null) {
+                parts.add(matching(byType, ledger.getTypes(), filter.getType()));
+            }
+            if (filter.getCategory() != null) {
+                parts.add(matching(byCategory, ledger.getCategories(), filter.getCategory()));
+            }
+            if (filter.getAmountBand() >= 0) {
+                parts.add(List.of(byBand[filter.getAmountBand()].snapshot()));
+            }
+            if (filter.getFrom() != null || filter.getTo() != null) {
+                parts.add(monthsBetween(filter.getFrom(), filter.getTo()));
+            }
+            if (filter.getTitle() != null) {
+                title = titles.prepare(filter.getTitle());
+            }
+        }
+        return new Query(filter, ledger.getVersion(), parts, title);
+    }
+
+    // A filter bound to one version of the ledger
+    public static final class Query {
+        private final LedgerFilter filter;
+        private final long version;
+        // Bitmaps within a part are OR'd, the parts are AND'd
+        private final List<List<RowBitmap>> parts;
+        // Applied last, so it only confirms the rows the other parts let through
+        private final TitleSearchIndex.Search title;
+
+        private Query(LedgerFilter filter, long version, List<List<RowBitmap>> parts, TitleSearchIndex.Search title) {
+            this.filter = filter;
+            this.version = version;
+            this.parts = parts;
+            this.title = title;
+        }
+
+        public LedgerFilter getFilter() { return filter; }
+        public long getVersion() { return version; }
+
+        // IDs of the matching rows in ascending order, or null when the filter matches every row
+        public int[] resolve() {
+            if (filter.isAll()) {
+                return null;
+            }
+            LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.FILTER_RESOLVE);
+            List<RowBitmap> resolved = new ArrayList<>(parts.size());
+            for (List<RowBitmap> part : parts) {
+                resolved.add(RowBitmap.union(part));
+            }
+            // Intersect smallest first so intermediate results stay small
+            resolved.sort((x, y) -> Integer.compare(x.cardinality(), y.cardinality()));
+            RowBitmap result = resolved.isEmpty() ? null : resolved.get(0);
+            for (int p = 1; p < resolved.size() && !result.isEmpty(); p++) {
+                result = result.and(resolved.get(p));
+            }
+            if (title != null && (result == null || !result.isEmpty())) {
+                result = title.resolve(result);
+            }
+            int[] ids = result.toArray();
+            timing.finish(ids.length);
+            return ids;
+        }
+    }
+
+    public static int bandOf(long cents) {
+        long magnitude = Math.abs(cents);
+        for (int b = 0; b < BAND_LIMITS.length; b++) {
+            if (magnitude < BAND_LIMITS[b]) {
+                return b;
+            }
+        }
+        return BAND_LIMITS.length;
+    }
+
+    static int monthKey(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    // ---- Maintenance ----
+
+    private void indexRow(int row) {
+        int id = (int) ledger.idAt(row);
+        bitmap(byType, ledger.typeCodeAt(row)).add(id);
+        bitmap(byCategory, ledger.categoryCodeAt(row)).add(id);
+        byMonth.computeIfAbsent(monthKey(LocalDate.ofEpochDay(ledger.epochDayAt(row))), k -> new RowBitmap()).add(id);
+        byBand[bandOf(ledger.amountCentsAt(row))].add(id);
+    }
+
+    private void unindex(TransactionEntry old) {
+        int id = (int) old.getId();
+        int type = ledger.getTypes().lookup(old.getType());
+        int category = ledger.getCategories().lookup(old.getCategory());
+        if (type >= 0) {
+            bitmap(byType, type).remove(id);
+        }
+        if (category >= 0) {
+            bitmap(byCategory, category).remove(id);
+        }
+        RowBitmap month = byMonth.get(monthKey(old.getDate()));
+        if (month != null) {
+            month.remove(id);
+        }
+        byBand[bandOf(ColumnarTransactionList.toCents(old.getAmount()))].remove(id);
+    }
+
+    private static RowBitmap bitmap(List<RowBitmap> bitmaps, int code) {
+        while (bitmaps.size() <= code) {
+            bitmaps.add(new RowBitmap());
+        }
+        return bitmaps.get(code);
+    }
+
+    // Snapshots of every code's bitmap whose value equals the given one, ignoring case
+    // like the original filter did
+    private static List<RowBitmap> matching(List<RowBitmap> bitmaps, StringDictionary dictionary, String value) {
+        List<RowBitmap> matched = new ArrayList<>();
+        for (int code = 0; code < dictionary.size() && code < bitmaps.size(); code++) {
+            String candidate = dictionary.decode(code);
+            if (candidate != null && candidate.equalsIgnoreCase(value)) {
+                matched.add(bitmaps.get(code).snapshot());
+            }
+        }
+        return matched;
+    }
+
+    // Month bitmaps covering [from, to], either bound may be null. Boundary months are
+    // checked day by day against the date column, so they come back as new bitmaps
+    private List<RowBitmap> monthsBetween(LocalDate from, LocalDate to) {
+        List<RowBitmap> months = new ArrayList<>();
+        if (byMonth.isEmpty()) {
+            return months;
+        }
+        int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+        int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+        int fromMonth = from == null ? byMonth.firstKey() : monthKey(from);
+        int toMonth = to == null ? byMonth.lastKey() : monthKey(to);
+        if (fromMonth > toMonth) {
+            return months;
+        }
+        for (var entry : byMonth.subMap(fromMonth, true, toMonth, true).entrySet()) {
+            RowBitmap month = entry.getValue();
+            boolean partial = entry.getKey() == fromMonth && from != null || entry.getKey() == toMonth && to != null;
+            if (partial) {
+                RowBitmap within = new RowBitmap();
+                month.forEach(id -> {
+                    int day = ledger.epochDayAt(ledger.indexOfId(id));
+                    if (day >= fromDay && day <= toDay) {
+                        within.add(id);
+                    }
+                });
+                months.add(within);
+            } else {
+                months.add(month.snapshot());
+            }
+        }
+        return months;
+    }
+}
@@ -0,0 +1,473 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Append-only journal of every add/edit/delete made to the transaction list.
+// Each change is stored as a fixed-size binary record so the whole file can be
+// memory-mapped and replayed in one pass on startup.
+public class LedgerJournal implements ListChangeListener<TransactionEntry>, Closeable {
+
+    static final int MAGIC = 0x42544A31; // "BTJ1"
+    static final int VERSION = 2;
+    static final int LEGACY_VERSION = 1; // no row IDs; rewritten as the current version on load
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 128;
+
+    static final byte OP_ADD = 1;
+    static final byte OP_SET = 2;
+    static final byte OP_REMOVE = 3;
+
+    // Record layout (little endian); version 1 had a 16-byte type and no ID
+    private static final int OFF_OP = 0;
+    private static final int OFF_INDEX = 4;
+    private static final int OFF_AMOUNT = 8;
+    private static final int OFF_DATE = 16;
+    private static final int OFF_TYPE = 20;
+    private static final int OFF_ID = 28;
+    private static final int OFF_CATEGORY = 36;
+    private static final int OFF_TITLE = 68;
+    private static final int TYPE_BYTES = 8;
+    private static final int CATEGORY_BYTES = 32;
+    private static final int TITLE_BYTES = 60;
+
+    // Mapping window used while replaying; keeps each mapping well under 2 GB
+    static final long MAP_WINDOW = (1L << 30) / RECORD_SIZE * RECORD_SIZE;
+
+    private final Path path;
+    private FileChannel channel;
+    private ByteBuffer writeBuffer = newBuffer(64);
+    private long recordCount;
+    private int version;
+    // Set when a change could not be written; the file no longer follows the ledger, so
+    // nothing more is appended until recover() writes it out again
+    private IOException failure;
+    private Consumer<IOException> onFailure = ex -> { };
+
+    private LedgerJournal(Path path, FileChannel channel, long recordCount, int version) {
+        this.path = path;
+        this.channel = channel;
+        this.recordCount = recordCount;
+        this.version = version;
+    }
+
+    // Location of the journal, overridable with -Dbudgettracker.journal=<file>
+    public static Path defaultPath() {
+        String override = System.getProperty("budgettracker.journal");
+        if (override != null) {
+            return Paths.get(override);
+        }
+        return Paths.get(System.getProperty("user.home"), ".budgettracker", "ledger.journal");
+    }
+
+    public static LedgerJournal open(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            int version = VERSION;
+            if (size == 0) {
+                writeHeader(channel);
+                size = HEADER_SIZE;
+            } else {
+                version = checkHeader(channel, path);
+            }
+            // A torn record at the end (crash mid-write) is dropped
+            long records = (size - HEADER_SIZE) / RECORD_SIZE;
+            channel.truncate(HEADER_SIZE + records * RECORD_SIZE);
+            channel.position(HEADER_SIZE + records * RECORD_SIZE);
+            return new LedgerJournal(path, channel, records, version);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public Path getPath() { return path; }
+    public long getRecordCount() { return recordCount; }
+    public boolean isFailed() { return failure != null; }
+    public IOException getFailure() { return failure; }
+
+    // Called on the thread that changed the list, once per failure
+    public void setOnFailure(Consumer<IOException> handler) {
+        onFailure = handler;
+    }
+
+    // Replaces the file with the given ledger and resumes journaling; stays failed if that
+    // fails too
+    public void recover(List<? extends TransactionEntry> entries) throws IOException {
+        rewrite(entries);
+        failure = null;
+    }
+
+    // Receives the records of a journal in file order; entry is null for a REMOVE, and id
+    // is 0 for legacy records, which carry none
+    public interface RecordVisitor {
+        void record(byte op, int index, long id, TransactionEntry entry) throws IOException;
+    }
+
+    // Rebuilds the ledger by replaying every record in the journal
+    public List<TransactionEntry> replay() throws IOException {
+        List<TransactionEntry> entries = new ArrayList<>((int) Math.min(recordCount, Integer.MAX_VALUE - 8));
+        scan(path, channel, version, recordCount, replayInto(entries));
+        return entries;
+    }
+
+    // Applies records to a list the way the ledger applied them when they were written
+    static RecordVisitor replayInto(List<TransactionEntry> entries) {
+        return (op, index, id, entry) -> {
+            switch (op) {
+                case OP_ADD -> entries.add(index, entry);
+                case OP_SET -> entries.set(index, entry);
+                default -> entries.remove(index);
+            }
+        };
+    }
+
+    // Streams the records of a journal without opening it for writing, so a running app can
+    // keep appending to it; a torn record at the end is ignored rather than truncated
+    public static void scan(Path path, RecordVisitor visitor) throws IOException {
+        try (Snapshot snapshot = snapshot(path)) {
+            snapshot.scan(visitor);
+        }
+    }
+
+    // Opens the journal read-only with its record count fixed at this moment
+    public static Snapshot snapshot(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            int version = checkHeader(channel, path);
+            return new Snapshot(path, channel, version, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    // A journal as it was when opened: records appended later, e.g. by the running app, are
+    // never visited, so several passes over it all see the same records
+    public static final class Snapshot implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final int version;
+        private final long recordCount;
+
+        private Snapshot(Path path, FileChannel channel, int version, long recordCount) {
+            this.path = path;
+            this.channel = channel;
+            this.version = version;
+            this.recordCount = recordCount;
+        }
+
+        public long getRecordCount() { return recordCount; }
+
+        public void scan(RecordVisitor visitor) throws IOException {
+            LedgerJournal.scan(path, channel, version, recordCount, visitor);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    static void scan(Path path, FileChannel channel, int version, long recordCount, RecordVisitor visitor) throws IOException {
+        Decoder decoder = new Decoder(version);
+        long remaining = recordCount;
+        long offset = HEADER_SIZE;
+        while (remaining > 0) {
+            long count = Math.min(remaining, MAP_WINDOW / RECORD_SIZE);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset, count * RECORD_SIZE);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            for (int r = 0; r < count; r++) {
+                int base = r * RECORD_SIZE;
+                byte op = map.get(base + OFF_OP);
+                int index = map.getInt(base + OFF_INDEX);
+                long id = version >= 2 ? map.getLong(base + OFF_ID) : 0;
+                switch (op) {
+                    case OP_ADD, OP_SET -> visitor.record(op, index, id, decoder.decode(map, base));
+                    case OP_REMOVE -> visitor.record(op, index, id, null);
+                    default -> throw new IOException("Corrupt journal record " + ((offset - HEADER_SIZE) / RECORD_SIZE + r) + " in " + path);
+                }
+            }
+            offset += count * RECORD_SIZE;
+            remaining -= count;
+        }
+    }
+
+    // Rewrites the journal as one ADD record per entry when it holds many superseded records
+    // or still uses the legacy layout
+    public boolean compactIfNeeded(List<? extends TransactionEntry> entries) throws IOException {
+        long superseded = recordCount - entries.size();
+        if (version == VERSION && superseded < Math.max(1024, entries.size() / 4)) {
+            return false;
+        }
+        rewrite(entries);
+        return true;
+    }
+
+    public void rewrite(List<? extends TransactionEntry> entries) throws IOException {
+        writeBuffer.clear();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            out.position(HEADER_SIZE);
+            ByteBuffer buffer = newBuffer(4096);
+            for (int i = 0; i < entries.size(); i++) {
+                if (!buffer.hasRemaining()) {
+                    drain(out, buffer);
+                }
+                encode(buffer, OP_ADD, i, entries.get(i));
+            }
+            drain(out, buffer);
+            out.force(true);
+        }
+        // Closed before the move, which Windows refuses over an open file. If the move fails the
+        // old journal is reopened where it was, so later appends still work
+        channel.close();
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            try {
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                channel.position(HEADER_SIZE + recordCount * RECORD_SIZE);
+            } catch (IOException reopen) {
+                ex.addSuppressed(reopen);
+            }
+            throw ex;
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recordCount = entries.size();
+        version = VERSION;
+        channel.position(HEADER_SIZE + recordCount * RECORD_SIZE);
+    }
+
+    // Never throws: a write error would otherwise surface in whichever code changed the
+    // list, and the journal would silently fall behind it
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        if (failure != null) {
+            return;
+        }
+        ObservableList<? extends TransactionEntry> list = c.getList();
+        try {
+            if (version != VERSION) {
+                rewrite(new ArrayList<>(list));
+                return;
+            }
+            while (c.next()) {
+                if (c.wasPermutated()) {
+                    // Reordering is rare (only from an explicit sort), so store the new order outright
+                    rewrite(new ArrayList<>(list));
+                    return;
+                }
+                int from = c.getFrom();
+                int removed = c.wasRemoved() ? c.getRemovedSize() : 0;
+                int added = c.wasAdded() ? c.getAddedSize() : 0;
+                int replaced = Math.min(removed, added);
+                for (int i = 0; i < replaced; i++) {
+                    append(OP_SET, from + i, list.get(from + i));
+                }
+                for (int i = replaced; i < removed; i++) {
+                    append(OP_REMOVE, from + replaced, c.getRemoved().get(i));
+                }
+                for (int i = replaced; i < added; i++) {
+                    append(OP_ADD, from + i, list.get(from + i));
+                }
+            }
+            flush();
+        } catch (IOException ex) {
+            writeBuffer.clear();
+            failure = ex;
+            onFailure.accept(ex);
+        }
+    }
+
+    private void append(byte op, int index, TransactionEntry entry) throws IOException {
+        if (writeBuffer.remaining() < RECORD_SIZE) {
+            if (writeBuffer.position() > 0 && writeBuffer.capacity() >= 4096 * RECORD_SIZE) {
+                drain(channel, writeBuffer);
+            } else {
+                ByteBuffer bigger = newBuffer(writeBuffer.capacity() / RECORD_SIZE * 2);
+                writeBuffer.flip();
+                bigger.put(writeBuffer);
+                writeBuffer = bigger;
+            }
+        }
+        encode(writeBuffer, op, index, entry);
+        recordCount++;
+    }
+
+    private void flush() throws IOException {
+        drain(channel, writeBuffer);
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            if (failure == null) {
+                flush();
+            }
+            channel.close();
+        }
+    }
+
+    private static void encode(ByteBuffer buffer, byte op, int index, TransactionEntry entry) {
+        int base = buffer.position();
+        for (int i = 0; i < RECORD_SIZE; i += 8) {
+            buffer.putLong(base + i, 0L);
+        }
+        buffer.put(base + OFF_OP, op);
+        buffer.putInt(base + OFF_INDEX, index);
+        buffer.putLong(base + OFF_ID, entry.getId());
+        if (op != OP_REMOVE) {
+            buffer.putDouble(base + OFF_AMOUNT, entry.getAmount());
+            buffer.putInt(base + OFF_DATE, (int) entry.getDate().toEpochDay());
+            putString(buffer, base + OFF_TYPE, TYPE_BYTES, entry.getType());
+            putString(buffer, base + OFF_CATEGORY, CATEGORY_BYTES, entry.getCategory());
+            putString(buffer, base + OFF_TITLE, TITLE_BYTES, entry.getTitle());
+        }
+        buffer.position(base + RECORD_SIZE);
+    }
+
+    // Strings are stored as a length byte followed by UTF-8, cut at a character boundary if too long
+    private static void putString(ByteBuffer buffer, int offset, int width, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, width - 1);
+        while (length < bytes.length && length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        buffer.put(offset, (byte) length);
+        buffer.put(offset + 1, bytes, 0, length);
+    }
+
+    private static void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).putInt(0).flip();
+        channel.write(header, 0);
+    }
+
+    static int checkHeader(FileChannel channel, Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException(path + " is not a ledger journal");
+        }
+        int version = header.getInt();
+        int recordSize = header.getInt();
+        if ((version != VERSION && version != LEGACY_VERSION) || recordSize != RECORD_SIZE) {
+            throw new IOException("Unsupported ledger journal version " + version + " in " + path);
+        }
+        return version;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static ByteBuffer newBuffer(int records) {
+        return ByteBuffer.allocate(records * RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Sort keys straight from a record, for code that orders records without decoding them
+    static int epochDayOf(ByteBuffer map, int base) {
+        return map.getInt(base + OFF_DATE);
+    }
+
+    static long amountCentsOf(ByteBuffer map, int base) {
+        return ColumnarTransactionList.toCents(map.getDouble(base + OFF_AMOUNT));
+    }
+
+    // Turns records back into entries, sharing the Strings and dates that repeat from row to row
+    static final class Decoder {
+        private static final int SLOTS = 256;
+        private static final int DATE_SLOTS = 4096;
+
+        private final boolean hasIds;
+        private final byte[] scratch = new byte[TITLE_BYTES];
+        private final byte[][] internKeys = new byte[SLOTS][];
+        private final String[] internValues = new String[SLOTS];
+        private final int[] dateKeys = new int[DATE_SLOTS];
+        private final LocalDate[] dateValues = new LocalDate[DATE_SLOTS];
+
+        Decoder(int version) {
+            hasIds = version >= 2;
+        }
+
+        TransactionEntry decode(ByteBuffer map, int base) {
+            long id = hasIds ? map.getLong(base + OFF_ID) : 0;
+            double amount = map.getDouble(base + OFF_AMOUNT);
+            LocalDate date = date(map.getInt(base + OFF_DATE));
+            String type = intern(map, base + OFF_TYPE);
+            String category = intern(map, base + OFF_CATEGORY);
+            String title = string(map, base + OFF_TITLE);
+            return new TransactionEntry(id, title, amount, category, type, date);
+        }
+
+        private LocalDate date(int epochDay) {
+            int slot = epochDay & (DATE_SLOTS - 1);
+            LocalDate cached = dateValues[slot];
+            if (cached == null || dateKeys[slot] != epochDay) {
+                cached = LocalDate.ofEpochDay(epochDay);
+                dateKeys[slot] = epochDay;
+                dateValues[slot] = cached;
+            }
+            return cached;
+        }
+
+        private String string(ByteBuffer buffer, int offset) {
+            int length = buffer.get(offset) & 0xFF;
+            buffer.get(offset + 1, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // Open-addressed table keyed by the raw bytes, for low-cardinality fields like type and category
+        private String intern(ByteBuffer buffer, int offset) {
+            int length = buffer.get(offset) & 0xFF;
+            buffer.get(offset + 1, scratch, 0, length);
+            int hash = length;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + scratch[i];
+            }
+            for (int probe = 0; probe < SLOTS; probe++) {
+                int slot = (hash + probe) & (SLOTS - 1);
+                byte[] key = internKeys[slot];
+                if (key == null) {
+                    internKeys[slot] = Arrays.copyOf(scratch, length);
+                    internValues[slot] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                    return internValues[slot];
+                }
+                if (Arrays.equals(key, 0, key.length, scratch, 0, length)) {
+                    return internValues[slot];
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package application;
+
+import jdk.jfr.FlightRecorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.IntSupplier;
+
+// Where the time goes: a counter and latency histogram per operation, always on, plus
+// Flight Recorder events. Coarse operations are timed with begin(...).finish(rows) and
+// become one LedgerOperationEvent each in a recording; hot paths such as table cells use
+// record(), which only touches the histogram and shows up in the periodic
+// LedgerStatisticsEvent. Recording a sample costs a clock read and a few atomic adds.
+public final class LedgerMetrics {
+
+    public enum Operation {
+        FILTER_RESOLVE("Filter resolve"),
+        FILTER_APPLY("Filter apply"),
+        SORT_APPLY("Sort apply"),
+        SUMMARY("Summary refresh"),
+        PIE_CHART("Pie chart update"),
+        CELL_UPDATE("Table cell update"),
+        LEDGER_CHANGE("Ledger change"),
+        FORECAST("Forecast projection"),
+        FIRST_FRAME("Launch to first frame");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private static final LatencyHistogram[] HISTOGRAMS = new LatencyHistogram[Operation.values().length];
+    private static volatile IntSupplier ledgerRows = () -> 0;
+    private static boolean periodicRegistered;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new LatencyHistogram();
+        }
+    }
+
+    private LedgerMetrics() {
+    }
+
+    // Starts timing an operation; call finish on the result when it is done
+    public static LedgerOperationEvent begin(Operation operation) {
+        return new LedgerOperationEvent(operation);
+    }
+
+    // Adds one sample that started at the given System.nanoTime()
+    public static void record(Operation operation, long startNanos) {
+        HISTOGRAMS[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public static LatencyHistogram histogram(Operation operation) {
+        return HISTOGRAMS[operation.ordinal()];
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    // Ledger size reported with the periodic statistics; registers them with Flight Recorder
+    // on first use, so code that never calls this does not pay for JFR setup
+    public static synchronized void watchLedger(IntSupplier rows) {
+        ledgerRows = rows;
+        if (!periodicRegistered) {
+            periodicRegistered = true;
+            FlightRecorder.addPeriodicEvent(LedgerStatisticsEvent.class, LedgerMetrics::emitStatistics);
+        }
+    }
+
+    public static int ledgerRows() {
+        return ledgerRows.getAsInt();
+    }
+
+    // Bytes allocated by all platform threads so far, or -1 if the JVM does not track it
+    public static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean counting && counting.isThreadAllocatedMemoryEnabled()) {
+            return counting.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    private static void emitStatistics() {
+        long rows = ledgerRows();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = histogram(operation);
+            if (histogram.count() == 0) {
+                continue;
+            }
+            LedgerStatisticsEvent event = new LedgerStatisticsEvent();
+            event.operation = operation.getLabel();
+            event.ledgerRows = rows;
+            event.count = histogram.count();
+            event.p50 = histogram.percentile(0.5);
+            event.p99 = histogram.percentile(0.99);
+            event.max = histogram.max();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Flight Recorder event for one timed ledger operation, from LedgerMetrics.begin. It also
+// feeds the in-process histograms, so finish() is called whether or not a recording runs.
+@Name("application.LedgerOperation")
+@Label("Ledger Operation")
+@Category("Budget Tracker")
+@Description("A filter, summary refresh, chart update or ledger change, with the rows it covered")
+@StackTrace(false)
+public final class LedgerOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Rows")
+    long rows;
+
+    // Not part of the recorded event
+    private final transient LedgerMetrics.Operation kind;
+    private final transient long startNanos;
+
+    LedgerOperationEvent(LedgerMetrics.Operation kind) {
+        this.kind = kind;
+        startNanos = System.nanoTime();
+        begin();
+    }
+
+    // Ends the operation; rows is how many rows it produced or touched
+    public void finish(long rows) {
+        end();
+        LedgerMetrics.record(kind, startNanos);
+        if (shouldCommit()) {
+            operation = kind.getLabel();
+            this.rows = rows;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Read-only, random access to the rows of a journal without loading them: the journal's
+// fixed-size records are read on demand, and everything else lives in index files in a
+// directory next to it, built by one sequential scan and reused while the journal is
+// unchanged. Which record holds each row is a piece table, a list of runs of consecutive
+// records, so a compacted journal is one piece and each later edit adds a few. Sort
+// orders are built on first use by an external merge sort, and filters stream a sort
+// order against per-record type and category codes, so the heap use is fixed by the
+// sort run size rather than by the ledger. Rows are limited to what an int can number.
+public final class LedgerPageStore implements Closeable {
+
+    public enum SortKey {
+        DATE("by-date.bin"),
+        AMOUNT("by-amount.bin");
+
+        private final String fileName;
+
+        SortKey(String fileName) {
+            this.fileName = fileName;
+        }
+    }
+
+    static final int INDEX_MAGIC = 0x42544958; // "BTIX"
+    static final int INDEX_VERSION = 1;
+    public static final int DEFAULT_RUN_ROWS = 1 << 20;
+    private static final int CODE_BYTES = 4; // type and category code per record, as shorts
+    private static final int READ_RECORDS = 256;
+
+    private final Path journalPath;
+    private final Path indexDir;
+    private final FileChannel journal;
+    private final long recordCount;
+    private final int runRows;
+
+    // Piece p holds rows pieceStarts[p] .. pieceStarts[p + 1] - 1, stored in consecutive
+    // records from pieceRecords[p]; pieceStarts[pieceCount] is the row count
+    private final long[] pieceRecords;
+    private final int[] pieceStarts;
+    private final int pieceCount;
+
+    private final String[] types;
+    private final String[] categories;
+    private final MappedByteBuffer codes;
+    private final IntBuffer[] orders = new IntBuffer[SortKey.values().length];
+
+    private final ThreadLocal<LedgerJournal.Decoder> decoders;
+    private final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(
+        () -> ByteBuffer.allocateDirect(READ_RECORDS * LedgerJournal.RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+
+    private LedgerPageStore(Path journalPath, Path indexDir, FileChannel journal, int version, long recordCount, int runRows,
+                            Pieces pieces, String[] types, String[] categories, MappedByteBuffer codes) {
+        this.journalPath = journalPath;
+        this.indexDir = indexDir;
+        this.journal = journal;
+        this.recordCount = recordCount;
+        this.runRows = runRows;
+        this.pieceRecords = pieces.records;
+        this.pieceStarts = pieces.starts;
+        this.pieceCount = pieces.count;
+        this.types = types;
+        this.categories = categories;
+        this.codes = codes;
+        decoders = ThreadLocal.withInitial(() -> new LedgerJournal.Decoder(version));
+    }
+
+    // Index files go to <journal>.index next to the journal
+    public static LedgerPageStore open(Path journalPath) throws IOException {
+        return open(journalPath, journalPath.resolveSibling(journalPath.getFileName() + ".index"), DEFAULT_RUN_ROWS);
+    }
+
+    // runRows is how many rows a sort holds in memory at once (16 bytes each, twice)
+    public static LedgerPageStore open(Path journalPath, Path indexDir, int runRows) throws IOException {
+        FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.READ);
+        try {
+            int version = LedgerJournal.checkHeader(journal, journalPath);
+            // Rows appended after this point (e.g. by a running app) are not seen
+            long size = journal.size();
+            long recordCount = (size - LedgerJournal.HEADER_SIZE) / LedgerJournal.RECORD_SIZE;
+            long stamp = Files.getLastModifiedTime(journalPath).toMillis();
+            Files.createDirectories(indexDir);
+
+            Path meta = indexDir.resolve("meta.bin");
+            Pieces pieces = null;
+            String[][] dictionaries = new String[2][];
+            if (Files.exists(meta)) {
+                pieces = readMeta(meta, size, stamp, dictionaries);
+            }
+            if (pieces == null) {
+                pieces = build(journalPath, journal, version, recordCount, indexDir, size, stamp, dictionaries);
+            }
+            MappedByteBuffer codes;
+            try (FileChannel codeFile = FileChannel.open(indexDir.resolve("codes.bin"), StandardOpenOption.READ)) {
+                codes = codeFile.map(FileChannel.MapMode.READ_ONLY, 0, recordCount * CODE_BYTES);
+            }
+            return new LedgerPageStore(journalPath, indexDir, journal, version, recordCount, runRows,
+                pieces, dictionaries[0], dictionaries[1], codes);
+        } catch (IOException | RuntimeException ex) {
+            journal.close();
+            throw ex;
+        }
+    }
+
+    public Path getJournalPath() { return journalPath; }
+    public int size() { return pieceStarts[pieceCount]; }
+    public List<String> getTypes() { return List.of(types); }
+    public List<String> getCategories() { return List.of(categories); }
+
+    // Reads the given rows, fetching runs of consecutive records with one read each
+    public TransactionEntry[] read(int[] rows) throws IOException {
+        TransactionEntry[] entries = new TransactionEntry[rows.length];
+        LedgerJournal.Decoder decoder = decoders.get();
+        ByteBuffer buffer = readBuffers.get();
+        int hint = 0;
+        int i = 0;
+        while (i < rows.length) {
+            hint = pieceOf(rows[i], hint);
+            long first = recordOf(rows[i], hint);
+            int run = 1;
+            while (i + run < rows.length && run < READ_RECORDS && rows[i + run] == rows[i] + run
+                    && rows[i + run] < pieceStarts[hint + 1]) {
+                run++;
+            }
+            buffer.clear().limit(run * LedgerJournal.RECORD_SIZE);
+            long position = LedgerJournal.HEADER_SIZE + first * LedgerJournal.RECORD_SIZE;
+            while (buffer.hasRemaining()) {
+                if (journal.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Journal " + journalPath + " is shorter than its index");
+                }
+            }
+            for (int r = 0; r < run; r++) {
+                entries[i + r] = decoder.decode(buffer, r * LedgerJournal.RECORD_SIZE);
+            }
+            i += run;
+        }
+        return entries;
+    }
+
+    // Rows in the order of the given key (ties in row order), or null for row order; built
+    // and saved on first use
+    public synchronized IntBuffer order(SortKey key) throws IOException {
+        if (key == null) {
+            return null;
+        }
+        IntBuffer order = orders[key.ordinal()];
+        if (order == null) {
+            Path file = indexDir.resolve(key.fileName);
+            if (!Files.exists(file) || Files.size(file) != (long) size() * Integer.BYTES) {
+                sortRows(key, file);
+            }
+            order = mapInts(file);
+            orders[key.ordinal()] = order;
+        }
+        return order;
+    }
+
+    // Rows of the given order (null for row order) whose type and category match; null
+    // arguments match anything. Returns null when nothing is filtered out
+    public IntBuffer select(SortKey key, String type, String category) throws IOException {
+        IntBuffer order = order(key);
+        if (type == null && category == null) {
+            return order;
+        }
+        int typeCode = type == null ? -1 : Arrays.asList(types).indexOf(type);
+        int categoryCode = category == null ? -1 : Arrays.asList(categories).indexOf(category);
+        if ((type != null && typeCode < 0) || (category != null && categoryCode < 0)) {
+            return IntBuffer.allocate(0);
+        }
+        Path file = Files.createTempFile(indexDir, "view-", ".bin");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+                int hint = 0;
+                for (int i = 0, n = size(); i < n; i++) {
+                    int row = order == null ? i : order.get(i);
+                    hint = pieceOf(row, hint);
+                    int at = (int) (recordOf(row, hint) * CODE_BYTES);
+                    if ((typeCode < 0 || codes.getShort(at) == typeCode)
+                            && (categoryCode < 0 || codes.getShort(at + 2) == categoryCode)) {
+                        out.writeInt(row);
+                    }
+                }
+            }
+            return mapInts(file);
+        } finally {
+            // The mapping stays valid after the file is gone
+            try {
+                Files.delete(file);
+            } catch (IOException ex) {
+                file.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    private int pieceOf(int row, int hint) {
+        if (row < 0 || row >= size()) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size());
+        }
+        return LedgerChunk.find(pieceStarts, pieceCount, row, hint);
+    }
+
+    private long recordOf(int row, int piece) {
+        return pieceRecords[piece] + (row - pieceStarts[piece]);
+    }
+
+    // External merge sort of (key, row) pairs: sorted runs of runRows pairs go to temporary
+    // files, which are then merged into the row order
+    private void sortRows(SortKey key, Path file) throws IOException {
+        long[] keys = new long[Math.min(runRows, Math.max(size(), 1))];
+        int[] rows = new int[keys.length];
+        long[] keyScratch = new long[keys.length];
+        int[] rowScratch = new int[keys.length];
+        List<Path> runs = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        Path tmp = indexDir.resolve(key.fileName + ".tmp");
+        MappedByteBuffer[] windows = new MappedByteBuffer[(int) (recordCount / (LedgerJournal.MAP_WINDOW / LedgerJournal.RECORD_SIZE)) + 1];
+        try {
+            int n = 0;
+            int hint = 0;
+            for (int row = 0; row < size(); row++) {
+                hint = pieceOf(row, hint);
+                keys[n] = keyOf(key, recordOf(row, hint), windows);
+                rows[n] = row;
+                if (++n == keys.length) {
+                    KeyRowSort.mergeSort(keys, rows, keyScratch, rowScratch, n);
+                    runs.add(writeRun(keys, rows, n));
+                    lengths.add(n);
+                    n = 0;
+                }
+            }
+            if (runs.isEmpty()) {
+                KeyRowSort.mergeSort(keys, rows, keyScratch, rowScratch, n);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                    for (int i = 0; i < n; i++) {
+                        out.writeInt(rows[i]);
+                    }
+                }
+            } else {
+                if (n > 0) {
+                    KeyRowSort.mergeSort(keys, rows, keyScratch, rowScratch, n);
+                    runs.add(writeRun(keys, rows, n));
+                    lengths.add(n);
+                }
+                mergeRuns(runs, lengths, tmp);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private long keyOf(SortKey key, long record, MappedByteBuffer[] windows) throws IOException {
+        long perWindow = LedgerJournal.MAP_WINDOW / LedgerJournal.RECORD_SIZE;
+        int w = (int) (record / perWindow);
+        if (windows[w] == null) {
+            long first = w * perWindow;
+            long count = Math.min(perWindow, recordCount - first);
+            windows[w] = journal.map(FileChannel.MapMode.READ_ONLY,
+                LedgerJournal.HEADER_SIZE + first * LedgerJournal.RECORD_SIZE, count * LedgerJournal.RECORD_SIZE);
+            windows[w].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        int base = (int) (record % perWindow) * LedgerJournal.RECORD_SIZE;
+        return key == SortKey.DATE ? LedgerJournal.epochDayOf(windows[w], base) : LedgerJournal.amountCentsOf(windows[w], base);
+    }
+
+    private Path writeRun(long[] keys, int[] rows, int n) throws IOException {
+        Path run = Files.createTempFile(indexDir, "run-", ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 1 << 16))) {
+            for (int i = 0; i < n; i++) {
+                out.writeLong(keys[i]);
+                out.writeInt(rows[i]);
+            }
+        }
+        return run;
+    }
+
+    // Runs cover ascending row ranges, so taking the earlier run on equal keys keeps ties in row order
+    private static void mergeRuns(List<Path> runs, List<Integer> lengths, Path target) throws IOException {
+        record Head(long key, int row, int run) {}
+        List<DataInputStream> inputs = new ArrayList<>();
+        int[] remaining = new int[runs.size()];
+        PriorityQueue<Head> heads = new PriorityQueue<>(
+            Comparator.comparingLong(Head::key).thenComparingInt(Head::run));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16))) {
+            for (int r = 0; r < runs.size(); r++) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(runs.get(r)), 1 << 16));
+                inputs.add(in);
+                remaining[r] = lengths.get(r) - 1;
+                heads.add(new Head(in.readLong(), in.readInt(), r));
+            }
+            while (!heads.isEmpty()) {
+                Head head = heads.poll();
+                out.writeInt(head.row());
+                if (remaining[head.run()]-- > 0) {
+                    DataInputStream in = inputs.get(head.run());
+                    heads.add(new Head(in.readLong(), in.readInt(), head.run()));
+                }
+            }
+        } finally {
+            for (DataInputStream in : inputs) {
+                in.close();
+            }
+        }
+    }
+
+    private static IntBuffer mapInts(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).asIntBuffer();
+        }
+    }
+
+    // One pass over the journal: writes each record's type and category codes and replays
+    // the row operations into the piece table
+    private static Pieces build(Path journalPath, FileChannel journal, int version, long recordCount, Path indexDir,
+                                long size, long stamp, String[][] dictionaries) throws IOException {
+        // Indexes of an older journal state are stale as a whole
+        Files.deleteIfExists(indexDir.resolve("meta.bin"));
+        for (SortKey key : SortKey.values()) {
+            Files.deleteIfExists(indexDir.resolve(key.fileName));
+        }
+        Map<String, Integer> typeCodes = new HashMap<>();
+        Map<String, Integer> categoryCodes = new HashMap<>();
+        Pieces pieces = new Pieces();
+        try (DataOutputStream codes = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(indexDir.resolve("codes.bin")), 1 << 16))) {
+            long[] record = {0};
+            LedgerJournal.scan(journalPath, journal, version, recordCount, (op, index, id, entry) -> {
+                if (entry == null) {
+                    codes.writeInt(0);
+                } else {
+                    codes.writeShort(code(typeCodes, entry.getType()));
+                    codes.writeShort(code(categoryCodes, entry.getCategory()));
+                }
+                switch (op) {
+                    case LedgerJournal.OP_ADD -> pieces.add(index, record[0]);
+                    case LedgerJournal.OP_SET -> pieces.set(index, record[0]);
+                    default -> pieces.remove(index);
+                }
+                record[0]++;
+            });
+        }
+        dictionaries[0] = names(typeCodes);
+        dictionaries[1] = names(categoryCodes);
+        writeMeta(indexDir.resolve("meta.bin"), size, stamp, dictionaries, pieces);
+        return pieces;
+    }
+
+    private static int code(Map<String, Integer> codes, String name) throws IOException {
+        Integer code = codes.get(name);
+        if (code == null) {
+            if (codes.size() > Short.MAX_VALUE) {
+                throw new IOException("Too many distinct types or categories to index");
+            }
+            code = codes.size();
+            codes.put(name, code);
+        }
+        return code;
+    }
+
+    private static String[] names(Map<String, Integer> codes) {
+        String[] names = new String[codes.size()];
+        codes.forEach((name, code) -> names[code] = name);
+        return names;
+    }
+
+    private static void writeMeta(Path meta, long size, long stamp, String[][] dictionaries, Pieces pieces) throws IOException {
+        Path tmp = meta.resolveSibling("meta.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(INDEX_VERSION);
+            out.writeLong(size);
+            out.writeLong(stamp);
+            for (String[] names : dictionaries) {
+                out.writeInt(names.length);
+                for (String name : names) {
+                    out.writeUTF(name);
+                }
+            }
+            out.writeInt(pieces.count);
+            for (int p = 0; p < pieces.count; p++) {
+                out.writeLong(pieces.records[p]);
+                out.writeInt(pieces.starts[p + 1] - pieces.starts[p]);
+            }
+        }
+        Files.move(tmp, meta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // The saved piece table, or null if the index was built for another state of the journal
+    private static Pieces readMeta(Path meta, long size, long stamp, String[][] dictionaries) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(meta)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_VERSION || in.readLong() != size || in.readLong() != stamp) {
+                return null;
+            }
+            for (int d = 0; d < dictionaries.length; d++) {
+                dictionaries[d] = new String[in.readInt()];
+                for (int i = 0; i < dictionaries[d].length; i++) {
+                    dictionaries[d][i] = in.readUTF();
+                }
+            }
+            Pieces pieces = new Pieces();
+            int count = in.readInt();
+            for (int p = 0; p < count; p++) {
+                long record = in.readLong();
+                int length = in.readInt();
+                pieces.insert(p, record, length);
+            }
+            return pieces;
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    // Growable piece table used while replaying the journal. Appends in record order extend
+    // the last piece; other operations split pieces, at a cost linear in the piece count
+    private static final class Pieces {
+        long[] records = new long[16];
+        int[] starts = new int[17];
+        int count;
+
+        void add(int index, long record) {
+            int size = starts[count];
+            if (index == size && count > 0 && records[count - 1] + (size - starts[count - 1]) == record) {
+                starts[count]++;
+                return;
+            }
+            insert(split(index), record, 1);
+        }
+
+        void set(int index, long record) {
+            int p = split(index);
+            split(index + 1);
+            records[p] = record;
+        }
+
+        void remove(int index) {
+            int p = split(index);
+            split(index + 1);
+            System.arraycopy(records, p + 1, records, p, count - p - 1);
+            System.arraycopy(starts, p + 1, starts, p, count - p);
+            count--;
+            for (int q = p; q <= count; q++) {
+                starts[q]--;
+            }
+        }
+
+        // Piece starting at index, after cutting the piece that spans it in two
+        private int split(int index) {
+            if (index < 0 || index > starts[count]) {
+                throw new IndexOutOfBoundsException("Journal record refers to row " + index + " of " + starts[count]);
+            }
+            if (index == starts[count]) {
+                return count;
+            }
+            int p = LedgerChunk.find(starts, count, index, count - 1);
+            if (starts[p] == index) {
+                return p;
+            }
+            insert(p + 1, records[p] + (index - starts[p]), 0);
+            starts[p + 1] = index;
+            return p + 1;
+        }
+
+        // Inserts a piece of the given length before piece p
+        void insert(int p, long record, int length) {
+            if (count + 2 > records.length) {
+                records = Arrays.copyOf(records, records.length * 2);
+                starts = Arrays.copyOf(starts, records.length + 1);
+            }
+            System.arraycopy(records, p, records, p + 1, count - p);
+            System.arraycopy(starts, p, starts, p + 1, count - p + 1);
+            records[p] = record;
+            count++;
+            for (int q = p + 1; q <= count; q++) {
+                starts[q] += length;
+            }
+        }
+    }
+}
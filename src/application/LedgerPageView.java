@@ -0,0 +1,117 @@
+package application;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// One ordering of a LedgerPageStore's rows as a list, read in pages of PAGE_ROWS view rows.
+// Pages stay in a small LRU cache, and touching a page queues its neighbours for loading
+// on a background thread, so scrolling mostly finds the next page already there. The heap
+// holds at most CACHE_PAGES pages whatever the size of the ledger.
+public final class LedgerPageView extends AbstractList<TransactionEntry> implements RandomAccess {
+
+    static final int PAGE_ROWS = 256;
+    static final int CACHE_PAGES = 64;
+    static final int PREFETCH_PAGES = 2;
+
+    private static final ExecutorService PREFETCH = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "ledger-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LedgerPageStore store;
+    private final IntBuffer rows;
+    private final boolean descending;
+    private final int size;
+    private final Map<Integer, TransactionEntry[]> pages = new LinkedHashMap<>(CACHE_PAGES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, TransactionEntry[]> eldest) {
+            return size() > CACHE_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+
+    // rows lists the store rows in view order, null for all rows in row order; descending
+    // shows that order back to front
+    public LedgerPageView(LedgerPageStore store, IntBuffer rows, boolean descending) {
+        this.store = store;
+        this.rows = rows;
+        this.descending = descending;
+        this.size = rows == null ? store.size() : rows.limit();
+    }
+
+    @Override
+    public TransactionEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (descending) {
+            index = size - 1 - index;
+        }
+        int page = index / PAGE_ROWS;
+        TransactionEntry[] entries;
+        synchronized (pages) {
+            entries = pages.get(page);
+        }
+        if (entries == null) {
+            entries = load(page);
+        }
+        for (int p = 1; p <= PREFETCH_PAGES; p++) {
+            prefetch(page + p);
+            prefetch(page - p);
+        }
+        return entries[index - page * PAGE_ROWS];
+    }
+
+    @Override
+    public int size() { return size; }
+
+    private TransactionEntry[] load(int page) {
+        int from = page * PAGE_ROWS;
+        int[] pageRows = new int[Math.min(PAGE_ROWS, size - from)];
+        for (int i = 0; i < pageRows.length; i++) {
+            pageRows[i] = rows == null ? from + i : rows.get(from + i);
+        }
+        try {
+            TransactionEntry[] entries = store.read(pageRows);
+            synchronized (pages) {
+                pages.put(page, entries);
+            }
+            return entries;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read " + store.getJournalPath(), ex);
+        }
+    }
+
+    private void prefetch(int page) {
+        if (page < 0 || page * PAGE_ROWS >= size) {
+            return;
+        }
+        synchronized (pages) {
+            // containsKey does not count as a use, so prefetching does not keep pages alive
+            if (pages.containsKey(page) || !loading.add(page)) {
+                return;
+            }
+        }
+        PREFETCH.execute(() -> {
+            try {
+                load(page);
+            } catch (UncheckedIOException ex) {
+                // The page is read again, and the error reported, when it is shown
+            } finally {
+                synchronized (pages) {
+                    loading.remove(page);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,238 @@
+package application;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Headless version of the summary screen for scheduled jobs on machines without a display.
+// The journal or bank export is streamed through the same LedgerAggregates the app uses,
+// one record at a time, so memory does not grow with the size of the ledger. Only rows that
+// were edited or deleted are held until the end of the journal, since their final value is
+// not known before then.
+//
+// Usage: LedgerReport [--journal <file> | --input <file.csv|.ofx>] [--rules <file>] [--period <name>]
+//                     [--from <yyyy-mm-dd>] [--to <yyyy-mm-dd>] [--format text|csv] [--out <file>]
+// An imported file is categorized with --rules, or the app's rules.txt when not given.
+public final class LedgerReport {
+
+    static final String USAGE = "Usage: --report [--journal <file> | --input <file.csv|.ofx>] [--rules <file>]"
+        + " [--period <name>] [--from <yyyy-mm-dd>] [--to <yyyy-mm-dd>] [--format text|csv] [--out <file>]";
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private final LedgerAggregates aggregates = new LedgerAggregates();
+    private long transactions;
+
+    // Either bound may be null
+    public LedgerReport(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.out, System.err));
+    }
+
+    // Returns the process exit code: 0 on success, 1 if the report failed, 2 for bad arguments
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Path journal = null;
+        Path input = null;
+        Path rules = null;
+        Path output = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        boolean csv = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (option.equals("--report")) {
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Missing value for " + option);
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--journal" -> journal = Paths.get(value);
+                    case "--input" -> input = Paths.get(value);
+                    case "--rules" -> rules = Paths.get(value);
+                    case "--out" -> output = Paths.get(value);
+                    case "--from" -> from = LocalDate.parse(value);
+                    case "--to" -> to = LocalDate.parse(value);
+                    case "--period" -> {
+                        ReportPeriod period = ReportPeriod.valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+                        from = period.start(LocalDate.now());
+                        to = period.end(LocalDate.now());
+                    }
+                    case "--format" -> {
+                        if (!value.equals("text") && !value.equals("csv")) {
+                            throw new IllegalArgumentException("Unknown format " + value);
+                        }
+                        csv = value.equals("csv");
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + option);
+                }
+            }
+            if (journal != null && input != null) {
+                throw new IllegalArgumentException("Use either --journal or --input, not both");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            err.println(ex.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        LedgerReport report = new LedgerReport(from, to);
+        try {
+            Path source;
+            if (input != null) {
+                source = input;
+                // A missing --rules file is an error; a missing default one just means no rules
+                report.streamImport(input, rules != null
+                    ? CategoryRules.parse(Files.readAllLines(rules, StandardCharsets.UTF_8), rules.toString())
+                    : CategoryRules.load(CategoryRules.defaultPath()));
+            } else {
+                source = journal != null ? journal : LedgerJournal.defaultPath();
+                report.streamJournal(source);
+            }
+            if (output == null) {
+                report.write(out, source.toString(), csv);
+                out.flush();
+            } else {
+                try (Writer writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+                    report.write(writer, source.toString(), csv);
+                }
+            }
+            return 0;
+        } catch (IOException ex) {
+            err.println("Report failed: " + ex);
+            return 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    public LedgerAggregates getAggregates() { return aggregates; }
+    public long getTransactions() { return transactions; }
+
+    // A bank export is all additions, so each batch goes straight into the totals
+    public void streamImport(Path file, CategoryRules rules) throws IOException, InterruptedException {
+        new TransactionImporter(rules).importFile(file, batch -> {
+            for (TransactionEntry entry : batch) {
+                include(entry);
+            }
+        });
+    }
+
+    // Two passes over the journal: the first collects the IDs of rows that were ever edited
+    // or deleted, the second adds every other row to the totals as it goes and keeps only the
+    // latest value of those few rows. Journals written before rows had IDs (or by a list that
+    // does not assign them) can only be replayed in full.
+    public void streamJournal(Path journal) throws IOException {
+        try (LedgerJournal.Snapshot snapshot = LedgerJournal.snapshot(journal)) {
+            streamJournal(snapshot);
+        }
+    }
+
+    // Every pass reads the same records, however much the app appends meanwhile; otherwise
+    // a row edited or deleted after the first pass would be counted twice or read as null
+    public void streamJournal(LedgerJournal.Snapshot journal) throws IOException {
+        RowBitmap touched = new RowBitmap();
+        boolean[] keyed = {true};
+        journal.scan((op, index, id, entry) -> {
+            if (id <= 0 || id > Integer.MAX_VALUE) {
+                keyed[0] = false;
+            } else if (op != LedgerJournal.OP_ADD) {
+                touched.add((int) id);
+            }
+        });
+        if (!keyed[0]) {
+            List<TransactionEntry> entries = new ArrayList<>();
+            journal.scan(LedgerJournal.replayInto(entries));
+            entries.forEach(this::include);
+            return;
+        }
+
+        Map<Integer, TransactionEntry> pending = new LinkedHashMap<>();
+        journal.scan((op, index, id, entry) -> {
+            if (!touched.contains((int) id)) {
+                include(entry);
+            } else if (op == LedgerJournal.OP_REMOVE) {
+                pending.remove((int) id);
+            } else {
+                pending.put((int) id, entry);
+            }
+        });
+        pending.values().forEach(this::include);
+    }
+
+    private void include(TransactionEntry entry) {
+        LocalDate date = entry.getDate();
+        if ((from == null || !date.isBefore(from)) && (to == null || !date.isAfter(to))) {
+            aggregates.apply(entry, 1);
+            transactions++;
+        }
+    }
+
+    // Same figures as the summary screen, as aligned text or as CSV rows of section,name,amount
+    public void write(Appendable out, String source, boolean csv) throws IOException {
+        String period = (from == null ? "start" : from.toString()) + " to " + (to == null ? "end" : to.toString());
+        if (from == null && to == null) {
+            period = ReportPeriod.ALL_TIME.toString();
+        }
+        if (csv) {
+            out.append("section,name,amount\n");
+            out.append("summary,Transactions,").append(Long.toString(transactions)).append('\n');
+            out.append("summary,Total Income,").append(amount(aggregates.getIncomeCents())).append('\n');
+            out.append("summary,Total Expenses,").append(amount(aggregates.getExpenseCents())).append('\n');
+            out.append("summary,Net Balance,").append(amount(aggregates.getBalanceCents())).append('\n');
+            for (Map.Entry<String, Long> category : aggregates.getExpenseByCategory().entrySet()) {
+                out.append("category,").append(csvField(category.getKey())).append(',').append(amount(category.getValue())).append('\n');
+            }
+            return;
+        }
+        out.append("Budget report for ").append(source).append('\n');
+        out.append("Period: ").append(period).append('\n');
+        out.append("Transactions: ").append(Long.toString(transactions)).append("\n\n");
+        out.append(String.format("Total Income: $%s%n", amount(aggregates.getIncomeCents())));
+        out.append(String.format("Total Expenses: $%s%n", amount(aggregates.getExpenseCents())));
+        out.append(String.format("Net Balance: $%s%n", amount(aggregates.getBalanceCents())));
+        Map<String, Long> byCategory = aggregates.getExpenseByCategory();
+        if (!byCategory.isEmpty()) {
+            int width = 0;
+            for (String category : byCategory.keySet()) {
+                width = Math.max(width, category.length());
+            }
+            out.append("\nSpending by Category:\n");
+            for (Map.Entry<String, Long> category : byCategory.entrySet()) {
+                out.append(String.format("  %-" + width + "s  $%s%n", category.getKey(), amount(category.getValue())));
+            }
+        }
+    }
+
+    // Exact cents, without going through a double
+    private static String amount(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long magnitude = Math.abs(cents);
+        return String.format("%s%d.%02d", sign, magnitude / 100, magnitude % 100);
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
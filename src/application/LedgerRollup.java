@@ -0,0 +1,266 @@
+package application;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.collections.ListChangeListener;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-day totals for every (type, category) pair, each held in a Fenwick tree over
+// epoch-days. Any date-range total is two prefix sums, O(log days), so period reports
+// ("Groceries last quarter") never scan the ledger. Kept current from list changes.
+// A tree spans at most DENSE_DAYS (about 45 years); days outside it, such as a year typed
+// as 1900 or 9999, are summed per day in a small sorted map instead of widening the tree
+// to millions of slots.
+public class LedgerRollup implements ListChangeListener<TransactionEntry> {
+
+    private final Map<String, Series> series = new LinkedHashMap<>();
+    private final ReadOnlyIntegerWrapper revision = new ReadOnlyIntegerWrapper(this, "revision");
+
+    private static final int DENSE_DAYS = 1 << 14;
+    // Distinct far days kept before the tree is moved to where most of the days are
+    private static final int FAR_DAYS = 256;
+
+    // One Fenwick tree of cents over the days [base, base + tree.length - 1), plus the days
+    // outside it
+    private static final class Series {
+        final String type;
+        final String category;
+        long base;
+        long[] tree = new long[1];
+        final TreeMap<Long, Long> far = new TreeMap<>();
+        int farLimit = FAR_DAYS;
+
+        Series(String type, String category) {
+            this.type = type;
+            this.category = category;
+        }
+
+        void add(long day, long cents) {
+            if (tree.length == 1) {
+                base = day;
+            }
+            if (day < base || day - base >= tree.length - 1) {
+                if (Math.max(base + tree.length - 1, day + 1) - Math.min(base, day) > DENSE_DAYS) {
+                    addFar(day, cents);
+                    if (far.size() > farLimit) {
+                        recenter();
+                    }
+                    return;
+                }
+                cover(day);
+            }
+            for (int i = (int) (day - base) + 1; i < tree.length; i += i & -i) {
+                tree[i] += cents;
+            }
+        }
+
+        private void addFar(long day, long cents) {
+            if (far.merge(day, cents, Long::sum) == 0) {
+                far.remove(day);
+            }
+        }
+
+        // Sum of the days up to and including the given one
+        long prefix(long day) {
+            long sum = 0;
+            for (long cents : far.headMap(day, true).values()) {
+                sum += cents;
+            }
+            if (day < base || tree.length == 1) {
+                return sum;
+            }
+            int i = (int) Math.min(day - base + 1, tree.length - 1);
+            for (; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        long between(long fromDay, long toDay) {
+            return fromDay > toDay ? 0 : prefix(toDay) - prefix(fromDay - 1);
+        }
+
+        // Grows the day range to include the given day, doubling so growth stays amortized
+        private void cover(long day) {
+            int days = tree.length - 1;
+            long newBase = Math.min(base, day);
+            long needed = Math.max(base + days, day + 1) - newBase;
+            int newDays = Math.max(64, days);
+            while (newDays < needed) {
+                newDays *= 2;
+            }
+            // Unwind the tree back to per-day values, then rebuild at the new offset
+            long[] values = tree;
+            for (int i = days; i > 0; i--) {
+                int parent = i + (i & -i);
+                if (parent <= days) {
+                    values[parent] -= values[i];
+                }
+            }
+            long[] grown = new long[newDays + 1];
+            int shift = (int) (base - newBase);
+            System.arraycopy(values, 1, grown, 1 + shift, days);
+            for (int i = 1; i <= newDays; i++) {
+                int parent = i + (i & -i);
+                if (parent <= newDays) {
+                    grown[parent] += grown[i];
+                }
+            }
+            tree = grown;
+            base = newBase;
+        }
+
+        // The first day seen places the tree; once far days pile up (the first day was the
+        // outlier, or the ledger really spans more than DENSE_DAYS) the tree is rebuilt over
+        // the window holding the most distinct days and the rest stay far. The limit doubles
+        // with what stays far, so rebuilds are amortized.
+        private void recenter() {
+            TreeMap<Long, Long> days = new TreeMap<>(far);
+            long[] values = tree.clone();
+            int span = values.length - 1;
+            for (int i = span; i > 0; i--) {
+                int parent = i + (i & -i);
+                if (parent <= span) {
+                    values[parent] -= values[i];
+                }
+            }
+            for (int i = 1; i <= span; i++) {
+                if (values[i] != 0) {
+                    days.put(base + i - 1, values[i]);
+                }
+            }
+            long[] order = new long[days.size()];
+            int n = 0;
+            for (long day : days.keySet()) {
+                order[n++] = day;
+            }
+            int best = 0;
+            int bestCount = 0;
+            for (int from = 0, to = 0; from < n; from++) {
+                while (to < n && order[to] - order[from] < DENSE_DAYS) {
+                    to++;
+                }
+                if (to - from > bestCount) {
+                    best = from;
+                    bestCount = to - from;
+                }
+            }
+            tree = new long[1];
+            far.clear();
+            for (Map.Entry<Long, Long> entry : days.entrySet()) {
+                long day = entry.getKey();
+                if (day >= order[best] && day - order[best] < DENSE_DAYS) {
+                    add(day, entry.getValue());
+                } else {
+                    addFar(day, entry.getValue());
+                }
+            }
+            farLimit = Math.max(FAR_DAYS, far.size() * 2);
+        }
+    }
+
+    // Full build over a list, used for verification and for ledgers not attached to a listener
+    public static LedgerRollup of(List<? extends TransactionEntry> entries) {
+        LedgerRollup rollup = new LedgerRollup();
+        for (TransactionEntry entry : entries) {
+            rollup.apply(entry, 1);
+        }
+        return rollup;
+    }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue;
+            }
+            if (c.wasRemoved()) {
+                for (TransactionEntry entry : c.getRemoved()) {
+                    apply(entry, -1);
+                }
+            }
+            if (c.wasAdded()) {
+                for (TransactionEntry entry : c.getAddedSubList()) {
+                    apply(entry, 1);
+                }
+            }
+        }
+        revision.set(revision.get() + 1);
+    }
+
+    // Adds (sign = 1) or removes (sign = -1) one transaction
+    public void apply(TransactionEntry entry, int sign) {
+        String key = entry.getType() + '\u0000' + entry.getCategory();
+        Series s = series.computeIfAbsent(key, k -> new Series(entry.getType(), entry.getCategory()));
+        s.add(entry.getDate().toEpochDay(), sign * ColumnarTransactionList.toCents(entry.getAmount()));
+    }
+
+    // ---- Queries; a null bound is open, types match ignoring case ----
+
+    public long total(String type, LocalDate from, LocalDate to) {
+        return total(type, null, from, to);
+    }
+
+    // Total for one category, or for every category when it is null
+    public long total(String type, String category, LocalDate from, LocalDate to) {
+        long fromDay = from == null ? Long.MIN_VALUE / 2 : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE / 2 : to.toEpochDay();
+        long sum = 0;
+        for (Series s : matching(type, category)) {
+            sum += s.between(fromDay, toDay);
+        }
+        return sum;
+    }
+
+    // Per-category totals of one type within the range, in first-seen order, zero totals left out
+    public Map<String, Long> totalsByCategory(String type, LocalDate from, LocalDate to) {
+        long fromDay = from == null ? Long.MIN_VALUE / 2 : from.toEpochDay();
+        long toDay = to == null ? Long.MAX_VALUE / 2 : to.toEpochDay();
+        Map<String, Long> totals = new LinkedHashMap<>();
+        for (Series s : matching(type, null)) {
+            long cents = s.between(fromDay, toDay);
+            if (cents != 0) {
+                totals.merge(s.category, cents, Long::sum);
+            }
+        }
+        totals.values().removeIf(cents -> cents == 0);
+        return Collections.unmodifiableMap(totals);
+    }
+
+    // Totals for `count` consecutive periods of length `step` starting at `start`,
+    // e.g. the twelve months of a year with Period.ofMonths(1)
+    public long[] totalsPerPeriod(String type, String category, LocalDate start, Period step, int count) {
+        List<Series> matched = matching(type, category);
+        long[] totals = new long[count];
+        LocalDate periodStart = start;
+        for (int p = 0; p < count; p++) {
+            LocalDate next = start.plus(step.multipliedBy(p + 1));
+            for (Series s : matched) {
+                totals[p] += s.between(periodStart.toEpochDay(), next.toEpochDay() - 1);
+            }
+            periodStart = next;
+        }
+        return totals;
+    }
+
+    // Bumped once per applied change, for views that redraw from the rollup
+    public ReadOnlyIntegerProperty revisionProperty() { return revision.getReadOnlyProperty(); }
+
+    private List<Series> matching(String type, String category) {
+        List<Series> matched = new ArrayList<>();
+        for (Series s : series.values()) {
+            if (s.type.equalsIgnoreCase(type) && (category == null || s.category.equals(category))) {
+                matched.add(s);
+            }
+        }
+        return matched;
+    }
+}
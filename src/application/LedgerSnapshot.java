@@ -0,0 +1,59 @@
+package application;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+// Read-only view of the ledger at one version, from ColumnarTransactionList.snapshot().
+// It shares the ledger's chunks, which the ledger copies before changing, so it never sees
+// a later edit and can be read from any thread while the UI keeps editing.
+public final class LedgerSnapshot extends AbstractList<TransactionEntry> implements RandomAccess {
+
+    private final LedgerChunk[] chunks;
+    private final int[] starts;
+    private final int size;
+    private final long version;
+    private final String[] categories;
+    private final String[] types;
+    private int lastChunk; // lookup hint; a stale value from another thread only costs a search
+
+    LedgerSnapshot(LedgerChunk[] chunks, int[] starts, int size, long version, String[] categories, String[] types) {
+        this.chunks = chunks;
+        this.starts = starts;
+        this.size = size;
+        this.version = version;
+        this.categories = categories;
+        this.types = types;
+    }
+
+    @Override
+    public TransactionEntry get(int index) {
+        int c = chunkOf(index);
+        LedgerChunk chunk = chunks[c];
+        int at = index - starts[c];
+        return new TransactionEntry(chunk.ids[at], chunk.titles[at], ColumnarTransactionList.fromCents(chunk.amountCents[at]),
+                categories[chunk.categoryCodes[at]], types[chunk.typeCodes[at]], LocalDate.ofEpochDay(chunk.epochDays[at]));
+    }
+
+    @Override
+    public int size() { return size; }
+
+    // Ledger version this snapshot was taken at
+    public long getVersion() { return version; }
+
+    public long amountCentsAt(int index) { int c = chunkOf(index); return chunks[c].amountCents[index - starts[c]]; }
+    public int epochDayAt(int index) { int c = chunkOf(index); return chunks[c].epochDays[index - starts[c]]; }
+    public String categoryAt(int index) { int c = chunkOf(index); return categories[chunks[c].categoryCodes[index - starts[c]]]; }
+    public String typeAt(int index) { int c = chunkOf(index); return types[chunks[c].typeCodes[index - starts[c]]]; }
+    public String titleAt(int index) { int c = chunkOf(index); return chunks[c].titles[index - starts[c]]; }
+    public long idAt(int index) { int c = chunkOf(index); return chunks[c].ids[index - starts[c]]; }
+
+    private int chunkOf(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int c = LedgerChunk.find(starts, chunks.length, index, lastChunk);
+        lastChunk = c;
+        return c;
+    }
+}
@@ -0,0 +1,297 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Every row ID of the ledger in (key, ID) order for one sortable column, as primitive
+// keys and IDs in sorted blocks of at most BLOCK entries. A single insert or delete moves
+// part of one block; a large batch is sorted on its own and merged in one linear pass.
+// Kept in step with the ledger through change events, so a sorted view only has to walk
+// it instead of sorting the rows again.
+public class LedgerSortIndex implements ListChangeListener<TransactionEntry> {
+
+    public enum Key {
+        DATE, AMOUNT;
+
+        long of(ColumnarTransactionList ledger, int row) {
+            return this == DATE ? ledger.epochDayAt(row) : ledger.amountCentsAt(row);
+        }
+
+        long of(TransactionEntry entry) {
+            return this == DATE ? entry.getDate().toEpochDay() : ColumnarTransactionList.toCents(entry.getAmount());
+        }
+    }
+
+    static final int BLOCK = 1024;
+
+    private final ColumnarTransactionList ledger;
+    private final Key key;
+    private long[][] keys = new long[0][];
+    private int[][] ids = new int[0][];
+    private int[] counts = new int[0];
+    // starts[b] is the rank of block b's first entry, starts[blockCount] == size
+    private int[] starts = new int[1];
+    private int blockCount;
+
+    // Registers itself on the ledger
+    public LedgerSortIndex(ColumnarTransactionList ledger, Key key) {
+        this.ledger = ledger;
+        this.key = key;
+        addRows(0, ledger.size());
+        ledger.addListener(this);
+    }
+
+    public Key getKey() { return key; }
+    public int size() { return starts[blockCount]; }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue; // IDs do not move
+            }
+            if (c.wasRemoved()) {
+                if (isBatch(c.getRemovedSize())) {
+                    RowBitmap removed = new RowBitmap();
+                    for (TransactionEntry old : c.getRemoved()) {
+                        removed.add((int) old.getId());
+                    }
+                    removeAll(removed);
+                } else {
+                    for (TransactionEntry old : c.getRemoved()) {
+                        remove(key.of(old), (int) old.getId());
+                    }
+                }
+            }
+            if (c.wasAdded()) {
+                addRows(c.getFrom(), c.getTo());
+            }
+        }
+    }
+
+    // IDs in order, or in reverse
+    public void forEach(boolean descending, IntConsumer action) {
+        for (int i = 0; i < blockCount; i++) {
+            int b = descending ? blockCount - 1 - i : i;
+            for (int j = 0; j < counts[b]; j++) {
+                action.accept(ids[b][descending ? counts[b] - 1 - j : j]);
+            }
+        }
+    }
+
+    // ID at the given rank in ascending order
+    public int idAt(int rank) {
+        int b = Arrays.binarySearch(starts, 0, blockCount + 1, rank);
+        b = b >= 0 ? b : -b - 2;
+        while (counts[b] == 0 || rank >= starts[b + 1]) {
+            b++;
+        }
+        return ids[b][rank - starts[b]];
+    }
+
+    // Compares two ledger rows the way this index orders them
+    public int compareRows(int rowA, int rowB) {
+        int order = Long.compare(key.of(ledger, rowA), key.of(ledger, rowB));
+        return order != 0 ? order : Long.compare(ledger.idAt(rowA), ledger.idAt(rowB));
+    }
+
+    // Inserting one entry costs about a block copy plus a pass over the block starts;
+    // past that a merge of the whole index is cheaper
+    private boolean isBatch(int rows) {
+        return (long) rows * (BLOCK + blockCount) > size();
+    }
+
+    private void addRows(int from, int to) {
+        int n = to - from;
+        if (n == 0) {
+            return;
+        }
+        if (!isBatch(n)) {
+            for (int row = from; row < to; row++) {
+                insert(key.of(ledger, row), (int) ledger.idAt(row));
+            }
+            return;
+        }
+        // Sort the batch by ID, then stably by key, and merge it with the index
+        long[] batchIds = new long[n];
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            batchIds[i] = ledger.idAt(from + i);
+            positions[i] = from + i;
+        }
+        KeyRowSort.mergeSort(batchIds, positions, new long[n], new int[n], n);
+        long[] batchKeys = new long[n];
+        int[] sortedIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            batchKeys[i] = key.of(ledger, positions[i]);
+            sortedIds[i] = (int) batchIds[i];
+        }
+        KeyRowSort.mergeSort(batchKeys, sortedIds, new long[n], new int[n], n);
+
+        int total = size() + n;
+        long[] mergedKeys = new long[total];
+        int[] mergedIds = new int[total];
+        int i = 0;
+        int k = 0;
+        for (int b = 0; b < blockCount; b++) {
+            for (int j = 0; j < counts[b]; j++) {
+                long existing = keys[b][j];
+                int existingId = ids[b][j];
+                while (i < n && (batchKeys[i] < existing || (batchKeys[i] == existing && sortedIds[i] < existingId))) {
+                    mergedKeys[k] = batchKeys[i];
+                    mergedIds[k++] = sortedIds[i++];
+                }
+                mergedKeys[k] = existing;
+                mergedIds[k++] = existingId;
+            }
+        }
+        while (i < n) {
+            mergedKeys[k] = batchKeys[i];
+            mergedIds[k++] = sortedIds[i++];
+        }
+        rebuild(mergedKeys, mergedIds, total);
+    }
+
+    private void removeAll(RowBitmap removed) {
+        long[] keptKeys = new long[size()];
+        int[] keptIds = new int[size()];
+        int k = 0;
+        for (int b = 0; b < blockCount; b++) {
+            for (int j = 0; j < counts[b]; j++) {
+                if (!removed.contains(ids[b][j])) {
+                    keptKeys[k] = keys[b][j];
+                    keptIds[k++] = ids[b][j];
+                }
+            }
+        }
+        rebuild(keptKeys, keptIds, k);
+    }
+
+    // Re-blocks sorted entries with blocks three-quarters full, leaving room to insert
+    private void rebuild(long[] sortedKeys, int[] sortedIds, int n) {
+        int perBlock = BLOCK * 3 / 4;
+        blockCount = (n + perBlock - 1) / perBlock;
+        keys = new long[Math.max(blockCount, 1)][];
+        ids = new int[keys.length][];
+        counts = new int[keys.length];
+        starts = new int[keys.length + 1];
+        for (int b = 0; b < blockCount; b++) {
+            int from = b * perBlock;
+            int count = Math.min(perBlock, n - from);
+            keys[b] = Arrays.copyOfRange(sortedKeys, from, from + BLOCK);
+            ids[b] = Arrays.copyOfRange(sortedIds, from, from + BLOCK);
+            counts[b] = count;
+            starts[b + 1] = from + count;
+        }
+    }
+
+    private void insert(long k, int id) {
+        if (blockCount == 0) {
+            rebuild(new long[] {k}, new int[] {id}, 1);
+            return;
+        }
+        int b = blockFor(k, id);
+        int at = slotIn(b, k, id);
+        if (counts[b] == BLOCK) {
+            split(b);
+            if (at > counts[b]) {
+                at -= counts[b];
+                b++;
+            }
+        }
+        System.arraycopy(keys[b], at, keys[b], at + 1, counts[b] - at);
+        System.arraycopy(ids[b], at, ids[b], at + 1, counts[b] - at);
+        keys[b][at] = k;
+        ids[b][at] = id;
+        counts[b]++;
+        for (int s = b + 1; s <= blockCount; s++) {
+            starts[s]++;
+        }
+    }
+
+    private void remove(long k, int id) {
+        if (blockCount == 0) {
+            return;
+        }
+        int b = blockFor(k, id);
+        int at = slotIn(b, k, id);
+        if (at >= counts[b] || keys[b][at] != k || ids[b][at] != id) {
+            return;
+        }
+        System.arraycopy(keys[b], at + 1, keys[b], at, counts[b] - at - 1);
+        System.arraycopy(ids[b], at + 1, ids[b], at, counts[b] - at - 1);
+        counts[b]--;
+        for (int s = b + 1; s <= blockCount; s++) {
+            starts[s]--;
+        }
+        if (counts[b] == 0 && blockCount > 1) {
+            removeBlock(b);
+        }
+    }
+
+    // First block whose last entry is at or after (k, id), else the last block
+    private int blockFor(long k, int id) {
+        int low = 0;
+        int high = blockCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int last = counts[mid] - 1;
+            if (last < 0 || keys[mid][last] < k || (keys[mid][last] == k && ids[mid][last] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First slot of block b at or after (k, id)
+    private int slotIn(int b, long k, int id) {
+        int low = 0;
+        int high = counts[b];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[b][mid] < k || (keys[b][mid] == k && ids[b][mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void split(int b) {
+        if (blockCount == keys.length) {
+            int grown = blockCount + (blockCount >> 1) + 1;
+            keys = Arrays.copyOf(keys, grown);
+            ids = Arrays.copyOf(ids, grown);
+            counts = Arrays.copyOf(counts, grown);
+            starts = Arrays.copyOf(starts, grown + 1);
+        }
+        System.arraycopy(keys, b + 1, keys, b + 2, blockCount - b - 1);
+        System.arraycopy(ids, b + 1, ids, b + 2, blockCount - b - 1);
+        System.arraycopy(counts, b + 1, counts, b + 2, blockCount - b - 1);
+        System.arraycopy(starts, b + 1, starts, b + 2, blockCount - b);
+        int half = counts[b] / 2;
+        keys[b + 1] = new long[BLOCK];
+        ids[b + 1] = new int[BLOCK];
+        System.arraycopy(keys[b], half, keys[b + 1], 0, counts[b] - half);
+        System.arraycopy(ids[b], half, ids[b + 1], 0, counts[b] - half);
+        counts[b + 1] = counts[b] - half;
+        counts[b] = half;
+        starts[b + 1] = starts[b] + half;
+        blockCount++;
+    }
+
+    private void removeBlock(int b) {
+        System.arraycopy(keys, b + 1, keys, b, blockCount - b - 1);
+        System.arraycopy(ids, b + 1, ids, b, blockCount - b - 1);
+        System.arraycopy(counts, b + 1, counts, b, blockCount - b - 1);
+        System.arraycopy(starts, b + 1, starts, b, blockCount - b);
+        blockCount--;
+        keys[blockCount] = null;
+        ids[blockCount] = null;
+    }
+}
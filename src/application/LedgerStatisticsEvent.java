@@ -0,0 +1,41 @@
+package application;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Periodic Flight Recorder summary of one operation's LedgerMetrics histogram, so a
+// recording also covers operations too frequent for an event each (table cell updates)
+@Name("application.LedgerStatistics")
+@Label("Ledger Statistics")
+@Category("Budget Tracker")
+@Description("Count and latency percentiles per ledger operation since the application started")
+@Period("1 s")
+@StackTrace(false)
+final class LedgerStatisticsEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Ledger Rows")
+    long ledgerRows;
+
+    @Label("Count")
+    long count;
+
+    @Label("Median")
+    @Timespan(Timespan.NANOSECONDS)
+    long p50;
+
+    @Label("99th Percentile")
+    @Timespan(Timespan.NANOSECONDS)
+    long p99;
+
+    @Label("Maximum")
+    @Timespan(Timespan.NANOSECONDS)
+    long max;
+}
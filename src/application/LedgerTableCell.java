@@ -0,0 +1,112 @@
+package application;
+
+import javafx.collections.transformation.TransformationList;
+import javafx.scene.control.TableCell;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+
+// Transaction table cell that reads its value straight from the ledger columns, going
+// from the row's view index to its ledger position through the table's transformation
+// lists. No cell value factory runs, so drawing a row allocates no property wrappers;
+// amount and date texts come from small caches keyed by the primitive value.
+public class LedgerTableCell extends TableCell<TransactionEntry, Void> {
+
+    public enum Field {
+        TITLE(Comparator.comparing(TransactionEntry::getTitle), null),
+        AMOUNT(Comparator.comparingDouble(TransactionEntry::getAmount), LedgerSortIndex.Key.AMOUNT),
+        CATEGORY(Comparator.comparing(TransactionEntry::getCategory), null),
+        TYPE(Comparator.comparing(TransactionEntry::getType), null),
+        DATE(Comparator.comparing(TransactionEntry::getDate), LedgerSortIndex.Key.DATE);
+
+        private final Comparator<TransactionEntry> comparator;
+        private final LedgerSortIndex.Key sortKey;
+
+        Field(Comparator<TransactionEntry> comparator, LedgerSortIndex.Key sortKey) {
+            this.comparator = comparator;
+            this.sortKey = sortKey;
+        }
+
+        // Row order for sorting by this column
+        public Comparator<TransactionEntry> comparator() { return comparator; }
+
+        // The LedgerIndex sort index for this column, or null if it has none
+        public LedgerSortIndex.Key sortKey() { return sortKey; }
+    }
+
+    // Direct-mapped text caches, only used on the FX thread
+    private static final int CACHE_SIZE = 4096;
+    private static final long[] amountKeys = new long[CACHE_SIZE];
+    private static final String[] amountTexts = new String[CACHE_SIZE];
+    private static final int[] dateKeys = new int[CACHE_SIZE];
+    private static final String[] dateTexts = new String[CACHE_SIZE];
+
+    private final ColumnarTransactionList ledger;
+    private final TransformationList<TransactionEntry, ?> view;
+    private final Field field;
+
+    public LedgerTableCell(ColumnarTransactionList ledger, TransformationList<TransactionEntry, ?> view, Field field) {
+        this.ledger = ledger;
+        this.view = view;
+        this.field = field;
+    }
+
+    @Override
+    protected void updateItem(Void item, boolean empty) {
+        long start = System.nanoTime();
+        super.updateItem(item, empty);
+        int index = getIndex();
+        show(empty || index < 0 || index >= view.size() ? null : text(ledgerRow()));
+        LedgerMetrics.record(LedgerMetrics.Operation.CELL_UPDATE, start);
+    }
+
+    // The cell item is always null, so an unchanged item says nothing about the row; without
+    // this a cell whose index stays the same would skip redrawing after an edit or re-sort
+    @Override
+    protected boolean isItemChanged(Void oldItem, Void newItem) {
+        return true;
+    }
+
+    // Puts the value on screen, null for an empty row; subclasses may show it in a graphic
+    protected void show(String text) {
+        setText(text);
+    }
+
+    // Ledger position of the row this cell currently shows
+    protected int ledgerRow() {
+        return view.getSourceIndexFor(ledger, getIndex());
+    }
+
+    protected String text(int row) {
+        switch (field) {
+            case TITLE: return ledger.titleAt(row);
+            case AMOUNT: return amountText(ledger.amountCentsAt(row));
+            case CATEGORY: return ledger.getCategories().decode(ledger.categoryCodeAt(row));
+            case TYPE: return ledger.getTypes().decode(ledger.typeCodeAt(row));
+            default: return dateText(ledger.epochDayAt(row));
+        }
+    }
+
+    // Same text the Double column used to show, formatted once per distinct amount in view
+    static String amountText(long cents) {
+        int slot = (int) (cents ^ (cents >>> 32)) & (CACHE_SIZE - 1);
+        String text = amountTexts[slot];
+        if (text == null || amountKeys[slot] != cents) {
+            text = Double.toString(ColumnarTransactionList.fromCents(cents));
+            amountKeys[slot] = cents;
+            amountTexts[slot] = text;
+        }
+        return text;
+    }
+
+    static String dateText(int epochDay) {
+        int slot = epochDay & (CACHE_SIZE - 1);
+        String text = dateTexts[slot];
+        if (text == null || dateKeys[slot] != epochDay) {
+            text = LocalDate.ofEpochDay(epochDay).toString();
+            dateKeys[slot] = epochDay;
+            dateTexts[slot] = text;
+        }
+        return text;
+    }
+}
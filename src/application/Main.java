@@ -1,54 +1,152 @@
 package application;
 
 import javafx.application.Application;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleObjectProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.BooleanProperty;
+import javafx.beans.property.SimpleBooleanProperty;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 
-import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 
-import javafx.scene.chart.PieChart;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
-import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
 
 
 public class Main extends Application {
 
-    private ObservableList<TransactionEntry> transactionList = FXCollections.observableArrayList();
+    private final ColumnarTransactionList transactionList = new ColumnarTransactionList();
+    private final LedgerAggregates aggregates = new LedgerAggregates();
+    private final LedgerRollup rollup = new LedgerRollup();
+    private final LedgerIndex ledgerIndex = new LedgerIndex(transactionList);
+    private final DuplicateIndex duplicates = new DuplicateIndex(transactionList);
+    private LedgerJournal journal;
+    private LedgerHistory history;
+    private CategoryRules categoryRules = CategoryRules.NONE;
+    // Set once the journal has been read back into the ledger
+    private final BooleanProperty ledgerLoaded = new SimpleBooleanProperty();
+    // All-time totals from the last session, shown until the ledger is loaded
+    private SummaryCache savedSummary;
+
+    // Rows added to the ledger per FX event while loading, so the window stays responsive
+    private static final int LOAD_BATCH = 1 << 16;
 
     @Override
     public void start(Stage primaryStage) {
-        // Transaction entry screen
+        // A ledger too large for the heap (or --browse [journal]) opens read-only, paged from disk
+        List<String> args = getParameters().getRaw();
+        int browse = args.indexOf("--browse");
+        Path journalPath = browse >= 0 && browse + 1 < args.size() ? Paths.get(args.get(browse + 1)) : LedgerJournal.defaultPath();
+        if (browse >= 0 || LedgerBrowser.tooLargeToLoad(journalPath)) {
+            showBrowser(primaryStage, journalPath);
+            return;
+        }
+
+        // Keep summary totals current; the ledger is restored from disk after the window is up
+        transactionList.addListener(aggregates);
+        transactionList.addListener(rollup);
+        AggregationKernels.startWarmUp(); // compiles while the journal is read
+        savedSummary = SummaryCache.load(journalPath);
+        loadRules();
+
+        // Transaction entry screen, the only one built before the first frame
         Tab entryTab = new Tab("Add Entry");
         entryTab.setContent(buildEntryForm(transactionList));
         entryTab.setClosable(false);
 
-        // Table view screen
-        Tab tableTab = new Tab("All Transactions");
-        tableTab.setContent(buildTransactionTable(transactionList));
-        tableTab.setClosable(false);
+        // Table view screen, built once the ledger is loaded and the tab is first shown
+        Tab tableTab = lazyTab("All Transactions", true, () -> buildTransactionTable(transactionList, ledgerIndex));
+
+        // Summary screen, which can show the saved summary while the ledger loads
+        Tab summaryTab = lazyTab("Summary", false, () -> buildSummaryView(aggregates, rollup));
 
-        // Summary screen
-        Tab summaryTab = new Tab("Summary");
-        summaryTab.setContent(buildSummaryView(transactionList));
-        summaryTab.setClosable(false);
+        // Forecast screen: recurring transactions, budgets and the projected balance
+        Tab forecastTab = lazyTab("Forecast", true, () -> new ForecastView(rollup, ForecastPlan.defaultPath()).getView());
 
         // TabPane configuration
-        TabPane tabPane = new TabPane(entryTab, tableTab, summaryTab);
+        TabPane tabPane = new TabPane(entryTab, tableTab, summaryTab, forecastTab);
+
+        // Latencies are always collected; the tab showing them is opt-in
+        if (Boolean.getBoolean("budgettracker.diagnostics")) {
+            DiagnosticsView diagnostics = new DiagnosticsView();
+            Tab diagnosticsTab = new Tab("Diagnostics");
+            diagnosticsTab.setContent(diagnostics.getView());
+            diagnosticsTab.setClosable(false);
+            diagnosticsTab.setOnSelectionChanged(e -> {
+                if (diagnosticsTab.isSelected()) {
+                    diagnostics.start();
+                } else {
+                    diagnostics.stop();
+                }
+            });
+            tabPane.getTabs().add(diagnosticsTab);
+        }
         Scene scene = new Scene(tabPane, 900, 500);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), () -> {
+            if (history != null) {
+                history.undo();
+            }
+        });
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), () -> {
+            if (history != null) {
+                history.redo();
+            }
+        });
+        recordFirstFrame(scene);
         primaryStage.setTitle("Personal Budget Tracker");
         primaryStage.setScene(scene);
         primaryStage.show();
+        openJournal(journalPath);
+    }
+
+    // A tab whose content is built the first time it is selected; needsLedger tabs also
+    // wait for the ledger to be loaded
+    private Tab lazyTab(String title, boolean needsLedger, Supplier<Node> content) {
+        Tab tab = new Tab(title, new Label("Loading the ledger..."));
+        tab.setClosable(false);
+        boolean[] built = {false};
+        InvalidationListener build = obs -> {
+            if (!built[0] && tab.isSelected() && (!needsLedger || ledgerLoaded.get())) {
+                built[0] = true;
+                tab.setContent(content.get());
+            }
+        };
+        tab.selectedProperty().addListener(build);
+        ledgerLoaded.addListener(build);
+        return tab;
+    }
+
+    // Launch to first frame, measured from JVM start to the first layout pulse of the scene
+    private static void recordFirstFrame(Scene scene) {
+        long sinceLaunch = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        long launchNanos = System.nanoTime() - sinceLaunch * 1_000_000;
+        Runnable[] once = new Runnable[1];
+        once[0] = () -> {
+            LedgerMetrics.record(LedgerMetrics.Operation.FIRST_FRAME, launchNanos);
+            scene.removePostLayoutPulseListener(once[0]);
+        };
+        scene.addPostLayoutPulseListener(once[0]);
     }
 
     // Data entry fields for the transaction entry form
@@ -103,6 +201,24 @@ public class Main extends Application {
         DatePicker datePicker = new DatePicker();
         datePicker.setValue(LocalDate.now());
 
+        // Suggest a category from the user's rules once the title is typed
+        titleField.focusedProperty().addListener((obs, wasFocused, focused) -> {
+            if (!focused && !titleField.getText().isEmpty()) {
+                String type = ((RadioButton) typeGroup.getSelectedToggle()).getText();
+                long cents;
+                try {
+                    cents = ColumnarTransactionList.toCents(Math.abs(Double.parseDouble(amountField.getText())));
+                } catch (NumberFormatException ex) {
+                    cents = 0;
+                }
+                LocalDate day = datePicker.getValue() != null ? datePicker.getValue() : LocalDate.now();
+                String suggested = categoryRules.categorize(titleField.getText(), cents, type, (int) day.toEpochDay());
+                if (suggested != null && categoryBox.getItems().contains(suggested)) {
+                    categoryBox.setValue(suggested);
+                }
+            }
+        });
+
         // Submit
         Button submitBtn = new Button("Add Transaction");
         submitBtn.setOnAction(e -> {
@@ -125,7 +241,17 @@ public class Main extends Application {
                 return;
             }
 
-            transactionList.add(new TransactionEntry(title, amount, category, type, date));
+            // Catches a double-clicked submit as well as a transaction entered twice
+            TransactionEntry entry = new TransactionEntry(title, amount, category, type, date);
+            if (duplicates.findDuplicate(entry) >= 0) {
+                Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "A transaction with the same date, amount and title is already in the ledger. Add it anyway?", ButtonType.YES, ButtonType.NO);
+                confirm.setTitle("Possible Duplicate");
+                confirm.setHeaderText(null);
+                if (confirm.showAndWait().orElse(ButtonType.NO) != ButtonType.YES) {
+                    return;
+                }
+            }
+            transactionList.add(entry);
 
             titleField.clear();
             amountField.clear();
@@ -137,26 +263,81 @@ public class Main extends Application {
             datePicker.setValue(LocalDate.now());
         });
 
+        // Bulk import of bank exports
+        Button importBtn = new Button("Import Bank Export...");
+        Label importStatus = new Label();
+
         // Layout
         HBox typeBox = new HBox(10, incomeBtn, expenseBtn);
+        HBox importBox = new HBox(10, importBtn, importStatus);
         VBox layout = new VBox(10,
             titleLabel, titleField,
             amountLabel, amountField,
             categoryLabel, categoryBox,
             typeLabel, typeBox,
             dateLabel, datePicker,
-            submitBtn
+            submitBtn, importBox
         );
+        // Entries and imports wait for the journal, so they land after the restored ledger
+        submitBtn.disableProperty().bind(ledgerLoaded.not());
+        importBox.disableProperty().bind(ledgerLoaded.not());
         layout.setPadding(new Insets(15));
+
+        importBtn.setOnAction(e -> importTransactions(layout.getScene().getWindow(), transactionList, importBtn, importStatus));
         return layout;
     }
 
+    // Streams a bank export into the ledger off the UI thread, committing each parsed batch with one addAll
+    private void importTransactions(Window owner, ObservableList<TransactionEntry> transactionList, Button importBtn, Label importStatus) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Bank Export");
+        chooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Bank exports", "*.csv", "*.ofx", "*.qfx"),
+            new FileChooser.ExtensionFilter("All files", "*.*"));
+        File file = chooser.showOpenDialog(owner);
+        if (file == null) {
+            return;
+        }
+
+        importBtn.setDisable(true);
+        importStatus.setText("Importing " + file.getName() + "...");
+        Thread.ofVirtual().name("import-" + file.getName()).start(() -> {
+            try {
+                // Rules are read again for each import, so edits to rules.txt apply without a restart
+                CategoryRules rules = CategoryRules.load(CategoryRules.defaultPath());
+                // Rows already in the ledger (an overlapping statement imported again) are skipped
+                DuplicateIndex.ImportFilter newRows = duplicates.newImportFilter();
+                TransactionImporter.ImportResult result = new TransactionImporter(rules).importFile(file.toPath(), batch -> {
+                    // Wait for each batch to land so at most one parsed window is held in memory
+                    FutureTask<Boolean> commit = new FutureTask<>(() -> transactionList.addAll(newRows.removeDuplicates(batch)));
+                    Platform.runLater(commit);
+                    try {
+                        commit.get();
+                    } catch (ExecutionException ex) {
+                        throw new IllegalStateException(ex.getCause());
+                    }
+                });
+                Platform.runLater(() -> importStatus.setText(String.format("Imported %,d transactions (%,d already in the ledger, %,d lines skipped)",
+                    result.imported() - newRows.getSkipped(), newRows.getSkipped(), result.skipped())));
+            } catch (IOException | RuntimeException ex) {
+                Platform.runLater(() -> {
+                    importStatus.setText("Import failed");
+                    showAlert("Import Error", "Could not import " + file.getName() + ": " + ex.getMessage());
+                });
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                Platform.runLater(() -> importBtn.setDisable(false));
+            }
+        });
+    }
+
 
 
     // Displays all the data gathered from the entry form in a table
-    private VBox buildTransactionTable(ObservableList<TransactionEntry> transactionList) {
-        // Filtered list for dynamic filtering
-        FilteredList<TransactionEntry> filteredData = new FilteredList<>(transactionList, p -> true);
+    private VBox buildTransactionTable(ColumnarTransactionList transactionList, LedgerIndex ledgerIndex) {
+        // Filtered list for dynamic filtering, resolved through the bitmap indexes
+        IndexedFilteredList filteredData = new IndexedFilteredList(ledgerIndex);
 
         // ComboBox for Type filter
         ComboBox<String> typeFilter = new ComboBox<>();
@@ -168,51 +349,71 @@ public class Main extends Application {
         categoryFilter.getItems().addAll("All", "Dining Out", "Bills", "Entertainment", "Gas", "Groceries", "Shopping", "Other", "Income");
         categoryFilter.setValue("All");
 
+        // Date range and amount band filters
+        DatePicker fromFilter = new DatePicker();
+        fromFilter.setPromptText("From");
+        DatePicker toFilter = new DatePicker();
+        toFilter.setPromptText("To");
+        ComboBox<String> amountFilter = new ComboBox<>();
+        amountFilter.getItems().add("All");
+        amountFilter.getItems().addAll(LedgerIndex.BAND_LABELS);
+        amountFilter.setValue("All");
+
+        // Title search, answered from the n-gram index as the user types
+        TextField searchField = new TextField();
+        searchField.setPromptText("Search titles (^ for starts with)");
+        searchField.setPrefColumnCount(30);
+
         // Apply filters on selection change
-        typeFilter.setOnAction(e -> applyFilter(typeFilter, categoryFilter, filteredData));
-        categoryFilter.setOnAction(e -> applyFilter(typeFilter, categoryFilter, filteredData));
+        // Filters are resolved on a background thread against a snapshot of the indexes
+        BackgroundRecompute<LedgerIndex.Query, int[]> filterUpdate = new BackgroundRecompute<>(
+                () -> filteredData.prepareFilter(currentFilter(typeFilter, categoryFilter, fromFilter, toFilter, amountFilter, searchField)),
+                LedgerIndex.Query::resolve,
+                filteredData::applyFilter);
+        typeFilter.setOnAction(e -> filterUpdate.request());
+        categoryFilter.setOnAction(e -> filterUpdate.request());
+        fromFilter.setOnAction(e -> filterUpdate.request());
+        toFilter.setOnAction(e -> filterUpdate.request());
+        amountFilter.setOnAction(e -> filterUpdate.request());
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> filterUpdate.request());
 
         TableView<TransactionEntry> table = new TableView<>();
         table.setColumnResizePolicy((param) -> true);
 
+        IndexedSortedList sortedData = new IndexedSortedList(filteredData, transactionList);
 
-        // Table columns
-        TableColumn<TransactionEntry, String> titleCol = new TableColumn<>("Title");
-        titleCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getTitle()));
-        titleCol.setCellFactory(col -> {
-            return new TableCell<>() {
-                @Override
-                protected void updateItem(String item, boolean empty) {
-                    super.updateItem(item, empty);
-                    if (empty || item == null) {
-                        setText(null);
-                        setGraphic(null);
-                    } else {
-                        Label link = new Label(item);
-                        link.setStyle("-fx-text-fill: blue; -fx-underline: true; -fx-cursor: hand;");
-                        link.setOnMouseClicked(e -> {
-                            TransactionEntry selected = getTableView().getItems().get(getIndex());
-                            showEditTransaction(selected, transactionList);
-                        });
-                        setGraphic(link);
-                    }
-                }
-            };
-        });
 
-        TableColumn<TransactionEntry, Double> amountCol = new TableColumn<>("Amount");
-        amountCol.setCellValueFactory(cell -> new SimpleDoubleProperty(cell.getValue().getAmount()).asObject());
-        amountCol.setSortable(true);
+        // Table columns; cells read the ledger columns directly instead of through value factories
+        TableColumn<TransactionEntry, Void> titleCol = new TableColumn<>("Title");
+        titleCol.setCellFactory(col -> new LedgerTableCell(transactionList, sortedData, LedgerTableCell.Field.TITLE) {
+            // One link label and click handler per cell, reused as the cell scrolls
+            private final Label link = new Label();
 
-        TableColumn<TransactionEntry, String> categoryCol = new TableColumn<>("Category");
-        categoryCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getCategory()));
+            {
+                link.setStyle("-fx-text-fill: blue; -fx-underline: true; -fx-cursor: hand;");
+                link.setOnMouseClicked(e -> {
+                    TransactionEntry selected = getTableView().getItems().get(getIndex());
+                    showEditTransaction(selected, transactionList);
+                });
+            }
 
-        TableColumn<TransactionEntry, String> typeCol = new TableColumn<>("Type");
-        typeCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getType()));
+            @Override
+            protected void show(String text) {
+                setText(null);
+                if (text == null) {
+                    setGraphic(null);
+                } else {
+                    link.setText(text);
+                    setGraphic(link);
+                }
+            }
+        });
+        titleCol.setUserData(LedgerTableCell.Field.TITLE);
 
-        TableColumn<TransactionEntry, LocalDate> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getDate()));
-        dateCol.setSortable(true);
+        TableColumn<TransactionEntry, Void> amountCol = ledgerColumn("Amount", LedgerTableCell.Field.AMOUNT, transactionList, sortedData);
+        TableColumn<TransactionEntry, Void> categoryCol = ledgerColumn("Category", LedgerTableCell.Field.CATEGORY, transactionList, sortedData);
+        TableColumn<TransactionEntry, Void> typeCol = ledgerColumn("Type", LedgerTableCell.Field.TYPE, transactionList, sortedData);
+        TableColumn<TransactionEntry, Void> dateCol = ledgerColumn("Date", LedgerTableCell.Field.DATE, transactionList, sortedData);
 
         TableColumn<TransactionEntry, Void> deleteCol = new TableColumn<>("Delete");
         deleteCol.setCellFactory(col -> new TableCell<>() {
@@ -228,7 +429,7 @@ public class Main extends Application {
                     confirm.setHeaderText(null);
                     confirm.showAndWait().ifPresent(response -> {
                         if (response == ButtonType.YES) {
-                            transactionList.remove(selected);
+                            transactionList.remove(transactionList.indexOfId(selected.getId()));
                         }
                     });
                 });
@@ -244,28 +445,66 @@ public class Main extends Application {
         
         table.getColumns().addAll(titleCol, amountCol, categoryCol, typeCol, dateCol, deleteCol);
 
-        // Sorted list wraps the filtered list
-        SortedList<TransactionEntry> sortedData = new SortedList<>(filteredData);
-        sortedData.comparatorProperty().bind(table.comparatorProperty());
+        // Sorted list wraps the filtered list. The columns have no cell data to compare, so the
+        // sort policy maps the table's sort order onto the date and amount sort indexes, or
+        // onto comparators over the entries for other columns and multi-column sorts
+        table.setSortPolicy(t -> {
+            if (t.getSortOrder().size() == 1 && t.getSortOrder().get(0).getUserData() instanceof LedgerTableCell.Field field
+                    && field.sortKey() != null) {
+                sortedData.setSortIndex(ledgerIndex.getSortIndex(field.sortKey()),
+                    t.getSortOrder().get(0).getSortType() == TableColumn.SortType.DESCENDING);
+                return true;
+            }
+            Comparator<TransactionEntry> comparator = null;
+            for (TableColumn<TransactionEntry, ?> column : t.getSortOrder()) {
+                if (column.getUserData() instanceof LedgerTableCell.Field field) {
+                    Comparator<TransactionEntry> next = field.comparator();
+                    if (column.getSortType() == TableColumn.SortType.DESCENDING) {
+                        next = next.reversed();
+                    }
+                    comparator = comparator == null ? next : comparator.thenComparing(next);
+                }
+            }
+            sortedData.setComparator(comparator);
+            return true;
+        });
         table.setItems(sortedData);
 
-        HBox filters = new HBox(10, new Label("Type:"), typeFilter, new Label("Category:"), categoryFilter);
-        VBox layout = new VBox(10, filters, table);
+        HBox filters = new HBox(10, new Label("Type:"), typeFilter, new Label("Category:"), categoryFilter,
+                new Label("Dates:"), fromFilter, toFilter, new Label("Amount:"), amountFilter);
+        // Undo/redo of any ledger change: adds, edits, deletes and import batches
+        Button undoBtn = new Button("Undo");
+        undoBtn.disableProperty().bind(history.canUndoProperty().not());
+        undoBtn.setOnAction(e -> history.undo());
+        Button redoBtn = new Button("Redo");
+        redoBtn.disableProperty().bind(history.canRedoProperty().not());
+        redoBtn.setOnAction(e -> history.redo());
+
+        HBox search = new HBox(10, new Label("Search:"), searchField, undoBtn, redoBtn);
+        VBox layout = new VBox(10, search, filters, table);
         layout.setPadding(new Insets(15));
         return layout;
     }
 
-    private void applyFilter(ComboBox<String> typeFilter, ComboBox<String> categoryFilter, FilteredList<TransactionEntry> filteredData) {
-        filteredData.setPredicate(entry -> {
-            boolean typeMatches = typeFilter.getValue().equals("All") || entry.getType().equalsIgnoreCase(typeFilter.getValue());
-            boolean categoryMatches = categoryFilter.getValue().equals("All") || entry.getCategory().equalsIgnoreCase(categoryFilter.getValue());
-            return typeMatches && categoryMatches;
-        });
+    private TableColumn<TransactionEntry, Void> ledgerColumn(String name, LedgerTableCell.Field field, ColumnarTransactionList transactionList,
+                                                             IndexedSortedList sortedData) {
+        TableColumn<TransactionEntry, Void> column = new TableColumn<>(name);
+        column.setCellFactory(col -> new LedgerTableCell(transactionList, sortedData, field));
+        column.setUserData(field);
+        return column;
+    }
+
+    private LedgerFilter currentFilter(ComboBox<String> typeFilter, ComboBox<String> categoryFilter, DatePicker fromFilter, DatePicker toFilter,
+                                       ComboBox<String> amountFilter, TextField searchField) {
+        String type = typeFilter.getValue().equals("All") ? null : typeFilter.getValue();
+        String category = categoryFilter.getValue().equals("All") ? null : categoryFilter.getValue();
+        int band = amountFilter.getItems().indexOf(amountFilter.getValue()) - 1;
+        return new LedgerFilter(type, category, fromFilter.getValue(), toFilter.getValue(), band, searchField.getText());
     }
 
 
     //Code for the "Edit Transaction" screen
-    private void showEditTransaction(TransactionEntry selected, ObservableList<TransactionEntry> transactionList) {
+    private void showEditTransaction(TransactionEntry selected, ColumnarTransactionList transactionList) {
         Dialog<TransactionEntry> dialog = new Dialog<>();
         dialog.setTitle("Edit Transaction");
 
@@ -320,14 +559,19 @@ public class Main extends Application {
         });
 
         dialog.showAndWait().ifPresent(updated -> {
-            int index = transactionList.indexOf(selected);
+            int index = transactionList.indexOfId(selected.getId());
             transactionList.set(index, updated);
         });
     }
 
     
     // Summary screen
-    private VBox buildSummaryView(ObservableList<TransactionEntry> transactionList) {
+    private VBox buildSummaryView(LedgerAggregates aggregates, LedgerRollup rollup) {
+        // Period selector; ranges other than All Time are answered from the rollup
+        ComboBox<ReportPeriod> periodBox = new ComboBox<>();
+        periodBox.getItems().setAll(ReportPeriod.values());
+        periodBox.setValue(ReportPeriod.ALL_TIME);
+
         Label incomeLabel = new Label("Total Income: $0.00");
         Label expenseLabel = new Label("Total Expenses: $0.00");
         Label balanceLabel = new Label("Net Balance: $0.00");
@@ -335,83 +579,177 @@ public class Main extends Application {
         // Refresh button
         Button refreshBtn = new Button("Update Summary");
 
-        // Pie chart setup
-        PieChart categoryChart = new PieChart();
-        categoryChart.setTitle("Spending by Category");
-        categoryChart.setLabelsVisible(false);
-        categoryChart.setLegendVisible(false);
-
-
-        // Legend setup (built after pie chart is populated)
+        // Pie chart and legend, updated in place on each refresh
+        CategoryChart categoryChart = new CategoryChart();
         Label legendTitle = new Label("Legend:");
-        VBox legend = new VBox(5);
-
-        // Refresh Button: refreshes summary and pie chart
-        refreshBtn.setOnAction(e -> {
-            double income = transactionList.stream()
-                .filter(t -> t.getType().equalsIgnoreCase("Income"))
-                .mapToDouble(TransactionEntry::getAmount)
-                .sum();
-
-            double expenses = transactionList.stream()
-                .filter(t -> t.getType().equalsIgnoreCase("Expense"))
-                .mapToDouble(TransactionEntry::getAmount)
-                .sum();
 
-            double balance = income - expenses;
-
-            incomeLabel.setText(String.format("Total Income: $%.2f", income));
-            expenseLabel.setText(String.format("Total Expenses: $%.2f", expenses));
-            balanceLabel.setText(String.format("Net Balance: $%.2f", balance));
-
-            if (balance < 0) {
-                showAlert("Warning", "Your balance is negative!");
+        // Labels and chart follow the running totals, so no rescan of the ledger is needed
+        Runnable refresh = () -> {
+            LedgerOperationEvent timing = LedgerMetrics.begin(LedgerMetrics.Operation.SUMMARY);
+            ReportPeriod period = periodBox.getValue();
+            long income;
+            long expense;
+            Map<String, Long> byCategory;
+            if (!ledgerLoaded.get() && savedSummary != null) {
+                // Last session's totals until the journal has been read back
+                income = savedSummary.incomeCents();
+                expense = savedSummary.expenseCents();
+                byCategory = savedSummary.expenseByCategory();
+            } else if (period == ReportPeriod.ALL_TIME) {
+                income = aggregates.getIncomeCents();
+                expense = aggregates.getExpenseCents();
+                byCategory = aggregates.getExpenseByCategory();
+            } else {
+                LocalDate today = LocalDate.now();
+                LocalDate from = period.start(today);
+                LocalDate to = period.end(today);
+                income = rollup.total("Income", from, to);
+                expense = rollup.total("Expense", from, to);
+                byCategory = rollup.totalsByCategory("Expense", from, to);
             }
+            incomeLabel.setText(String.format("Total Income: $%.2f", ColumnarTransactionList.fromCents(income)));
+            expenseLabel.setText(String.format("Total Expenses: $%.2f", ColumnarTransactionList.fromCents(expense)));
+            balanceLabel.setText(String.format("Net Balance: $%.2f", ColumnarTransactionList.fromCents(income - expense)));
 
             // Update chart and legend
-            updatePieChart(categoryChart, legend, transactionList);
+            categoryChart.update(byCategory);
+            timing.finish(byCategory.size());
+        };
+        // The rollup is registered after the aggregates, so both are current when it fires.
+        // A burst of changes (e.g. import batches) redraws the chart once, not once per change
+        BackgroundRecompute<Void, Void> summaryUpdate = BackgroundRecompute.onFxThread(refresh);
+        rollup.revisionProperty().addListener((obs, oldVal, newVal) -> summaryUpdate.request());
+        periodBox.setOnAction(e -> refresh.run());
+        periodBox.disableProperty().bind(ledgerLoaded.not());
+        refreshBtn.disableProperty().bind(ledgerLoaded.not());
+        ledgerLoaded.addListener((obs, wasLoaded, loaded) -> refresh.run());
+
+        // Refresh Button: refreshes summary and checks the balance
+        refreshBtn.setOnAction(e -> {
+            refresh.run();
+            if (aggregates.getBalanceCents() < 0) {
+                showAlert("Warning", "Your balance is negative!");
+            }
         });
 
-        
-        refreshBtn.fire();
+        refresh.run();
 
-        VBox layout = new VBox(15, incomeLabel, expenseLabel, balanceLabel, refreshBtn, categoryChart, legendTitle, legend);
+        HBox periodRow = new HBox(10, new Label("Period:"), periodBox);
+        VBox layout = new VBox(15, periodRow, incomeLabel, expenseLabel, balanceLabel, refreshBtn,
+            categoryChart.getChart(), legendTitle, categoryChart.getLegend());
         layout.setPadding(new Insets(15));
         return layout;
     }
 
-    private void updatePieChart(PieChart chart, VBox legend, ObservableList<TransactionEntry> transactionList) {
-        Map<String, Double> categoryTotals = new HashMap<>();
-
-        for (TransactionEntry entry : transactionList) {
-            if (entry.getType().equalsIgnoreCase("Expense")) {
-                categoryTotals.merge(entry.getCategory(), entry.getAmount(), Double::sum);
+    // Indexes the journal on a background thread, which the first time takes one pass over it
+    private void showBrowser(Stage primaryStage, Path journalPath) {
+        VBox root = new VBox(new Label("Indexing " + journalPath + "..."));
+        root.setPadding(new Insets(10));
+        Thread.ofVirtual().name("ledger-index").start(() -> {
+            try {
+                LedgerPageStore store = LedgerPageStore.open(journalPath);
+                Platform.runLater(() -> {
+                    LedgerBrowser browser = new LedgerBrowser(store);
+                    root.getChildren().setAll(browser.getView());
+                    VBox.setVgrow(browser.getView(), Priority.ALWAYS);
+                });
+            } catch (IOException | RuntimeException ex) {
+                Platform.runLater(() -> showAlert("Storage Error", "Could not open the ledger journal: " + ex.getMessage()));
             }
-        }
-
-        chart.getData().clear();
-        legend.getChildren().clear();
-
-        String[] colors = {
-            "#e6194b", "#3cb44b", "#ffe119", "#4363d8", "#f58231",
-            "#911eb4", "#46f0f0", "#f032e6", "#bcf60c", "#fabebe"
-        };
+        });
+        primaryStage.setTitle("Personal Budget Tracker (read-only)");
+        primaryStage.setScene(new Scene(root, 900, 500));
+        primaryStage.show();
+    }
 
-        int i = 0;
-        for (Map.Entry<String, Double> entry : categoryTotals.entrySet()) {
-            PieChart.Data slice = new PieChart.Data(entry.getKey(), entry.getValue());
-            chart.getData().add(slice);
+    // Reads the journal on a background thread, then adds it to the ledger a batch per FX
+    // event; only after that does every change go to the journal and into undo history
+    private void openJournal(Path journalPath) {
+        Thread.ofVirtual().name("ledger-load").start(() -> {
+            // Registering the periodic statistics starts Flight Recorder's metadata, about a
+            // quarter of a second that is kept off the FX thread and the first frame
+            LedgerMetrics.watchLedger(transactionList::size);
+            List<TransactionEntry> entries;
+            boolean renumbered = false;
+            try {
+                journal = LedgerJournal.open(journalPath);
+                List<TransactionEntry> replayed = journal.replay();
+                entries = ColumnarTransactionList.withDenseIds(replayed);
+                renumbered = entries != replayed;
+            } catch (IOException ex) {
+                journal = null;
+                entries = List.of();
+                String message = ex.getMessage();
+                Platform.runLater(() -> showAlert("Storage Error", "Could not open the ledger journal: " + message));
+            }
+            List<TransactionEntry> restored = entries;
+            boolean rewrite = renumbered;
+            Platform.runLater(() -> transactionList.ensureCapacity(restored.size()));
+            for (int from = 0; from < restored.size(); from += LOAD_BATCH) {
+                List<TransactionEntry> batch = restored.subList(from, Math.min(from + LOAD_BATCH, restored.size()));
+                Platform.runLater(() -> transactionList.addAll(batch));
+            }
+            Platform.runLater(() -> {
+                try {
+                    if (journal != null) {
+                        // New row IDs must reach the file before any change refers to them
+                        if (rewrite) {
+                            journal.rewrite(transactionList);
+                        } else {
+                            journal.compactIfNeeded(transactionList);
+                        }
+                        journal.setOnFailure(ex -> Platform.runLater(() -> journalFailed(ex)));
+                        transactionList.addListener(journal);
+                    }
+                } catch (IOException ex) {
+                    showAlert("Storage Error", "Could not compact the ledger journal: " + ex.getMessage());
+                }
+                history = new LedgerHistory(transactionList); // undo starts from the restored ledger
+                savedSummary = null;
+                ledgerLoaded.set(true);
+            });
+        });
+    }
 
-            // Assign color to slice
-            final String color = colors[i % colors.length];
-            slice.getNode().setStyle("-fx-pie-color: " + color + ";");
+    // A change could not be written, so the journal stopped following the ledger; retrying
+    // writes the whole ledger out again
+    private void journalFailed(IOException error) {
+        ButtonType retry = new ButtonType("Retry", ButtonBar.ButtonData.OK_DONE);
+        Alert alert = new Alert(Alert.AlertType.ERROR, "Could not write to the ledger journal: " + error.getMessage()
+            + "\nChanges are not being saved until the journal is written again.", retry, ButtonType.CANCEL);
+        alert.setTitle("Storage Error");
+        alert.setHeaderText(null);
+        if (alert.showAndWait().orElse(ButtonType.CANCEL) != retry) {
+            return;
+        }
+        try {
+            journal.recover(transactionList);
+        } catch (IOException ex) {
+            journalFailed(ex);
+        }
+    }
 
-            // Add to legend
-            Label legendItem = new Label(entry.getKey());
-            legendItem.setStyle("-fx-background-color: " + color + "; -fx-text-fill: white; -fx-padding: 2 6 2 6;");
-            legend.getChildren().add(legendItem);
+    private void loadRules() {
+        try {
+            categoryRules = CategoryRules.load(CategoryRules.defaultPath());
+        } catch (IOException ex) {
+            showAlert("Rules Error", "Could not read the categorization rules: " + ex.getMessage());
+        }
+    }
 
-            i++;
+    @Override
+    public void stop() throws Exception {
+        if (journal != null) {
+            journal.close();
+            // Totals are only complete once the whole ledger was loaded, and only match the
+            // journal while it keeps up with the ledger
+            if (ledgerLoaded.get() && !journal.isFailed()) {
+                try {
+                    SummaryCache.of(aggregates).save(journal.getPath());
+                } catch (IOException ex) {
+                    // Next start shows the summary once the ledger is loaded instead
+                }
+            }
         }
     }
 
@@ -425,7 +763,12 @@ public class Main extends Application {
         alert.showAndWait();
     }
 
+    // "--report ..." runs the headless report instead of the UI; see LedgerReport
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--report")) {
+            LedgerReport.main(args);
+            return;
+        }
         launch(args);
     }
 }
@@ -0,0 +1,61 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableListBase;
+
+import java.util.List;
+
+// Observable list over the current LedgerPageView, for binding a table to a ledger that is
+// read from disk. Switching views (a new sort or filter) is one replace-all change; the
+// removed rows are the old view itself, so nothing is read to report them.
+public class PagedLedgerList extends ObservableListBase<TransactionEntry> {
+
+    private LedgerPageView view;
+
+    public PagedLedgerList(LedgerPageView view) {
+        this.view = view;
+    }
+
+    public LedgerPageView getView() { return view; }
+
+    public void setView(LedgerPageView view) {
+        LedgerPageView old = this.view;
+        this.view = view;
+        if (!old.isEmpty() || !view.isEmpty()) {
+            fireChange(new ReplaceAllChange(old));
+        }
+    }
+
+    @Override
+    public TransactionEntry get(int index) {
+        return view.get(index);
+    }
+
+    @Override
+    public int size() { return view.size(); }
+
+    private final class ReplaceAllChange extends ListChangeListener.Change<TransactionEntry> {
+        private final List<TransactionEntry> removed;
+        private boolean onChange;
+
+        ReplaceAllChange(List<TransactionEntry> removed) {
+            super(PagedLedgerList.this);
+            this.removed = removed;
+        }
+
+        @Override
+        public boolean next() {
+            if (onChange) {
+                return false;
+            }
+            onChange = true;
+            return true;
+        }
+
+        @Override public void reset() { onChange = false; }
+        @Override public int getFrom() { return 0; }
+        @Override public int getTo() { return view.size(); }
+        @Override public List<TransactionEntry> getRemoved() { return removed; }
+        @Override protected int[] getPermutation() { return new int[0]; }
+    }
+}
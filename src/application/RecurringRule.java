@@ -0,0 +1,209 @@
+package application;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.function.LongConsumer;
+
+// A transaction that repeats, such as rent or a paycheck: a template entry plus a schedule
+// of every `every` days, weeks or months from its start date, optionally until an end date.
+// Monthly occurrences are counted from the start date, so a rule starting on the 31st falls
+// on the last day of shorter months and returns to the 31st after them. Occurrences are
+// numbered 0, 1, 2, ... and located arithmetically, so counting the ones in a date range
+// costs the same for a range of a week or of thirty years.
+public record RecurringRule(String title, long cents, String category, String type,
+                            LocalDate start, Unit unit, int every, LocalDate until) {
+
+    public enum Unit {
+        DAYS("day"), WEEKS("week"), MONTHS("month");
+
+        private final String word;
+
+        Unit(String word) {
+            this.word = word;
+        }
+
+        @Override
+        public String toString() {
+            return word.substring(0, 1).toUpperCase(Locale.ROOT) + word.substring(1) + "s";
+        }
+    }
+
+    public RecurringRule {
+        if (every < 1) {
+            throw new IllegalArgumentException("a rule must repeat at least every 1 " + unit.word);
+        }
+        if (until != null && until.isBefore(start)) {
+            throw new IllegalArgumentException("rule ends before it starts");
+        }
+    }
+
+    // The template's date is the first occurrence; its amount is taken as positive
+    public static RecurringRule of(TransactionEntry template, Unit unit, int every, LocalDate until) {
+        return new RecurringRule(template.getTitle(), ColumnarTransactionList.toCents(Math.abs(template.getAmount())),
+            template.getCategory(), template.getType(), template.getDate(), unit, every, until);
+    }
+
+    // The entry this rule adds on the given day
+    public TransactionEntry entryOn(LocalDate date) {
+        return new TransactionEntry(title, ColumnarTransactionList.fromCents(cents), category, type, date);
+    }
+
+    // Effect on the balance of one occurrence
+    public long signedCents() {
+        return type.equalsIgnoreCase("Income") ? cents : -cents;
+    }
+
+    // Epoch day of occurrence k
+    public long dayOf(long k) {
+        return switch (unit) {
+            case DAYS -> start.toEpochDay() + k * every;
+            case WEEKS -> start.toEpochDay() + k * every * 7;
+            case MONTHS -> start.plusMonths(k * every).toEpochDay();
+        };
+    }
+
+    // Number of occurrences on the given day or later that are still before it, i.e. the
+    // index of the first occurrence on or after the day (ignoring the end date)
+    public long indexOnOrAfter(long day) {
+        long startDay = start.toEpochDay();
+        if (day <= startDay) {
+            return 0;
+        }
+        if (unit != Unit.MONTHS) {
+            long period = unit == Unit.WEEKS ? every * 7L : every;
+            return Math.ceilDiv(day - startDay, period);
+        }
+        // The month arithmetic lands on or just before the answer
+        LocalDate date = LocalDate.ofEpochDay(day);
+        long months = (date.getYear() - start.getYear()) * 12L + date.getMonthValue() - start.getMonthValue();
+        long k = Math.max(0, Math.floorDiv(months, every));
+        while (dayOf(k) < day) {
+            k++;
+        }
+        return k;
+    }
+
+    // Occurrences within [fromDay, toDay]
+    public long count(long fromDay, long toDay) {
+        long end = lastDay(toDay);
+        return end < fromDay ? 0 : indexOnOrAfter(end + 1) - indexOnOrAfter(fromDay);
+    }
+
+    // Epoch days of the occurrences within [fromDay, toDay], in order
+    public void forEachDay(long fromDay, long toDay, LongConsumer action) {
+        long end = lastDay(toDay);
+        for (long k = indexOnOrAfter(fromDay); ; k++) {
+            long day = dayOf(k);
+            if (day > end) {
+                return;
+            }
+            action.accept(day);
+        }
+    }
+
+    private long lastDay(long toDay) {
+        return until == null ? toDay : Math.min(toDay, until.toEpochDay());
+    }
+
+    // ---- Text form, one line of forecast.txt ----
+    //
+    //   monthly from 2024-01-01: Expense, 1200.00, Bills, Rent
+    //   every 2 weeks from 2024-01-05 until 2025-06-30: Income, 2000.00, Income, Paycheck
+    //
+    // daily, weekly, monthly and yearly are short for every 1 day, 1 week, 1 month and
+    // 12 months; the title is last, so it may contain commas.
+
+    public static RecurringRule parse(String line) {
+        int colon = line.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("expected \"<schedule> from <date>: <type>, <amount>, <category>, <title>\"");
+        }
+        String[] words = line.substring(0, colon).strip().toLowerCase(Locale.ROOT).split("\\s+");
+        int at;
+        Unit unit;
+        int every = 1;
+        switch (words[0]) {
+            case "daily" -> { unit = Unit.DAYS; at = 1; }
+            case "weekly" -> { unit = Unit.WEEKS; at = 1; }
+            case "monthly" -> { unit = Unit.MONTHS; at = 1; }
+            case "yearly" -> { unit = Unit.MONTHS; every = 12; at = 1; }
+            case "every" -> {
+                if (words.length < 3) {
+                    throw new IllegalArgumentException("expected \"every <n> days|weeks|months\"");
+                }
+                try {
+                    every = Integer.parseInt(words[1]);
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("expected a number after every: \"" + words[1] + "\"");
+                }
+                unit = unitOf(words[2]);
+                at = 3;
+            }
+            default -> throw new IllegalArgumentException("unknown schedule \"" + words[0] + "\"");
+        }
+        boolean dates = words.length > at && words[at].equals("from")
+            && (words.length == at + 2 || words.length == at + 4 && words[at + 2].equals("until"));
+        if (!dates) {
+            throw new IllegalArgumentException("expected \"from <date> [until <date>]\" after the schedule");
+        }
+        LocalDate start;
+        LocalDate until;
+        try {
+            start = LocalDate.parse(words[at + 1]);
+            until = words.length == at + 4 ? LocalDate.parse(words[at + 3]) : null;
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("dates are written yyyy-mm-dd: " + ex.getParsedString());
+        }
+
+        String[] fields = line.substring(colon + 1).split(",", 4);
+        if (fields.length < 4 || fields[3].isBlank()) {
+            throw new IllegalArgumentException("expected \"<type>, <amount>, <category>, <title>\" after the colon");
+        }
+        String type = fields[0].strip();
+        if (!type.equalsIgnoreCase("Income") && !type.equalsIgnoreCase("Expense")) {
+            throw new IllegalArgumentException("type must be Income or Expense");
+        }
+        double amount;
+        try {
+            amount = Double.parseDouble(fields[1].strip());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("amount must be a number: \"" + fields[1].strip() + "\"");
+        }
+        return new RecurringRule(fields[3].strip(), ColumnarTransactionList.toCents(Math.abs(amount)), fields[2].strip(),
+            type.equalsIgnoreCase("Income") ? "Income" : "Expense", start, unit, every, until);
+    }
+
+    private static Unit unitOf(String word) {
+        for (Unit unit : Unit.values()) {
+            if (word.equals(unit.word) || word.equals(unit.word + "s")) {
+                return unit;
+            }
+        }
+        throw new IllegalArgumentException("expected days, weeks or months: \"" + word + "\"");
+    }
+
+    // Schedule in words, e.g. "monthly" or "every 2 weeks"
+    public String schedule() {
+        if (every == 1) {
+            return switch (unit) {
+                case DAYS -> "daily";
+                case WEEKS -> "weekly";
+                case MONTHS -> "monthly";
+            };
+        }
+        return "every " + every + " " + unit.word + "s";
+    }
+
+    // The line parse reads back
+    public String format() {
+        return schedule() + " from " + start + (until != null ? " until " + until : "") + ": "
+            + type + ", " + String.format(Locale.ROOT, "%.2f", ColumnarTransactionList.fromCents(cents)) + ", "
+            + category + ", " + title;
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,57 @@
+package application;
+
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// Date ranges offered by the summary's period selector, relative to today
+public enum ReportPeriod {
+    ALL_TIME("All Time"),
+    THIS_MONTH("This Month"),
+    LAST_MONTH("Last Month"),
+    THIS_QUARTER("This Quarter"),
+    LAST_QUARTER("Last Quarter"),
+    THIS_YEAR("This Year"),
+    LAST_YEAR("Last Year");
+
+    private final String label;
+
+    ReportPeriod(String label) {
+        this.label = label;
+    }
+
+    // First day of the period, or null for All Time
+    public LocalDate start(LocalDate today) {
+        switch (this) {
+            case THIS_MONTH: return today.withDayOfMonth(1);
+            case LAST_MONTH: return today.withDayOfMonth(1).minusMonths(1);
+            case THIS_QUARTER: return quarterStart(today);
+            case LAST_QUARTER: return quarterStart(today).minusMonths(3);
+            case THIS_YEAR: return today.withDayOfYear(1);
+            case LAST_YEAR: return today.withDayOfYear(1).minusYears(1);
+            default: return null;
+        }
+    }
+
+    // Last day of the period, or null for All Time
+    public LocalDate end(LocalDate today) {
+        switch (this) {
+            case THIS_MONTH:
+            case LAST_MONTH: return start(today).with(TemporalAdjusters.lastDayOfMonth());
+            case THIS_QUARTER:
+            case LAST_QUARTER: return start(today).plusMonths(3).minusDays(1);
+            case THIS_YEAR:
+            case LAST_YEAR: return start(today).with(TemporalAdjusters.lastDayOfYear());
+            default: return null;
+        }
+    }
+
+    private static LocalDate quarterStart(LocalDate date) {
+        int firstMonth = (date.getMonthValue() - 1) / 3 * 3 + 1;
+        return LocalDate.of(date.getYear(), firstMonth, 1);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
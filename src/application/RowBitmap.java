@@ -0,0 +1,369 @@
+package application;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+// Compressed set of row numbers (ledger positions or row IDs), split into 65536-row containers in the style of a
+// roaring bitmap: a sparse container is a sorted char[] of low bits, a dense one is a
+// 1024-word bitset. Memory follows the number of rows set rather than the ledger size.
+// snapshot() shares containers copy-on-write, so a frozen view can be read on another
+// thread while this bitmap keeps changing.
+public class RowBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    // Each slot holds null, a char[] (array container) or a long[] (bitmap container)
+    private Object[] containers = new Object[0];
+    private int[] cardinalities = new int[0];
+    // Containers also referenced by a snapshot; cloned before they are next changed
+    private boolean[] shared = new boolean[0];
+
+    public RowBitmap() {
+    }
+
+    private RowBitmap(int slots) {
+        containers = new Object[slots];
+        cardinalities = new int[slots];
+        shared = new boolean[slots];
+    }
+
+    public static RowBitmap of(int... rows) {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row : rows) {
+            bitmap.add(row);
+        }
+        return bitmap;
+    }
+
+    public boolean isEmpty() { return cardinality() == 0; }
+
+    public int cardinality() {
+        int total = 0;
+        for (int c : cardinalities) {
+            total += c;
+        }
+        return total;
+    }
+
+    public boolean contains(int row) {
+        int hi = row >>> 16;
+        if (hi >= containers.length || containers[hi] == null) {
+            return false;
+        }
+        char lo = (char) row;
+        Object container = containers[hi];
+        if (container instanceof long[] words) {
+            return (words[lo >>> 6] & (1L << lo)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinalities[hi], lo) >= 0;
+    }
+
+    public void add(int row) {
+        int hi = row >>> 16;
+        char lo = (char) row;
+        if (hi >= containers.length) {
+            containers = Arrays.copyOf(containers, Math.max(hi + 1, containers.length * 2));
+            cardinalities = Arrays.copyOf(cardinalities, containers.length);
+            shared = Arrays.copyOf(shared, containers.length);
+        }
+        Object container = writable(hi);
+        if (container == null) {
+            containers[hi] = new char[] {lo, 0, 0, 0};
+            cardinalities[hi] = 1;
+        } else if (container instanceof long[] words) {
+            long bit = 1L << lo;
+            if ((words[lo >>> 6] & bit) == 0) {
+                words[lo >>> 6] |= bit;
+                cardinalities[hi]++;
+            }
+        } else {
+            char[] values = (char[]) container;
+            int card = cardinalities[hi];
+            int at = card > 0 && values[card - 1] < lo ? -(card + 1) : Arrays.binarySearch(values, 0, card, lo);
+            if (at >= 0) {
+                return;
+            }
+            if (card == ARRAY_MAX) {
+                long[] words = toWords(values, card);
+                words[lo >>> 6] |= 1L << lo;
+                containers[hi] = words;
+            } else {
+                int insert = -at - 1;
+                if (card == values.length) {
+                    values = Arrays.copyOf(values, Math.min(ARRAY_MAX, card * 2));
+                    containers[hi] = values;
+                }
+                System.arraycopy(values, insert, values, insert + 1, card - insert);
+                values[insert] = lo;
+            }
+            cardinalities[hi] = card + 1;
+        }
+    }
+
+    public void remove(int row) {
+        int hi = row >>> 16;
+        if (hi >= containers.length || containers[hi] == null) {
+            return;
+        }
+        char lo = (char) row;
+        Object container = writable(hi);
+        if (container instanceof long[] words) {
+            long bit = 1L << lo;
+            if ((words[lo >>> 6] & bit) != 0) {
+                words[lo >>> 6] &= ~bit;
+                cardinalities[hi]--;
+                normalize(hi);
+            }
+        } else {
+            char[] values = (char[]) container;
+            int card = cardinalities[hi];
+            int at = Arrays.binarySearch(values, 0, card, lo);
+            if (at >= 0) {
+                System.arraycopy(values, at + 1, values, at, card - at - 1);
+                cardinalities[hi] = card - 1;
+                normalize(hi);
+            }
+        }
+    }
+
+    public RowBitmap and(RowBitmap other) {
+        int slots = Math.min(containers.length, other.containers.length);
+        RowBitmap result = new RowBitmap(slots);
+        for (int hi = 0; hi < slots; hi++) {
+            Object a = containers[hi];
+            Object b = other.containers[hi];
+            if (a == null || b == null) {
+                continue;
+            }
+            if (a instanceof long[] wa && b instanceof long[] wb) {
+                long[] words = new long[BITMAP_WORDS];
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = wa[w] & wb[w];
+                }
+                result.containers[hi] = words;
+                result.cardinalities[hi] = bitCount(words);
+            } else if (a instanceof char[] ca) {
+                intersectArray(result, hi, ca, cardinalities[hi], other, hi);
+            } else {
+                intersectArray(result, hi, (char[]) b, other.cardinalities[hi], this, hi);
+            }
+            result.normalize(hi);
+        }
+        return result;
+    }
+
+    public RowBitmap or(RowBitmap other) {
+        int slots = Math.max(containers.length, other.containers.length);
+        RowBitmap result = new RowBitmap(slots);
+        for (int hi = 0; hi < slots; hi++) {
+            Object a = hi < containers.length ? containers[hi] : null;
+            Object b = hi < other.containers.length ? other.containers[hi] : null;
+            if (a == null && b == null) {
+                continue;
+            }
+            long[] words = new long[BITMAP_WORDS];
+            orInto(words, a, a == null ? 0 : cardinalities[hi]);
+            orInto(words, b, b == null ? 0 : other.cardinalities[hi]);
+            result.containers[hi] = words;
+            result.cardinalities[hi] = bitCount(words);
+            result.normalize(hi);
+        }
+        return result;
+    }
+
+    // Union of any number of bitmaps in one pass per container slot, instead of a chain of
+    // or() calls that would build every intermediate result
+    public static RowBitmap union(List<RowBitmap> bitmaps) {
+        if (bitmaps.size() == 1) {
+            return bitmaps.get(0);
+        }
+        int slots = 0;
+        for (RowBitmap bitmap : bitmaps) {
+            slots = Math.max(slots, bitmap.containers.length);
+        }
+        RowBitmap result = new RowBitmap(slots);
+        for (int hi = 0; hi < slots; hi++) {
+            long[] words = null;
+            for (RowBitmap bitmap : bitmaps) {
+                if (hi < bitmap.containers.length && bitmap.containers[hi] != null) {
+                    if (words == null) {
+                        words = new long[BITMAP_WORDS];
+                    }
+                    orInto(words, bitmap.containers[hi], bitmap.cardinalities[hi]);
+                }
+            }
+            if (words != null) {
+                result.containers[hi] = words;
+                result.cardinalities[hi] = bitCount(words);
+                result.normalize(hi);
+            }
+        }
+        return result;
+    }
+
+    // Frozen copy in O(containers): both sides share the container arrays until one changes
+    public RowBitmap snapshot() {
+        RowBitmap snapshot = new RowBitmap();
+        snapshot.containers = containers.clone();
+        snapshot.cardinalities = cardinalities.clone();
+        snapshot.shared = new boolean[containers.length];
+        Arrays.fill(snapshot.shared, true);
+        Arrays.fill(shared, true);
+        return snapshot;
+    }
+
+    public RowBitmap copy() {
+        RowBitmap copy = new RowBitmap(containers.length);
+        for (int hi = 0; hi < containers.length; hi++) {
+            Object container = containers[hi];
+            if (container instanceof long[] words) {
+                copy.containers[hi] = words.clone();
+            } else if (container != null) {
+                copy.containers[hi] = ((char[]) container).clone();
+            }
+            copy.cardinalities[hi] = cardinalities[hi];
+        }
+        return copy;
+    }
+
+    public void forEach(IntConsumer action) {
+        forEachFrom(0, action);
+    }
+
+    public int[] toArray() {
+        int[] rows = new int[cardinality()];
+        int[] count = new int[1];
+        forEach(row -> rows[count[0]++] = row);
+        return rows;
+    }
+
+    private void forEachFrom(int from, IntConsumer action) {
+        for (int hi = from >>> 16; hi < containers.length; hi++) {
+            Object container = containers[hi];
+            if (container == null) {
+                continue;
+            }
+            int base = hi << 16;
+            int minLo = hi == from >>> 16 ? from & 0xFFFF : 0;
+            if (container instanceof long[] words) {
+                for (int w = minLo >>> 6; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    if (w == minLo >>> 6) {
+                        word &= -1L << minLo;
+                    }
+                    while (word != 0) {
+                        action.accept(base + (w << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) container;
+                int card = cardinalities[hi];
+                for (int i = 0; i < card; i++) {
+                    if (values[i] >= minLo) {
+                        action.accept(base + values[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void intersectArray(RowBitmap result, int hi, char[] values, int card, RowBitmap other, int otherHi) {
+        char[] out = new char[card];
+        int n = 0;
+        Object container = other.containers[otherHi];
+        if (container instanceof long[] words) {
+            for (int i = 0; i < card; i++) {
+                char lo = values[i];
+                if ((words[lo >>> 6] & (1L << lo)) != 0) {
+                    out[n++] = lo;
+                }
+            }
+        } else {
+            char[] others = (char[]) container;
+            int otherCard = other.cardinalities[otherHi];
+            int j = 0;
+            for (int i = 0; i < card && j < otherCard; ) {
+                if (values[i] < others[j]) {
+                    i++;
+                } else if (values[i] > others[j]) {
+                    j++;
+                } else {
+                    out[n++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+        }
+        result.containers[hi] = out;
+        result.cardinalities[hi] = n;
+    }
+
+    private static void orInto(long[] words, Object container, int card) {
+        if (container instanceof long[] source) {
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                words[w] |= source[w];
+            }
+        } else if (container != null) {
+            char[] values = (char[]) container;
+            for (int i = 0; i < card; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+        }
+    }
+
+    // The slot's container, cloned first if a snapshot still references it
+    private Object writable(int hi) {
+        Object container = containers[hi];
+        if (shared[hi]) {
+            if (container instanceof long[] words) {
+                container = words.clone();
+            } else if (container != null) {
+                container = ((char[]) container).clone();
+            }
+            containers[hi] = container;
+            shared[hi] = false;
+        }
+        return container;
+    }
+
+    // Picks the cheaper container for the current cardinality of a slot
+    private void normalize(int hi) {
+        int card = cardinalities[hi];
+        Object container = containers[hi];
+        if (card == 0) {
+            containers[hi] = null;
+        } else if (container instanceof long[] words && card < ARRAY_MAX / 2) {
+            char[] values = new char[card];
+            int n = 0;
+            for (int w = 0; w < BITMAP_WORDS; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            containers[hi] = values;
+        } else if (container instanceof char[] values && card > ARRAY_MAX) {
+            containers[hi] = toWords(values, card);
+        }
+    }
+
+    private static long[] toWords(char[] values, int card) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int i = 0; i < card; i++) {
+            words[values[i] >>> 6] |= 1L << values[i];
+        }
+        return words;
+    }
+
+    private static int bitCount(long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Maps a small set of repeating strings (categories, types) to dense int codes
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    // Returns the code for value, assigning the next free code the first time it is seen
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    // Returns the code for value, or -1 if it has never been encoded
+    public int lookup(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) { return values.get(code); }
+    public int size() { return values.size(); }
+
+    // Values by code, a copy that other threads can read while new values are added
+    public String[] toArray() { return values.toArray(new String[0]); }
+}
@@ -0,0 +1,77 @@
+package application;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// The all-time summary as of the last clean exit, saved next to the journal so the Summary
+// tab has totals to show before the journal has been read back. It is stamped with the
+// journal's size and modification time and ignored once the journal no longer matches,
+// e.g. after a crash or when another copy of the app wrote to it.
+public record SummaryCache(long incomeCents, long expenseCents, Map<String, Long> expenseByCategory) {
+
+    private static final int MAGIC = 0x42545353; // "BTSS"
+    private static final int VERSION = 1;
+
+    public static SummaryCache of(LedgerAggregates aggregates) {
+        return new SummaryCache(aggregates.getIncomeCents(), aggregates.getExpenseCents(), aggregates.getExpenseByCategory());
+    }
+
+    // <journal>.summary
+    public static Path pathFor(Path journalPath) {
+        return journalPath.resolveSibling(journalPath.getFileName() + ".summary");
+    }
+
+    // The saved summary, or null if there is none or the journal changed since it was saved
+    public static SummaryCache load(Path journalPath) {
+        Path file = pathFor(journalPath);
+        if (!Files.exists(file) || !Files.exists(journalPath)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION
+                    || in.readLong() != Files.size(journalPath)
+                    || in.readLong() != Files.getLastModifiedTime(journalPath).toMillis()) {
+                return null;
+            }
+            long income = in.readLong();
+            long expense = in.readLong();
+            int categories = in.readInt();
+            Map<String, Long> byCategory = new LinkedHashMap<>();
+            for (int i = 0; i < categories; i++) {
+                byCategory.put(in.readUTF(), in.readLong());
+            }
+            return new SummaryCache(income, expense, Collections.unmodifiableMap(byCategory));
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    // Call once the journal is closed, so the stamp is its final size and time
+    public void save(Path journalPath) throws IOException {
+        Path file = pathFor(journalPath);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(journalPath));
+            out.writeLong(Files.getLastModifiedTime(journalPath).toMillis());
+            out.writeLong(incomeCents);
+            out.writeLong(expenseCents);
+            out.writeInt(expenseByCategory.size());
+            for (Map.Entry<String, Long> entry : expenseByCategory.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,313 @@
+package application;
+
+import javafx.collections.ListChangeListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// N-gram index over transaction titles for as-you-type search. Each 1-, 2- and 3-gram
+// of a title (lower-cased, with a start-of-title marker for prefix queries) maps to a
+// RowBitmap of the stable IDs of the rows whose title has it, so a query costs a few
+// bitmap snapshots however many distinct titles the ledger holds. Inserts and deletes
+// elsewhere in the ledger never shift the postings. A query ANDs its grams with the rest
+// of the filter and confirms longer queries against the candidate rows' titles; both steps
+// run in resolve, off the FX thread.
+public class TitleSearchIndex implements ListChangeListener<TransactionEntry> {
+
+    // Marks the start of a title; a search starting with '^' is a prefix search
+    private static final char START = '\u0001';
+    public static final char PREFIX = '^';
+
+    // Titles by row ID live in fixed-size chunks that are never reallocated, so a query can
+    // read the titles of the rows it saw while new rows are being added
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    private final ColumnarTransactionList ledger;
+    private String[][] titleChunks = new String[0][];
+
+    // Open-addressing map from packed gram to its bitmap of row IDs
+    private long[] gramKeys = new long[1024];
+    private int[] gramSlots = new int[1024];
+    private int gramCount;
+    private final List<RowBitmap> idsByGram = new ArrayList<>();
+    // Grams of the title being indexed, so a gram repeated in one title is visited once
+    private long[] seen = new long[64];
+    // Bitmaps of recently indexed titles by title hash, so a title the ledger repeats (the
+    // same shop, the monthly rent) skips splitting and looking up its grams again
+    private static final int RECENT = 4096;
+    private final String[] recentTitles = new String[RECENT];
+    private final RowBitmap[][] recentGrams = new RowBitmap[RECENT][];
+
+    // Registers itself on the ledger
+    public TitleSearchIndex(ColumnarTransactionList ledger) {
+        this.ledger = ledger;
+        Arrays.fill(gramSlots, -1);
+        for (int row = 0; row < ledger.size(); row++) {
+            add(ledger.idAt(row), ledger.titleAt(row));
+        }
+        ledger.addListener(this);
+    }
+
+    @Override
+    public void onChanged(Change<? extends TransactionEntry> c) {
+        while (c.next()) {
+            if (c.wasPermutated()) {
+                continue; // IDs do not move
+            }
+            if (c.wasRemoved()) {
+                for (TransactionEntry entry : c.getRemoved()) {
+                    remove(entry.getId(), entry.getTitle());
+                }
+            }
+            for (int row = c.getFrom(); c.wasAdded() && row < c.getTo(); row++) {
+                add(ledger.idAt(row), ledger.titleAt(row));
+            }
+        }
+    }
+
+    // Captures what a search needs from the live index: a snapshot of each of its grams'
+    // bitmaps. Cheap, for the FX thread; the result resolves on any thread. A blank search
+    // matches no row here, callers treat it as no filter at all.
+    public Search prepare(String search) {
+        char[] query = normalize(search);
+        if (query == null) {
+            return new Search(null, List.of(), titleChunks);
+        }
+        List<RowBitmap> grams = new ArrayList<>();
+        if (query.length <= 2) {
+            RowBitmap ids = gram(query.length == 1 ? unigram(query[0]) : bigram(query[0], query[1]), false);
+            grams.add(ids == null ? new RowBitmap() : ids.snapshot());
+        } else {
+            for (int i = 0; i + 2 < query.length; i++) {
+                RowBitmap ids = gram(trigram(query[i], query[i + 1], query[i + 2]), false);
+                if (ids == null) {
+                    return new Search(query, List.of(new RowBitmap()), titleChunks);
+                }
+                grams.add(ids.snapshot());
+            }
+        }
+        return new Search(query, grams, titleChunks);
+    }
+
+    // Row IDs whose title contains the search text, ignoring case, or starts with it when
+    // the text begins with '^'
+    public RowBitmap idsMatching(String search) {
+        return prepare(search).resolve(null);
+    }
+
+    // One search bound to the index as it was when prepared
+    public static final class Search {
+        private final char[] query;
+        private final List<RowBitmap> grams;
+        private final String[][] titles;
+
+        private Search(char[] query, List<RowBitmap> grams, String[][] titles) {
+            this.query = query;
+            this.grams = grams;
+            this.titles = titles;
+        }
+
+        // Matching row IDs, among `within` unless it is null. Intersecting with the rest of
+        // the filter first leaves fewer candidate titles to confirm.
+        public RowBitmap resolve(RowBitmap within) {
+            if (query == null) {
+                return new RowBitmap();
+            }
+            List<RowBitmap> parts = new ArrayList<>(grams);
+            parts.sort((x, y) -> Integer.compare(x.cardinality(), y.cardinality()));
+            RowBitmap candidates = within != null ? within : parts.get(0);
+            for (int p = within != null ? 0 : 1; p < parts.size() && !candidates.isEmpty(); p++) {
+                candidates = candidates.and(parts.get(p));
+            }
+            // Up to three characters the gram is the query itself; longer queries only
+            // narrow the rows down to those having every trigram, in any order
+            if (query.length <= 3) {
+                return candidates;
+            }
+            RowBitmap confirmed = new RowBitmap();
+            candidates.forEach(id -> {
+                if (contains(titles[id >>> CHUNK_BITS][id & CHUNK_SIZE - 1], query)) {
+                    confirmed.add(id);
+                }
+            });
+            return confirmed;
+        }
+    }
+
+    // The same test a search applies, for checking single rows as they are added
+    public static boolean matches(String title, String search) {
+        char[] query = normalize(search);
+        return query == null || contains(title, query);
+    }
+
+    public static boolean isBlank(String search) {
+        return normalize(search) == null;
+    }
+
+    // ---- Maintenance ----
+
+    private void add(long id, String title) {
+        int chunk = (int) (id >>> CHUNK_BITS);
+        if (chunk >= titleChunks.length) {
+            titleChunks = Arrays.copyOf(titleChunks, Math.max(chunk + 1, titleChunks.length * 2));
+        }
+        if (titleChunks[chunk] == null) {
+            titleChunks[chunk] = new String[CHUNK_SIZE];
+        }
+        titleChunks[chunk][(int) id & CHUNK_SIZE - 1] = title;
+        int slot = title.hashCode() & RECENT - 1;
+        RowBitmap[] bitmaps = recentGrams[slot];
+        if (bitmaps == null || !title.equals(recentTitles[slot])) {
+            int count = grams(title);
+            bitmaps = new RowBitmap[count];
+            for (int g = 0; g < count; g++) {
+                bitmaps[g] = gram(seen[g], true);
+            }
+            recentTitles[slot] = title;
+            recentGrams[slot] = bitmaps;
+        }
+        for (RowBitmap ids : bitmaps) {
+            ids.add((int) id);
+        }
+    }
+
+    // The title slot is left as it is: no query sees the ID once its postings are gone
+    private void remove(long id, String title) {
+        int count = grams(title);
+        for (int g = 0; g < count; g++) {
+            RowBitmap ids = gram(seen[g], false);
+            if (ids != null) {
+                ids.remove((int) id);
+            }
+        }
+    }
+
+    // Collects the distinct grams of a title into seen[0 .. count)
+    private int grams(String title) {
+        if (seen.length < title.length() * 3) {
+            seen = new long[title.length() * 3];
+        }
+        int count = 0;
+        char previous2 = 0;
+        char previous = START;
+        for (int i = 0; i < title.length(); i++) {
+            char ch = Character.toLowerCase(title.charAt(i));
+            seen[count++] = unigram(ch);
+            seen[count++] = bigram(previous, ch);
+            if (previous2 != 0) {
+                seen[count++] = trigram(previous2, previous, ch);
+            }
+            previous2 = previous;
+            previous = ch;
+        }
+        Arrays.sort(seen, 0, count);
+        int distinct = 0;
+        for (int g = 0; g < count; g++) {
+            if (g == 0 || seen[g] != seen[g - 1]) {
+                seen[distinct++] = seen[g];
+            }
+        }
+        return distinct;
+    }
+
+    // ---- Queries ----
+
+    // Lower-cased query, with the start marker for a prefix search; null if it is blank
+    private static char[] normalize(String search) {
+        if (search == null) {
+            return null;
+        }
+        String text = search.strip();
+        boolean prefix = !text.isEmpty() && text.charAt(0) == PREFIX;
+        if (prefix) {
+            text = text.substring(1);
+        }
+        if (text.isEmpty()) {
+            return null;
+        }
+        char[] query = new char[text.length() + (prefix ? 1 : 0)];
+        int n = 0;
+        if (prefix) {
+            query[n++] = START;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            query[n++] = Character.toLowerCase(text.charAt(i));
+        }
+        return query;
+    }
+
+    // Substring test with the same case folding as the grams, without allocating
+    private static boolean contains(String title, char[] query) {
+        if (query[0] == START) {
+            return title.length() >= query.length - 1 && regionMatches(title, 0, query, 1);
+        }
+        for (int at = 0; at + query.length <= title.length(); at++) {
+            if (regionMatches(title, at, query, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatches(String title, int at, char[] query, int from) {
+        for (int k = from; k < query.length; k++) {
+            if (Character.toLowerCase(title.charAt(at + k - from)) != query[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long unigram(char a) { return 1L << 48 | a; }
+    private static long bigram(char a, char b) { return 2L << 48 | (long) a << 16 | b; }
+    private static long trigram(char a, char b, char c) { return 3L << 48 | (long) a << 32 | (long) b << 16 | c; }
+
+    // Bitmap of row IDs for a gram, created on demand when indexing
+    private RowBitmap gram(long key, boolean create) {
+        int mask = gramKeys.length - 1;
+        int at = slot(key, mask);
+        while (gramSlots[at] >= 0) {
+            if (gramKeys[at] == key) {
+                return idsByGram.get(gramSlots[at]);
+            }
+            at = at + 1 & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        RowBitmap bitmap = new RowBitmap();
+        gramKeys[at] = key;
+        gramSlots[at] = idsByGram.size();
+        idsByGram.add(bitmap);
+        if (++gramCount * 2 > gramKeys.length) {
+            rehash();
+        }
+        return bitmap;
+    }
+
+    // Grams differ in any of their character fields, so every bit of the key is mixed in
+    private static int slot(long key, int mask) {
+        return Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+    }
+
+    private void rehash() {
+        long[] oldKeys = gramKeys;
+        int[] oldSlots = gramSlots;
+        gramKeys = new long[oldKeys.length * 2];
+        gramSlots = new int[oldKeys.length * 2];
+        Arrays.fill(gramSlots, -1);
+        int mask = gramKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] >= 0) {
+                int at = slot(oldKeys[i], mask);
+                while (gramSlots[at] >= 0) {
+                    at = at + 1 & mask;
+                }
+                gramKeys[at] = oldKeys[i];
+                gramSlots[at] = oldSlots[i];
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package application;
 import java.time.LocalDate;
 
 public class TransactionEntry {
+    private final long id; // assigned by the ledger when first added, 0 until then
     private String title;
     private double amount;
     private String category;
@@ -10,6 +11,11 @@ public class TransactionEntry {
     private LocalDate date;
 
     public TransactionEntry(String title, double amount, String category, String type, LocalDate date) {
+        this(0, title, amount, category, type, date);
+    }
+
+    public TransactionEntry(long id, String title, double amount, String category, String type, LocalDate date) {
+        this.id = id;
         this.title = title;
         this.amount = amount;
         this.category = category;
@@ -17,6 +23,7 @@ public class TransactionEntry {
         this.date = date;
     }
 
+    public long getId() { return id; }
     public String getTitle() { return title; }
     public double getAmount() { return amount; }
     public String getCategory() { return category; }
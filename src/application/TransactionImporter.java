@@ -0,0 +1,543 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Streams bank exports (CSV or OFX/QFX) into TransactionEntry batches.
+// CSV files are memory-mapped a window at a time and each window is split at line
+// boundaries and parsed in parallel, so memory stays bounded by the window size no
+// matter how large the file is. Each window is handed to the sink as one batch, which
+// lets the caller commit it to the ledger with a single addAll. Rows without a category
+// are categorized by the user's CategoryRules, falling back to Income or Other.
+public class TransactionImporter {
+
+    static final int WINDOW_SIZE = 16 << 20;
+    static final int OFX_BATCH_SIZE = 1 << 16;
+    private static final int MAX_FIELDS = 64;
+
+    public interface BatchSink {
+        void accept(List<TransactionEntry> batch) throws InterruptedException;
+    }
+
+    public record ImportResult(long imported, long skipped) {}
+
+    private final int windowSize;
+    private final CategoryRules rules;
+
+    public TransactionImporter() {
+        this(WINDOW_SIZE, CategoryRules.NONE);
+    }
+
+    public TransactionImporter(CategoryRules rules) {
+        this(WINDOW_SIZE, rules);
+    }
+
+    public TransactionImporter(int windowSize) {
+        this(windowSize, CategoryRules.NONE);
+    }
+
+    public TransactionImporter(int windowSize, CategoryRules rules) {
+        this.windowSize = windowSize;
+        this.rules = rules;
+    }
+
+    public ImportResult importFile(Path file, BatchSink sink) throws IOException, InterruptedException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ofx") || name.endsWith(".qfx")) {
+            return importOfx(file, sink);
+        }
+        return importCsv(file, sink);
+    }
+
+    // ---- CSV ----
+
+    public ImportResult importCsv(Path file, BatchSink sink) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long imported = 0;
+            long skipped = 0;
+            long position = 0;
+            CsvColumns columns = null;
+
+            while (position < size) {
+                long length = Math.min(windowSize, size - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = (int) length;
+                if (position + length < size) {
+                    end = lastNewline(window, end) + 1;
+                    if (end == 0) {
+                        throw new IOException("Line longer than " + windowSize + " bytes at offset " + position);
+                    }
+                }
+
+                int start = 0;
+                if (columns == null) {
+                    int headerEnd = nextLineStart(window, 0, end);
+                    columns = CsvColumns.fromHeader(new CsvLineReader(window, rules).header(0, headerEnd));
+                    start = headerEnd;
+                }
+
+                CsvColumns mapping = columns;
+                int[] bounds = splitAtLines(window, start, end, Runtime.getRuntime().availableProcessors());
+                List<ParsedChunk> chunks = IntStream.range(0, bounds.length - 1).parallel()
+                        .mapToObj(i -> new CsvLineReader(window.duplicate(), rules).parse(bounds[i], bounds[i + 1], mapping))
+                        .toList();
+
+                List<TransactionEntry> batch = new ArrayList<>();
+                for (ParsedChunk chunk : chunks) {
+                    batch.addAll(chunk.entries);
+                    skipped += chunk.skipped;
+                }
+                if (!batch.isEmpty()) {
+                    sink.accept(batch);
+                    imported += batch.size();
+                }
+                position += end;
+            }
+            return new ImportResult(imported, skipped);
+        }
+    }
+
+    private static int lastNewline(MappedByteBuffer window, int end) {
+        for (int i = end - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int nextLineStart(MappedByteBuffer window, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    // Splits [start, end) into roughly equal pieces that each begin at a line start
+    private static int[] splitAtLines(MappedByteBuffer window, int start, int end, int pieces) {
+        int[] bounds = new int[pieces + 1];
+        bounds[0] = start;
+        int count = 1;
+        for (int i = 1; i < pieces; i++) {
+            int target = start + (int) ((long) (end - start) * i / pieces);
+            int cut = nextLineStart(window, Math.max(target, bounds[count - 1]), end);
+            if (cut > bounds[count - 1] && cut < end) {
+                bounds[count++] = cut;
+            }
+        }
+        bounds[count++] = end;
+        return Arrays.copyOf(bounds, count);
+    }
+
+    private static final class ParsedChunk {
+        final List<TransactionEntry> entries = new ArrayList<>();
+        long skipped;
+    }
+
+    // Column positions found in the header row
+    static final class CsvColumns {
+        int date = -1;
+        int title = -1;
+        int amount = -1;
+        int debit = -1;
+        int credit = -1;
+        int category = -1;
+        int type = -1;
+
+        static CsvColumns fromHeader(List<String> header) throws IOException {
+            CsvColumns columns = new CsvColumns();
+            for (int i = 0; i < header.size(); i++) {
+                String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                switch (name) {
+                    case "date", "posted date", "posting date", "transaction date" -> { if (columns.date < 0) columns.date = i; }
+                    case "title", "description", "name", "payee", "memo" -> { if (columns.title < 0) columns.title = i; }
+                    case "amount" -> columns.amount = i;
+                    case "debit", "withdrawal" -> columns.debit = i;
+                    case "credit", "deposit" -> columns.credit = i;
+                    case "category" -> columns.category = i;
+                    case "type" -> columns.type = i;
+                    default -> { }
+                }
+            }
+            if (columns.date < 0 || columns.title < 0 || (columns.amount < 0 && columns.debit < 0 && columns.credit < 0)) {
+                throw new IOException("CSV header must name date, description and amount (or debit/credit) columns: " + header);
+            }
+            return columns;
+        }
+    }
+
+    // Parses CSV lines straight from the mapped bytes, one instance per worker
+    private static final class CsvLineReader {
+        private final MappedByteBuffer buffer;
+        private final CategoryRules rules;
+        private final int[] fieldStart = new int[MAX_FIELDS];
+        private final int[] fieldEnd = new int[MAX_FIELDS];
+        private final boolean[] fieldEscaped = new boolean[MAX_FIELDS];
+        private final int[] dateParts = new int[3];
+        private final int[] dateDigits = new int[3];
+        private final Map<String, String> interned = new HashMap<>();
+        private byte[] scratch = new byte[256];
+        private int fieldCount;
+
+        CsvLineReader(MappedByteBuffer buffer, CategoryRules rules) {
+            this.buffer = buffer;
+            this.rules = rules;
+        }
+
+        List<String> header(int start, int end) {
+            split(start, end);
+            List<String> names = new ArrayList<>();
+            for (int f = 0; f < fieldCount; f++) {
+                names.add(text(f));
+            }
+            return names;
+        }
+
+        ParsedChunk parse(int start, int end, CsvColumns columns) {
+            ParsedChunk chunk = new ParsedChunk();
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && buffer.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                int contentEnd = lineEnd;
+                if (contentEnd > lineStart && buffer.get(contentEnd - 1) == '\r') {
+                    contentEnd--;
+                }
+                if (contentEnd > lineStart) {
+                    TransactionEntry entry = parseLine(lineStart, contentEnd, columns);
+                    if (entry != null) {
+                        chunk.entries.add(entry);
+                    } else {
+                        chunk.skipped++;
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return chunk;
+        }
+
+        private TransactionEntry parseLine(int start, int end, CsvColumns columns) {
+            split(start, end);
+            if (fieldCount <= Math.max(columns.date, columns.title)) {
+                return null;
+            }
+            int epochDay = parseDate(columns.date);
+            if (epochDay == Integer.MIN_VALUE) {
+                return null;
+            }
+
+            long cents;
+            if (columns.amount >= 0 && columns.amount < fieldCount && fieldStart[columns.amount] < fieldEnd[columns.amount]) {
+                cents = parseCents(columns.amount);
+            } else if (columns.debit < 0 && columns.credit < 0) {
+                return null;
+            } else {
+                long credit = columns.credit >= 0 && columns.credit < fieldCount ? parseCents(columns.credit) : 0;
+                long debit = columns.debit >= 0 && columns.debit < fieldCount ? parseCents(columns.debit) : 0;
+                if (credit == Long.MIN_VALUE || debit == Long.MIN_VALUE) {
+                    return null;
+                }
+                cents = credit - Math.abs(debit);
+            }
+            if (cents == Long.MIN_VALUE) {
+                return null;
+            }
+
+            String type = columns.type >= 0 && columns.type < fieldCount ? normalizeType(text(columns.type)) : null;
+            if (type == null) {
+                type = cents < 0 ? "Expense" : "Income";
+            }
+            String title = text(columns.title).trim();
+            String category = columns.category >= 0 && columns.category < fieldCount ? text(columns.category).trim() : "";
+            if (category.isEmpty()) {
+                category = categorize(rules, title, Math.abs(cents), type, epochDay);
+            }
+
+            return new TransactionEntry(title, ColumnarTransactionList.fromCents(Math.abs(cents)),
+                    intern(category), type, LocalDate.ofEpochDay(epochDay));
+        }
+
+        // Records field boundaries for one line, honouring double-quoted fields
+        private void split(int start, int end) {
+            fieldCount = 0;
+            int i = start;
+            while (i <= end && fieldCount < MAX_FIELDS) {
+                if (i < end && buffer.get(i) == '"') {
+                    int s = i + 1;
+                    boolean escaped = false;
+                    i = s;
+                    while (i < end) {
+                        if (buffer.get(i) == '"') {
+                            if (i + 1 < end && buffer.get(i + 1) == '"') {
+                                escaped = true;
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    addField(s, Math.min(i, end), escaped);
+                    while (i < end && buffer.get(i) != ',') {
+                        i++;
+                    }
+                } else {
+                    int s = i;
+                    while (i < end && buffer.get(i) != ',') {
+                        i++;
+                    }
+                    addField(s, i, false);
+                }
+                i++;
+            }
+        }
+
+        private void addField(int start, int end, boolean escaped) {
+            fieldStart[fieldCount] = start;
+            fieldEnd[fieldCount] = end;
+            fieldEscaped[fieldCount] = escaped;
+            fieldCount++;
+        }
+
+        private String text(int field) {
+            int start = fieldStart[field];
+            int length = fieldEnd[field] - start;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+            if (fieldEscaped[field]) {
+                int out = 0;
+                for (int i = 0; i < length; i++) {
+                    scratch[out++] = scratch[i];
+                    if (scratch[i] == '"' && i + 1 < length && scratch[i + 1] == '"') {
+                        i++;
+                    }
+                }
+                length = out;
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private String intern(String value) {
+            String existing = interned.putIfAbsent(value, value);
+            return existing == null ? value : existing;
+        }
+
+        // Accepts yyyy-MM-dd, yyyy/MM/dd, yyyy.MM.dd, yyyyMMdd, MM/dd/yyyy and MM/dd/yy, and
+        // dotted dates day first (dd.MM.yyyy, dd.MM.yy) as European banks write them
+        private int parseDate(int field) {
+            int[] parts = dateParts;
+            int[] digits = dateDigits;
+            Arrays.fill(parts, 0);
+            Arrays.fill(digits, 0);
+            int part = 0;
+            boolean dotted = false;
+            for (int i = fieldStart[field]; i < fieldEnd[field]; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    if (part > 2) {
+                        return Integer.MIN_VALUE;
+                    }
+                    parts[part] = parts[part] * 10 + (b - '0');
+                    digits[part]++;
+                } else if ((b == '-' || b == '/' || b == '.') && digits[part] > 0) {
+                    dotted |= b == '.';
+                    part++;
+                } else if (b == ' ' && digits[0] == 0) {
+                    continue;
+                } else if (b == 'T' || b == ' ') {
+                    break; // time of day follows
+                } else if (b != '"') {
+                    return Integer.MIN_VALUE;
+                }
+            }
+            int year;
+            int month;
+            int day;
+            if (part == 0 && digits[0] == 8) {
+                year = parts[0] / 10000;
+                month = parts[0] / 100 % 100;
+                day = parts[0] % 100;
+            } else if (part == 2 && digits[0] == 4) {
+                year = parts[0];
+                month = parts[1];
+                day = parts[2];
+            } else if (part == 2) {
+                month = dotted ? parts[1] : parts[0];
+                day = dotted ? parts[0] : parts[1];
+                year = digits[2] <= 2 ? 2000 + parts[2] : parts[2];
+            } else {
+                return Integer.MIN_VALUE;
+            }
+            if (month < 1 || month > 12 || day < 1 || day > 31) {
+                return Integer.MIN_VALUE;
+            }
+            try {
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            } catch (RuntimeException ex) {
+                return Integer.MIN_VALUE;
+            }
+        }
+
+        // Parses amounts like -1,234.56, $12.00 or (12.00) into cents; Long.MIN_VALUE if invalid
+        private long parseCents(int field) {
+            long whole = 0;
+            int fraction = 0;
+            int fractionDigits = 0;
+            boolean negative = false;
+            boolean seenDigit = false;
+            boolean inFraction = false;
+            boolean roundUp = false;
+            for (int i = fieldStart[field]; i < fieldEnd[field]; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9') {
+                    seenDigit = true;
+                    if (!inFraction) {
+                        whole = whole * 10 + (b - '0');
+                    } else if (fractionDigits < 2) {
+                        fraction = fraction * 10 + (b - '0');
+                        fractionDigits++;
+                    } else if (fractionDigits == 2) {
+                        roundUp = b >= '5';
+                        fractionDigits++;
+                    }
+                } else if (b == '.') {
+                    inFraction = true;
+                } else if (b == '-' || b == '(') {
+                    negative = true;
+                } else if (b != ',' && b != '$' && b != ' ' && b != '+' && b != ')' && b != '"') {
+                    return Long.MIN_VALUE;
+                }
+            }
+            if (!seenDigit) {
+                return fieldStart[field] == fieldEnd[field] ? 0 : Long.MIN_VALUE;
+            }
+            if (fractionDigits == 1) {
+                fraction *= 10;
+            }
+            long cents = whole * 100 + fraction + (roundUp ? 1 : 0);
+            return negative ? -cents : cents;
+        }
+    }
+
+    static String normalizeType(String value) {
+        String type = value.trim().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "income", "credit", "deposit" -> "Income";
+            case "expense", "debit", "withdrawal", "payment" -> "Expense";
+            default -> null;
+        };
+    }
+
+    static String defaultCategory(String type) {
+        return type.equals("Income") ? "Income" : "Other";
+    }
+
+    static String categorize(CategoryRules rules, String title, long cents, String type, int epochDay) {
+        String category = rules.categorize(title, cents, type, epochDay);
+        return category != null ? category : defaultCategory(type);
+    }
+
+    // ---- OFX / QFX ----
+
+    // OFX is SGML-like and rarely large enough to need splitting, so it is tokenized as a stream
+    public ImportResult importOfx(Path file, BatchSink sink) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             Reader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder()
+                     .onMalformedInput(CodingErrorAction.REPLACE)
+                     .onUnmappableCharacter(CodingErrorAction.REPLACE), 1 << 16))) {
+            List<TransactionEntry> batch = new ArrayList<>();
+            long imported = 0;
+            long skipped = 0;
+            Map<String, String> fields = null;
+
+            StringBuilder tag = new StringBuilder();
+            StringBuilder value = new StringBuilder();
+            int ch = reader.read();
+            while (ch != -1) {
+                if (ch != '<') {
+                    ch = reader.read();
+                    continue;
+                }
+                tag.setLength(0);
+                while ((ch = reader.read()) != -1 && ch != '>') {
+                    tag.append((char) ch);
+                }
+                value.setLength(0);
+                while ((ch = reader.read()) != -1 && ch != '<') {
+                    value.append((char) ch);
+                }
+
+                String name = tag.toString().trim().toUpperCase(Locale.ROOT);
+                if (name.equals("STMTTRN")) {
+                    fields = new HashMap<>();
+                } else if (name.equals("/STMTTRN") && fields != null) {
+                    TransactionEntry entry = ofxEntry(fields, rules);
+                    if (entry != null) {
+                        batch.add(entry);
+                    } else {
+                        skipped++;
+                    }
+                    fields = null;
+                    if (batch.size() >= OFX_BATCH_SIZE) {
+                        sink.accept(batch);
+                        imported += batch.size();
+                        batch = new ArrayList<>();
+                    }
+                } else if (fields != null && !name.startsWith("/")) {
+                    fields.put(name, value.toString().trim());
+                }
+            }
+            if (!batch.isEmpty()) {
+                sink.accept(batch);
+                imported += batch.size();
+            }
+            return new ImportResult(imported, skipped);
+        }
+    }
+
+    private static TransactionEntry ofxEntry(Map<String, String> fields, CategoryRules rules) {
+        String posted = fields.get("DTPOSTED");
+        String amount = fields.get("TRNAMT");
+        if (posted == null || posted.length() < 8 || amount == null) {
+            return null;
+        }
+        LocalDate date;
+        double value;
+        try {
+            date = LocalDate.of(Integer.parseInt(posted.substring(0, 4)), Integer.parseInt(posted.substring(4, 6)), Integer.parseInt(posted.substring(6, 8)));
+            value = Double.parseDouble(amount.replace(",", ""));
+        } catch (RuntimeException ex) {
+            return null;
+        }
+        String title = fields.getOrDefault("NAME", fields.getOrDefault("MEMO", "")).trim();
+        if (title.isEmpty()) {
+            title = fields.getOrDefault("TRNTYPE", "Transaction");
+        }
+        String type = value < 0 ? "Expense" : "Income";
+        String category = categorize(rules, title, ColumnarTransactionList.toCents(Math.abs(value)), type, (int) date.toEpochDay());
+        return new TransactionEntry(title, Math.abs(value), category, type, date);
+    }
+}
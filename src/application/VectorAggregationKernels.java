@@ -0,0 +1,136 @@
+package application;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Vector API version of AggregationKernels.sum; only loaded when the incubator module is
+// present. Amounts are longs and codes ints, so the int species is picked to have the same
+// lane count as the long one and type masks carry straight over to the amounts.
+// Rows go through in cache-sized blocks: one vector pass sums income and expense and notes
+// each expense row's category, then one masked pass per category sums that category.
+final class VectorAggregationKernels {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS =
+        VectorSpecies.of(int.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final int BLOCK = 2048;
+    // With more categories than this a scalar histogram beats one pass per category
+    private static final int MAX_CATEGORY_PASSES = 16;
+    private static final int WARMUP_ROUNDS = 5_000;
+
+    private VectorAggregationKernels() {
+    }
+
+    static void sum(long[] cents, int[] typeCodes, int[] categoryCodes, int from, int to,
+                    byte[] typeClasses, AggregationKernels.Totals into) {
+        int[] incomeTypes = codesOf(typeClasses, AggregationKernels.INCOME);
+        int[] expenseTypes = codesOf(typeClasses, AggregationKernels.EXPENSE);
+        int[] expenseCategory = new int[BLOCK];
+        // One call per block rather than one long loop, so the JIT compiles the vector code
+        // after a few blocks instead of running a whole large range in the interpreter
+        for (int start = from; start < to; start += BLOCK) {
+            int end = Math.min(start + BLOCK, to);
+            int upper = start + LONGS.loopBound(end - start);
+            sumTypes(cents, typeCodes, categoryCodes, start, upper, incomeTypes, expenseTypes, expenseCategory, into);
+            if (into.categoryCents.length <= MAX_CATEGORY_PASSES) {
+                sumCategories(cents, start, upper - start, expenseCategory, into);
+            } else {
+                histogram(cents, start, upper - start, expenseCategory, into);
+            }
+            // Rows past the last full vector
+            AggregationKernels.sumScalar(cents, typeCodes, categoryCodes, upper, end, typeClasses, into);
+        }
+    }
+
+    // Income and expense sums; notes each row's category, or -1 if it is not an expense
+    private static void sumTypes(long[] cents, int[] typeCodes, int[] categoryCodes, int from, int to,
+                                 int[] incomeTypes, int[] expenseTypes, int[] expenseCategory,
+                                 AggregationKernels.Totals into) {
+        LongVector income = LongVector.zero(LONGS);
+        LongVector expense = LongVector.zero(LONGS);
+        for (int i = from; i < to; i += LONGS.length()) {
+            LongVector amount = LongVector.fromArray(LONGS, cents, i);
+            IntVector type = IntVector.fromArray(INTS, typeCodes, i);
+            VectorMask<Integer> isIncome = matches(type, incomeTypes);
+            VectorMask<Integer> isExpense = matches(type, expenseTypes);
+            income = income.add(amount, isIncome.cast(LONGS));
+            expense = expense.add(amount, isExpense.cast(LONGS));
+            IntVector.fromArray(INTS, categoryCodes, i)
+                .blend(-1, isExpense.not())
+                .intoArray(expenseCategory, i - from);
+        }
+        into.income += income.reduceLanes(VectorOperators.ADD);
+        into.expense += expense.reduceLanes(VectorOperators.ADD);
+    }
+
+    // One masked pass over the block per category, all in cache
+    private static void sumCategories(long[] cents, int from, int length, int[] expenseCategory,
+                                      AggregationKernels.Totals into) {
+        for (int category = 0; category < into.categoryCents.length; category++) {
+            LongVector sum = LongVector.zero(LONGS);
+            int count = 0;
+            for (int j = 0; j < length; j += LONGS.length()) {
+                VectorMask<Integer> inCategory = IntVector.fromArray(INTS, expenseCategory, j).eq(category);
+                sum = sum.add(LongVector.fromArray(LONGS, cents, from + j), inCategory.cast(LONGS));
+                count += inCategory.trueCount();
+            }
+            into.categoryCents[category] += sum.reduceLanes(VectorOperators.ADD);
+            into.categoryCounts[category] += count;
+        }
+    }
+
+    private static void histogram(long[] cents, int from, int length, int[] expenseCategory,
+                                  AggregationKernels.Totals into) {
+        for (int j = 0; j < length; j++) {
+            int category = expenseCategory[j];
+            if (category >= 0) {
+                into.categoryCents[category] += cents[from + j];
+                into.categoryCounts[category]++;
+            }
+        }
+    }
+
+    // Runs the kernels over a synthetic block until the JIT has compiled them
+    static void warmUp() {
+        long[] cents = new long[BLOCK + 3];
+        int[] typeCodes = new int[cents.length];
+        int[] categoryCodes = new int[cents.length];
+        for (int i = 0; i < cents.length; i++) {
+            cents[i] = i * 7L;
+            typeCodes[i] = i % 3;
+            categoryCodes[i] = i % 5;
+        }
+        byte[] typeClasses = {AggregationKernels.EXPENSE, AggregationKernels.INCOME, AggregationKernels.OTHER};
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sum(cents, typeCodes, categoryCodes, 0, cents.length, typeClasses, new AggregationKernels.Totals(5));
+        }
+    }
+
+    private static VectorMask<Integer> matches(IntVector type, int[] codes) {
+        VectorMask<Integer> mask = INTS.maskAll(false);
+        for (int code : codes) {
+            mask = mask.or(type.eq(code));
+        }
+        return mask;
+    }
+
+    private static int[] codesOf(byte[] typeClasses, byte typeClass) {
+        int count = 0;
+        for (byte c : typeClasses) {
+            if (c == typeClass) {
+                count++;
+            }
+        }
+        int[] codes = new int[count];
+        for (int code = 0, n = 0; code < typeClasses.length; code++) {
+            if (typeClasses[code] == typeClass) {
+                codes[n++] = code;
+            }
+        }
+        return codes;
+    }
+}
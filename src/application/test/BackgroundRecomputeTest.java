@@ -0,0 +1,82 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.BackgroundRecompute;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BackgroundRecomputeTest {
+
+    // Stand-ins for the FX thread and the virtual threads, drained by hand
+    private final Queue<Runnable> ui = new ArrayDeque<>();
+    private final Queue<Runnable> background = new ArrayDeque<>();
+
+    private void drain() {
+        while (!ui.isEmpty() || !background.isEmpty()) {
+            Runnable task = !ui.isEmpty() ? ui.poll() : background.poll();
+            task.run();
+        }
+    }
+
+    // Requests made while a run is queued or in flight collapse into one rerun
+    @Test
+    void testBurstsAreCoalesced() {
+        AtomicInteger value = new AtomicInteger();
+        AtomicInteger computations = new AtomicInteger();
+        List<Integer> published = new ArrayList<>();
+        BackgroundRecompute<Integer, Integer> recompute = new BackgroundRecompute<>(
+                value::get,
+                input -> {
+                    computations.incrementAndGet();
+                    return input * 10;
+                },
+                (input, result) -> published.add(result),
+                background::add, ui::add);
+
+        for (int i = 1; i <= 5; i++) {
+            value.set(i);
+            recompute.request();
+        }
+        ui.poll().run(); // snapshot taken, computation queued
+        for (int i = 6; i <= 9; i++) {
+            value.set(i);
+            recompute.request();
+        }
+        drain();
+
+        assertEquals(List.of(50, 90), published);
+        assertEquals(2, computations.get());
+        assertFalse(recompute.isBusy());
+    }
+
+    // A result rejected as stale triggers a fresh run
+    @Test
+    void testStaleResultIsRecomputed() {
+        AtomicInteger version = new AtomicInteger();
+        List<Integer> published = new ArrayList<>();
+        BackgroundRecompute<Integer, Integer> recompute = new BackgroundRecompute<>(
+                version::get,
+                input -> input,
+                (input, result) -> {
+                    if (input != version.get()) {
+                        return false;
+                    }
+                    published.add(result);
+                    return true;
+                },
+                background::add, ui::add);
+
+        recompute.request();
+        ui.poll().run();
+        version.incrementAndGet(); // the ledger changes while the background work runs
+        drain();
+
+        assertEquals(List.of(1), published);
+    }
+}
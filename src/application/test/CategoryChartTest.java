@@ -0,0 +1,51 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.CategoryChart;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CategoryChartTest {
+
+    // Few categories are shown as they are; the "Other" category moves to the end
+    @Test
+    void testAllCategoriesFit() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("Other", 500L);
+        totals.put("Groceries", 8000L);
+        totals.put("Gas", 4000L);
+
+        Map<String, Long> shown = CategoryChart.topCategories(totals, 3);
+        assertEquals(List.of("Groceries", "Gas", "Other"), new ArrayList<>(shown.keySet()));
+        assertEquals(500L, shown.get("Other"));
+    }
+
+    // The largest topN - 1 keep their order, the rest and the "Other" category are folded
+    @Test
+    void testSmallCategoriesFoldIntoOther() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        totals.put("Gas", 100L);
+        totals.put("Groceries", 900L);
+        totals.put("Other", 50L);
+        totals.put("Rent", 5000L);
+        totals.put("Dining Out", 300L);
+        totals.put("Bills", 300L);
+        totals.put("Shopping", 20L);
+
+        Map<String, Long> shown = CategoryChart.topCategories(totals, 4);
+        assertEquals(List.of("Groceries", "Rent", "Dining Out", "Other"), new ArrayList<>(shown.keySet()));
+        assertEquals(100L + 50L + 300L + 20L, shown.get("Other"));
+
+        long total = totals.values().stream().mapToLong(Long::longValue).sum();
+        for (int topN = 2; topN <= 9; topN++) {
+            shown = CategoryChart.topCategories(totals, topN);
+            assertTrue(shown.size() <= topN);
+            assertEquals(total, shown.values().stream().mapToLong(Long::longValue).sum());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import application.CategoryRules;
+import application.TransactionEntry;
+import application.TransactionImporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class CategoryRulesTest {
+
+    private static final int JAN_1 = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+
+    @TempDir
+    Path dir;
+
+    // The first rule in the file wins, whichever of the overlapping texts ends first in the title
+    @Test
+    void testFirstMatchingRuleWins() throws Exception {
+        CategoryRules rules = CategoryRules.parse(List.of(
+            "# fuel",
+            "title contains shell and amount > 100 -> Car",
+            "title contains \"SHELL OIL\" -> Gas",
+            "",
+            "title contains hell -> Other",
+            "title starts with AMZN and type is Expense -> Shopping",
+            "type Income and amount >= 1000 -> Salary",
+            "title contains rent and date >= 2024-02-01 -> Bills",
+            "amount < 5 -> Small"), "rules.txt");
+
+        assertEquals(7, rules.size());
+        assertEquals("Gas", rules.categorize("Shell Oil 1234", 4000, "Expense", JAN_1));
+        assertEquals("Car", rules.categorize("shell oil", 15000, "Expense", JAN_1));
+        assertEquals("Other", rules.categorize("Shell Station", 4000, "Expense", JAN_1));
+        assertEquals("Shopping", rules.categorize("amzn mktp us", 2500, "Expense", JAN_1));
+        assertEquals("Small", rules.categorize("Coffee AMZN", 300, "Expense", JAN_1));
+        assertNull(rules.categorize("AMZN refund", 2500, "Income", JAN_1));
+        assertEquals("Salary", rules.categorize("Payroll", 250000, "Income", JAN_1));
+        assertNull(rules.categorize("January rent", 120000, "Expense", JAN_1));
+        assertEquals("Bills", rules.categorize("February RENT", 120000, "Expense", JAN_1 + 40));
+        assertNull(CategoryRules.NONE.categorize("Shell", 100, "Expense", JAN_1));
+    }
+
+    // The automaton agrees with checking every rule in turn
+    @Test
+    void testMatchesNaiveEvaluation() throws Exception {
+        Random random = new Random(18);
+        String[] words = {"shell", "she", "he", "hers", "amzn", "rent", "co", "o", "mart", "art"};
+        List<String> lines = new ArrayList<>();
+        List<String[]> naive = new ArrayList<>();
+        for (int r = 0; r < 200; r++) {
+            String text = words[random.nextInt(words.length)] + (random.nextBoolean() ? "" : words[random.nextInt(words.length)]);
+            boolean prefix = random.nextInt(4) == 0;
+            long limit = random.nextInt(10_000);
+            lines.add("title " + (prefix ? "starts with " : "contains ") + text.toUpperCase(Locale.ROOT)
+                + " and amount < " + limit / 100.0 + " -> C" + r);
+            naive.add(new String[] {text, prefix ? "p" : "c", Long.toString(limit)});
+        }
+        CategoryRules rules = CategoryRules.parse(lines, "generated");
+
+        for (int t = 0; t < 5000; t++) {
+            StringBuilder title = new StringBuilder();
+            for (int w = random.nextInt(4); w >= 0; w--) {
+                title.append(words[random.nextInt(words.length)]).append(random.nextBoolean() ? " " : "");
+            }
+            long cents = random.nextInt(10_000);
+            String expected = null;
+            for (int r = 0; r < naive.size() && expected == null; r++) {
+                String[] rule = naive.get(r);
+                boolean matches = rule[1].equals("p") ? title.toString().startsWith(rule[0]) : title.toString().contains(rule[0]);
+                if (matches && cents < Long.parseLong(rule[2])) {
+                    expected = "C" + r;
+                }
+            }
+            assertEquals(expected, rules.categorize(title.toString().toUpperCase(Locale.ROOT), cents, "Expense", JAN_1), title.toString());
+        }
+    }
+
+    @Test
+    void testParseErrorsNameTheLine() {
+        IOException ex = assertThrows(IOException.class, () -> CategoryRules.parse(List.of(
+            "title contains shell -> Gas",
+            "# comment",
+            "title matches shell -> Gas"), "rules.txt"));
+        assertTrue(ex.getMessage().startsWith("rules.txt:3: "), ex.getMessage());
+        assertThrows(IOException.class, () -> CategoryRules.parse(List.of("title contains shell"), "rules.txt"));
+        assertThrows(IOException.class, () -> CategoryRules.parse(List.of("amount ~ 5 -> Small"), "rules.txt"));
+        assertThrows(IOException.class, () -> CategoryRules.parse(List.of("date > tomorrow -> Later"), "rules.txt"));
+    }
+
+    // Rules fill in categories the export leaves empty; an export's own category is kept
+    @Test
+    void testImportUsesRules() throws Exception {
+        Path rulesFile = dir.resolve("rules.txt");
+        Files.writeString(rulesFile, "title contains shell -> Gas\ntitle contains payroll -> Salary\n");
+        Path file = dir.resolve("export.csv");
+        Files.writeString(file, String.join("\n",
+            "Date,Description,Amount,Category",
+            "2024-01-05,SHELL OIL 123,-40.00,",
+            "2024-01-06,Shell Cafe,-8.00,Dining Out",
+            "2024-01-07,ACME PAYROLL,2000.00,",
+            "2024-01-08,Corner Shop,-3.00,",
+            ""));
+
+        List<TransactionEntry> entries = new ArrayList<>();
+        new TransactionImporter(CategoryRules.load(rulesFile)).importFile(file, entries::addAll);
+
+        assertEquals("Gas", entries.get(0).getCategory());
+        assertEquals("Dining Out", entries.get(1).getCategory());
+        assertEquals("Salary", entries.get(2).getCategory());
+        assertEquals("Other", entries.get(3).getCategory());
+        assertSame(CategoryRules.NONE, CategoryRules.load(dir.resolve("missing.txt")));
+    }
+}
@@ -0,0 +1,211 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.LedgerSnapshot;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ColumnarTransactionListTest {
+
+    private ColumnarTransactionList transactionList;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+    }
+
+    // Rows come back with the same values they were stored with
+    @Test
+    void testRoundTrip() {
+        transactionList.add(new TransactionEntry("Netflix", 15.99, "Entertainment", "Expense", LocalDate.of(2024, 1, 7)));
+        transactionList.add(0, new TransactionEntry("Paycheck", 2000.0, "Income", "Income", LocalDate.of(2024, 1, 5)));
+
+        TransactionEntry first = transactionList.get(0);
+        TransactionEntry second = transactionList.get(1);
+        assertEquals("Paycheck", first.getTitle());
+        assertEquals(2000.0, first.getAmount());
+        assertEquals("Income", first.getType());
+        assertEquals("Netflix", second.getTitle());
+        assertEquals(15.99, second.getAmount());
+        assertEquals(1599, transactionList.amountCentsAt(1));
+        assertEquals(LocalDate.of(2024, 1, 7), second.getDate());
+        assertEquals("Entertainment", second.getCategory());
+    }
+
+    // Repeating categories and types share one dictionary code
+    @Test
+    void testDictionaryEncoding() {
+        transactionList.add(new TransactionEntry("Shell", 40.0, "Gas", "Expense", LocalDate.of(2024, 2, 1)));
+        transactionList.add(new TransactionEntry("Exxon", 35.0, "Gas", "Expense", LocalDate.of(2024, 2, 9)));
+        transactionList.add(new TransactionEntry("Salary", 3000.0, "Income", "Income", LocalDate.of(2024, 2, 15)));
+
+        assertEquals(transactionList.categoryCodeAt(0), transactionList.categoryCodeAt(1));
+        assertNotEquals(transactionList.categoryCodeAt(0), transactionList.categoryCodeAt(2));
+        assertEquals(2, transactionList.getCategories().size());
+        assertEquals(2, transactionList.getTypes().size());
+    }
+
+    // Edits and deletes report the old rows to listeners
+    @Test
+    void testSetAndRemoveEvents() {
+        transactionList.add(new TransactionEntry("Groceries", 150.0, "Groceries", "Expense", LocalDate.of(2024, 3, 1)));
+        transactionList.add(new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 3, 1)));
+        transactionList.add(new TransactionEntry("Movie", 12.0, "Entertainment", "Expense", LocalDate.of(2024, 3, 2)));
+
+        List<String> removedTitles = new ArrayList<>();
+        transactionList.addListener((ListChangeListener<TransactionEntry>) c -> {
+            while (c.next()) {
+                c.getRemoved().forEach(t -> removedTitles.add(t.getTitle()));
+            }
+        });
+
+        transactionList.set(0, new TransactionEntry("Groceries", 175.0, "Dining Out", "Expense", LocalDate.of(2024, 3, 1)));
+        transactionList.remove(1);
+
+        assertEquals(List.of("Groceries", "Rent"), removedTitles);
+        assertEquals(2, transactionList.size());
+        assertEquals(175.0, transactionList.get(0).getAmount());
+        assertEquals("Movie", transactionList.get(1).getTitle());
+    }
+
+    // Reading a row again hands back the same entry until the ledger changes
+    @Test
+    void testEntriesReusedUntilChange() {
+        transactionList.add(new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 3, 1)));
+        transactionList.add(new TransactionEntry("Movie", 12.0, "Entertainment", "Expense", LocalDate.of(2024, 3, 2)));
+        TransactionEntry rent = transactionList.get(0);
+        assertSame(rent, transactionList.get(0));
+
+        transactionList.set(0, new TransactionEntry("Rent", 1250.0, "Bills", "Expense", LocalDate.of(2024, 3, 1)));
+        assertEquals(1200.0, rent.getAmount());
+        assertEquals(1250.0, transactionList.get(0).getAmount());
+        assertEquals(rent.getId(), transactionList.get(0).getId());
+    }
+
+    // Range removal shifts the columns once
+    @Test
+    void testRemoveRange() {
+        List<TransactionEntry> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(new TransactionEntry("Coffee " + i, 3.5, "Dining Out", "Expense", LocalDate.of(2024, 4, 1)));
+        }
+        transactionList.addAll(batch);
+        transactionList.remove(10, 90);
+
+        assertEquals(20, transactionList.size());
+        assertEquals("Coffee 9", transactionList.get(9).getTitle());
+        assertEquals("Coffee 90", transactionList.get(10).getTitle());
+    }
+
+    // IDs survive edits and other rows' deletes, and look up positions directly
+    @Test
+    void testStableIds() {
+        for (int i = 0; i < 10; i++) {
+            transactionList.add(new TransactionEntry("Row " + i, i, "Other", "Expense", LocalDate.of(2024, 5, 1)));
+        }
+        long idOfRow7 = transactionList.get(7).getId();
+        long idOfRow2 = transactionList.idAt(2);
+        assertTrue(idOfRow7 > 0);
+        assertNotEquals(idOfRow2, idOfRow7);
+
+        transactionList.remove(3);
+        transactionList.add(0, new TransactionEntry("First", 1.0, "Other", "Expense", LocalDate.of(2024, 5, 2)));
+        transactionList.set(transactionList.indexOfId(idOfRow7), new TransactionEntry("Row 7 edited", 7.5, "Gas", "Expense", LocalDate.of(2024, 5, 1)));
+
+        int index = transactionList.indexOfId(idOfRow7);
+        assertEquals(7, index);
+        assertEquals("Row 7 edited", transactionList.get(index).getTitle());
+        assertEquals(idOfRow7, transactionList.get(index).getId());
+        assertEquals("Row 2", transactionList.get(transactionList.indexOfId(idOfRow2)).getTitle());
+
+        long removedId = transactionList.idAt(4);
+        transactionList.remove(4);
+        assertEquals(-1, transactionList.indexOfId(removedId));
+        assertTrue(transactionList.get(0).getId() > idOfRow7);
+    }
+
+    // IDs past int range are refused before the row is stored; replayed rows whose IDs
+    // are mostly dead come back without IDs and are numbered from 1 again
+    @Test
+    void testIdRange() {
+        transactionList.add(new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 3, 1)));
+        TransactionEntry huge = new TransactionEntry(Integer.MAX_VALUE + 1L, "Gas", 40.0, "Gas", "Expense", LocalDate.of(2024, 3, 2));
+        assertThrows(IllegalArgumentException.class, () -> transactionList.add(huge));
+        assertEquals(1, transactionList.size());
+
+        List<TransactionEntry> dense = new ArrayList<>();
+        List<TransactionEntry> sparse = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            dense.add(new TransactionEntry(10 + i, "Row " + i, i, "Other", "Expense", LocalDate.of(2024, 5, 1)));
+            sparse.add(new TransactionEntry(5_000_000 + i * 1000, "Row " + i, i, "Other", "Expense", LocalDate.of(2024, 5, 1)));
+        }
+        sparse.add(huge);
+        assertSame(dense, ColumnarTransactionList.withDenseIds(dense));
+        ColumnarTransactionList restored = new ColumnarTransactionList();
+        restored.addAll(ColumnarTransactionList.withDenseIds(sparse));
+        assertEquals(101, restored.size());
+        assertEquals(102, restored.getNextId());
+        assertEquals("Row 42", restored.get(restored.indexOfId(43)).getTitle());
+    }
+
+    // Snapshots keep their rows through inserts, edits and deletes across many chunks, and
+    // the ledger itself stays equal to a plain list given the same changes
+    @Test
+    void testSnapshotsAreIsolated() {
+        Random random = new Random(3);
+        List<TransactionEntry> model = new ArrayList<>();
+        List<LedgerSnapshot> snapshots = new ArrayList<>();
+        List<List<String>> expected = new ArrayList<>();
+        for (int step = 0; step < 40_000; step++) {
+            TransactionEntry entry = new TransactionEntry("Row " + step, step % 1000, "c" + step % 7, "Expense", LocalDate.of(2024, 1, 1).plusDays(step % 300));
+            int op = random.nextInt(10);
+            if (op < 6 || model.isEmpty()) {
+                int at = random.nextInt(4) == 0 ? random.nextInt(model.size() + 1) : model.size();
+                transactionList.add(at, entry);
+                model.add(at, entry);
+            } else if (op < 8) {
+                int at = random.nextInt(model.size());
+                transactionList.set(at, entry);
+                model.set(at, entry);
+            } else if (op == 8) {
+                int at = random.nextInt(model.size());
+                int to = Math.min(model.size(), at + random.nextInt(5000));
+                transactionList.remove(at, to);
+                model.subList(at, to).clear();
+            } else {
+                int at = random.nextInt(model.size());
+                transactionList.remove(at);
+                model.remove(at);
+            }
+            if (step % 4000 == 0) {
+                snapshots.add(transactionList.snapshot());
+                expected.add(titles(model));
+            }
+        }
+        assertEquals(titles(model), titles(transactionList));
+        for (int s = 0; s < snapshots.size(); s++) {
+            assertEquals(expected.get(s), titles(snapshots.get(s)));
+        }
+        for (int i = 0; i < transactionList.size(); i++) {
+            assertEquals(i, transactionList.indexOfId(transactionList.idAt(i)));
+            assertEquals(model.get(i).getAmount(), transactionList.get(i).getAmount());
+        }
+    }
+
+    private static List<String> titles(List<TransactionEntry> entries) {
+        List<String> titles = new ArrayList<>();
+        for (TransactionEntry entry : entries) {
+            titles.add(entry.getTitle());
+        }
+        return titles;
+    }
+}
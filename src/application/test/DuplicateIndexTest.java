@@ -0,0 +1,122 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.DuplicateIndex;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class DuplicateIndexTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 10);
+
+    // Titles match on letters and digits whatever the case; date, amount and type must be equal
+    @Test
+    void testFindDuplicate() {
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        DuplicateIndex duplicates = new DuplicateIndex(ledger);
+        ledger.add(new TransactionEntry("SHELL OIL #1234", 54.20, "Gas", "Expense", DAY));
+        long id = ledger.idAt(0);
+
+        assertEquals(id, duplicates.findDuplicate(new TransactionEntry("Shell Oil 1234", 54.20, "Other", "Expense", DAY)));
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("Shell Oil 1235", 54.20, "Gas", "Expense", DAY)));
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("Shell Oil 1234", 54.21, "Gas", "Expense", DAY)));
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("Shell Oil 1234", 54.20, "Gas", "Expense", DAY.plusDays(1))));
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("Shell Oil 1234", 54.20, "Income", "Income", DAY)));
+
+        ledger.set(0, new TransactionEntry("Shell", 10, "Gas", "Expense", DAY));
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("SHELL OIL #1234", 54.20, "Gas", "Expense", DAY)));
+        assertEquals(id, duplicates.findDuplicate(new TransactionEntry("shell", 10, "Gas", "Expense", DAY)));
+        ledger.remove(0);
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("shell", 10, "Gas", "Expense", DAY)));
+        assertEquals(0, duplicates.size());
+    }
+
+    // Negative amounts fingerprint the same when added, looked up and removed
+    @Test
+    void testNegativeAmounts() {
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        DuplicateIndex duplicates = new DuplicateIndex(ledger);
+        TransactionEntry refund = new TransactionEntry("Coffee", -5.00, "Dining Out", "Expense", DAY);
+        ledger.add(refund);
+        long id = ledger.idAt(0);
+        assertEquals(id, duplicates.findDuplicate(new TransactionEntry("Coffee", -5.00, "Dining Out", "Expense", DAY)));
+
+        ledger.remove(0);
+        assertEquals(0, duplicates.size());
+        assertEquals(-1, duplicates.findDuplicate(new TransactionEntry("Coffee", 5.00, "Income", "Income", DAY)));
+        assertEquals(-1, duplicates.findDuplicate(refund));
+    }
+
+    // Each existing row absorbs one imported row, and rows the import added are not matched
+    @Test
+    void testImportFilter() {
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        DuplicateIndex duplicates = new DuplicateIndex(ledger);
+        ledger.addAll(List.of(coffee(), coffee(), new TransactionEntry("Rent", 1200, "Bills", "Expense", DAY)));
+
+        DuplicateIndex.ImportFilter filter = duplicates.newImportFilter();
+        List<TransactionEntry> first = filter.removeDuplicates(List.of(coffee(), coffee(), coffee()));
+        assertEquals(1, first.size());
+        ledger.addAll(first);
+        List<TransactionEntry> second = filter.removeDuplicates(List.of(coffee(),
+            new TransactionEntry("RENT", 1200, "Bills", "Expense", DAY), new TransactionEntry("Rent", 1200, "Bills", "Expense", DAY)));
+        assertEquals(2, second.size());
+        assertEquals(3, filter.getSkipped());
+    }
+
+    // After random inserts, edits and deletes the index agrees with a scan of the ledger
+    @Test
+    void testMatchesScan() {
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        DuplicateIndex duplicates = new DuplicateIndex(ledger);
+        Random random = new Random(19);
+        List<TransactionEntry> batch = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            batch.add(entry(random));
+        }
+        ledger.addAll(batch);
+        for (int op = 0; op < 5000; op++) {
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                ledger.add(random.nextInt(ledger.size() + 1), entry(random));
+            } else if (kind == 1) {
+                ledger.set(random.nextInt(ledger.size()), entry(random));
+            } else {
+                ledger.remove(random.nextInt(ledger.size()));
+            }
+        }
+        assertEquals(ledger.size(), duplicates.size());
+
+        for (int probe = 0; probe < 2000; probe++) {
+            TransactionEntry entry = entry(random);
+            boolean expected = false;
+            for (TransactionEntry row : ledger) {
+                expected |= row.getDate().equals(entry.getDate()) && row.getAmount() == entry.getAmount()
+                    && row.getType().equals(entry.getType()) && row.getTitle().equalsIgnoreCase(entry.getTitle());
+            }
+            long id = duplicates.findDuplicate(entry);
+            assertEquals(expected, id >= 0);
+            if (id >= 0) {
+                assertTrue(ledger.get(ledger.indexOfId(id)).getTitle().equalsIgnoreCase(entry.getTitle()));
+            }
+        }
+    }
+
+    private static TransactionEntry coffee() {
+        return new TransactionEntry("Coffee", 3.5, "Dining Out", "Expense", DAY);
+    }
+
+    private static TransactionEntry entry(Random random) {
+        String title = "Store " + random.nextInt(50);
+        return new TransactionEntry(random.nextBoolean() ? title : title.toUpperCase(Locale.ROOT), random.nextInt(20) + 0.5,
+            "Other", random.nextInt(8) == 0 ? "Income" : "Expense", DAY.plusDays(random.nextInt(30)));
+    }
+}
@@ -0,0 +1,136 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.ForecastEngine;
+import application.ForecastPlan;
+import application.LedgerRollup;
+import application.RecurringRule;
+import application.TransactionEntry;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ForecastEngineTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+
+    // Counting and listing occurrences agree with stepping through the schedule date by date
+    @Test
+    void testOccurrences() {
+        RecurringRule rent = RecurringRule.parse("monthly from 2024-01-31: Expense, 1200, Bills, Rent");
+        List<LocalDate> dates = new ArrayList<>();
+        rent.forEachDay(LocalDate.of(2024, 1, 1).toEpochDay(), LocalDate.of(2024, 4, 30).toEpochDay(),
+            day -> dates.add(LocalDate.ofEpochDay(day)));
+        assertEquals(List.of(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 30)), dates);
+
+        Random random = new Random(22);
+        for (int i = 0; i < 300; i++) {
+            RecurringRule.Unit unit = RecurringRule.Unit.values()[random.nextInt(3)];
+            LocalDate start = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(400));
+            LocalDate until = random.nextBoolean() ? null : start.plusDays(random.nextInt(2000));
+            RecurringRule rule = new RecurringRule("r", 100, "Other", "Expense", start, unit, 1 + random.nextInt(5), until);
+            long from = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(900)).toEpochDay();
+            long to = from + random.nextInt(1500);
+
+            List<Long> expected = new ArrayList<>();
+            for (long k = 0; rule.dayOf(k) <= to; k++) {
+                long day = rule.dayOf(k);
+                if (day >= from && (until == null || day <= until.toEpochDay())) {
+                    expected.add(day);
+                }
+            }
+            List<Long> listed = new ArrayList<>();
+            rule.forEachDay(from, to, listed::add);
+            assertEquals(expected, listed, rule.format());
+            assertEquals(expected.size(), rule.count(from, to), rule.format());
+        }
+    }
+
+    // Rules and budgets read back as written; errors name the line
+    @Test
+    void testPlanRoundTrip() throws IOException {
+        ForecastPlan plan = ForecastPlan.parse(List.of(
+            "# forecast",
+            "monthly from 2024-01-01: Expense, 1200.00, Bills, Rent",
+            "every 2 weeks from 2024-01-05 until 2026-06-30: Income, 2000.00, Income, Paycheck, main job",
+            "yearly from 2024-03-01: Expense, 99.00, Entertainment, Streaming",
+            "budget Dining Out: 250"), "forecast.txt");
+        assertEquals(3, plan.rules().size());
+        assertEquals("Paycheck, main job", plan.rules().get(1).title());
+        assertEquals(RecurringRule.Unit.MONTHS, plan.rules().get(2).unit());
+        assertEquals(12, plan.rules().get(2).every());
+        assertEquals(25_000L, plan.budgets().get("Dining Out"));
+        assertEquals(plan, ForecastPlan.parse(plan.format(), "again"));
+
+        IOException error = assertThrows(IOException.class,
+            () -> ForecastPlan.parse(List.of("", "fortnightly from 2024-01-01: Expense, 5, Other, x"), "forecast.txt"));
+        assertTrue(error.getMessage().startsWith("forecast.txt:2: "), error.getMessage());
+    }
+
+    // Balances and overruns match adding the future transactions to the ledger one by one
+    @Test
+    void testProjectionMatchesMaterialized() throws IOException {
+        List<TransactionEntry> ledger = new ArrayList<>();
+        ledger.add(new TransactionEntry("Opening", 3000, "Income", "Income", LocalDate.of(2024, 12, 1)));
+        ledger.add(new TransactionEntry("Groceries", 180, "Groceries", "Expense", LocalDate.of(2025, 1, 10)));
+        ledger.add(new TransactionEntry("Flight", 650, "Other", "Expense", LocalDate.of(2025, 3, 2))); // already booked
+        ForecastPlan plan = ForecastPlan.parse(List.of(
+            "monthly from 2024-12-31: Expense, 1200, Bills, Rent",
+            "every 2 weeks from 2025-01-03: Income, 1100, Income, Paycheck",
+            "weekly from 2025-01-06 until 2025-06-30: Expense, 95.50, Groceries, Groceries",
+            "budget Groceries: 400",
+            "budget Bills: 1500"), "forecast.txt");
+        int days = 400;
+
+        ForecastEngine.Forecast forecast = ForecastEngine.project(plan, LedgerRollup.of(ledger), TODAY, days);
+
+        List<TransactionEntry> materialized = new ArrayList<>(ledger);
+        for (RecurringRule rule : plan.rules()) {
+            rule.forEachDay(TODAY.plusDays(1).toEpochDay(), TODAY.plusDays(days).toEpochDay(),
+                day -> materialized.add(rule.entryOn(LocalDate.ofEpochDay(day))));
+        }
+        LocalDate lowestDate = null;
+        long lowest = Long.MAX_VALUE;
+        for (int d = 0; d < days; d++) {
+            LocalDate date = TODAY.plusDays(d + 1);
+            long balance = 0;
+            for (TransactionEntry entry : materialized) {
+                if (!entry.getDate().isAfter(date)) {
+                    long cents = ColumnarTransactionList.toCents(entry.getAmount());
+                    balance += entry.getType().equals("Income") ? cents : -cents;
+                }
+            }
+            assertEquals(balance, forecast.balanceAt(d), date.toString());
+            if (balance < lowest) {
+                lowest = balance;
+                lowestDate = date;
+            }
+        }
+        assertEquals(lowest, forecast.getLowestBalance());
+        assertEquals(lowestDate, forecast.getLowestDate());
+
+        List<ForecastEngine.Overrun> expected = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(TODAY); !month.isAfter(YearMonth.from(TODAY.plusDays(days))); month = month.plusMonths(1)) {
+            for (String category : plan.budgets().keySet()) {
+                long spent = 0;
+                for (TransactionEntry entry : materialized) {
+                    if (entry.getCategory().equals(category) && YearMonth.from(entry.getDate()).equals(month)) {
+                        spent += ColumnarTransactionList.toCents(entry.getAmount());
+                    }
+                }
+                if (spent > plan.budgets().get(category)) {
+                    expected.add(new ForecastEngine.Overrun(month, category, plan.budgets().get(category), spent));
+                }
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, forecast.getOverruns());
+    }
+}
@@ -0,0 +1,100 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import javafx.collections.FXCollections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.IndexedFilteredList;
+import application.LedgerFilter;
+import application.LedgerIndex;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+public class IndexedFilteredListTest {
+
+    private ColumnarTransactionList transactionList;
+    private IndexedFilteredList filteredData;
+    private Random random;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+        filteredData = new IndexedFilteredList(new LedgerIndex(transactionList));
+        random = new Random(3);
+    }
+
+    // Filter switches give the same rows as the predicate the table used to install
+    @Test
+    void testFilterMatchesPredicate() {
+        for (int i = 0; i < 3000; i++) {
+            transactionList.add(TestEntries.random(random, i, 200_000));
+        }
+        LedgerFilter filter = new LedgerFilter("expense", "Groceries", LocalDate.of(2023, 3, 10), LocalDate.of(2023, 9, 20), -1);
+        filteredData.setFilter(filter);
+        assertEquals(expected(filter), titles(filteredData));
+
+        filter = new LedgerFilter(null, null, null, null, 2);
+        filteredData.setFilter(filter);
+        assertEquals(expected(filter), titles(filteredData));
+    }
+
+    // A mirror list fed only by change events stays equal to the view while the ledger changes
+    @Test
+    void testIncrementalUpdates() {
+        for (int i = 0; i < 500; i++) {
+            transactionList.add(TestEntries.random(random, i, 200_000));
+        }
+        LedgerFilter filter = new LedgerFilter("Expense", null, LocalDate.of(2023, 2, 1), null, -1);
+        filteredData.setFilter(filter);
+
+        ObservableList<String> mirror = FXCollections.observableArrayList(titles(filteredData));
+        filteredData.addListener((ListChangeListener<TransactionEntry>) c -> {
+            while (c.next()) {
+                mirror.remove(c.getFrom(), c.getFrom() + c.getRemovedSize());
+                mirror.addAll(c.getFrom(), c.getAddedSubList().stream().map(TransactionEntry::getTitle).toList());
+            }
+        });
+
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                transactionList.add(TestEntries.random(random, 1000 + step, 200_000));
+            } else if (op < 7) {
+                transactionList.add(random.nextInt(transactionList.size()), TestEntries.random(random, 1000 + step, 200_000));
+            } else if (op < 9) {
+                transactionList.set(random.nextInt(transactionList.size()), TestEntries.random(random, 1000 + step, 200_000));
+            } else {
+                transactionList.remove(random.nextInt(transactionList.size()));
+            }
+        }
+        assertEquals(expected(filter), titles(filteredData));
+        assertEquals(titles(filteredData), mirror);
+
+        // The indexes followed the same edits
+        filter = new LedgerFilter(null, "gas", LocalDate.of(2023, 5, 15), LocalDate.of(2023, 11, 2), 3);
+        filteredData.setFilter(filter);
+        assertEquals(expected(filter), titles(filteredData));
+    }
+
+    private List<String> expected(LedgerFilter filter) {
+        Predicate<TransactionEntry> p = e ->
+            (filter.getType() == null || e.getType().equalsIgnoreCase(filter.getType()))
+            && (filter.getCategory() == null || e.getCategory().equalsIgnoreCase(filter.getCategory()))
+            && (filter.getFrom() == null || !e.getDate().isBefore(filter.getFrom()))
+            && (filter.getTo() == null || !e.getDate().isAfter(filter.getTo()))
+            && (filter.getAmountBand() < 0 || LedgerIndex.bandOf(ColumnarTransactionList.toCents(e.getAmount())) == filter.getAmountBand());
+        return transactionList.stream().filter(p).map(TransactionEntry::getTitle).toList();
+    }
+
+    private static List<String> titles(List<TransactionEntry> entries) {
+        return entries.stream().map(TransactionEntry::getTitle).toList();
+    }
+}
@@ -0,0 +1,137 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.IndexedFilteredList;
+import application.IndexedSortedList;
+import application.LedgerFilter;
+import application.LedgerIndex;
+import application.LedgerSortIndex;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class IndexedSortedListTest {
+
+    private ColumnarTransactionList transactionList;
+    private LedgerIndex index;
+    private IndexedFilteredList filteredData;
+    private IndexedSortedList sortedData;
+    private Random random;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+        index = new LedgerIndex(transactionList);
+        filteredData = new IndexedFilteredList(index);
+        sortedData = new IndexedSortedList(filteredData, transactionList);
+        random = new Random(20);
+    }
+
+    // Index-backed and comparator sorts give the order a stable sort of the rows would
+    @Test
+    void testSortOrders() {
+        List<TransactionEntry> batch = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            batch.add(TestEntries.random(random, i, 20_000));
+        }
+        transactionList.addAll(batch);
+        assertEquals(ids(filteredData), ids(sortedData));
+
+        sortedData.setSortIndex(index.getSortIndex(LedgerSortIndex.Key.DATE), false);
+        assertEquals(expected(LedgerSortIndex.Key.DATE, false), ids(sortedData));
+        sortedData.setSortIndex(index.getSortIndex(LedgerSortIndex.Key.AMOUNT), true);
+        assertEquals(expected(LedgerSortIndex.Key.AMOUNT, true), ids(sortedData));
+
+        filteredData.setFilter(new LedgerFilter("Expense", "Gas", null, null, -1));
+        assertEquals(expected(LedgerSortIndex.Key.AMOUNT, true), ids(sortedData));
+
+        Comparator<TransactionEntry> byCategory = Comparator.comparing(TransactionEntry::getCategory);
+        filteredData.setFilter(LedgerFilter.ALL);
+        sortedData.setComparator(byCategory);
+        List<TransactionEntry> stable = new ArrayList<>(filteredData);
+        stable.sort(byCategory);
+        assertEquals(ids(stable), ids(sortedData));
+    }
+
+    // A mirror list fed only by change events stays equal to the view while the ledger changes
+    @Test
+    void testIncrementalUpdates() {
+        List<TransactionEntry> batch = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            batch.add(TestEntries.random(random, i, 20_000));
+        }
+        transactionList.addAll(batch);
+        filteredData.setFilter(new LedgerFilter("Expense", null, LocalDate.of(2023, 2, 1), null, -1));
+        sortedData.setSortIndex(index.getSortIndex(LedgerSortIndex.Key.DATE), true);
+
+        ObservableList<Long> mirror = FXCollections.observableArrayList(ids(sortedData));
+        sortedData.addListener((ListChangeListener<TransactionEntry>) c -> {
+            while (c.next()) {
+                mirror.remove(c.getFrom(), c.getFrom() + c.getRemovedSize());
+                mirror.addAll(c.getFrom(), ids(c.getAddedSubList()));
+            }
+        });
+
+        for (int step = 0; step < 2000; step++) {
+            int op = random.nextInt(20);
+            if (op < 8) {
+                transactionList.add(TestEntries.random(random, 5000 + step, 20_000));
+            } else if (op < 12) {
+                transactionList.add(random.nextInt(transactionList.size()), TestEntries.random(random, 5000 + step, 20_000));
+            } else if (op < 16) {
+                transactionList.set(random.nextInt(transactionList.size()), TestEntries.random(random, 5000 + step, 20_000));
+            } else if (op < 19) {
+                transactionList.remove(random.nextInt(transactionList.size()));
+            } else if (step % 5 == 0) {
+                // Large enough to be reported as one replacement
+                List<TransactionEntry> more = new ArrayList<>();
+                for (int i = 0; i < 600; i++) {
+                    more.add(TestEntries.random(random, 10_000 + step * 1000 + i, 20_000));
+                }
+                transactionList.addAll(more);
+            } else {
+                int from = random.nextInt(transactionList.size() - 20);
+                transactionList.remove(from, from + 20);
+            }
+        }
+        assertEquals(expected(LedgerSortIndex.Key.DATE, true), ids(sortedData));
+        assertEquals(ids(sortedData), mirror);
+
+        // The sort indexes followed the same edits
+        sortedData.setSortIndex(index.getSortIndex(LedgerSortIndex.Key.AMOUNT), false);
+        assertEquals(expected(LedgerSortIndex.Key.AMOUNT, false), ids(sortedData));
+        assertEquals(transactionList.size(), index.getSortIndex(LedgerSortIndex.Key.AMOUNT).size());
+        for (int row = 0; row < sortedData.size(); row++) {
+            assertEquals(row, sortedData.getViewIndex(sortedData.getSourceIndex(row)));
+        }
+    }
+
+    // Filtered rows ordered by (key, ID), reversed for descending
+    private List<Long> expected(LedgerSortIndex.Key key, boolean descending) {
+        List<TransactionEntry> rows = new ArrayList<>(filteredData);
+        Comparator<TransactionEntry> order = key == LedgerSortIndex.Key.DATE
+            ? Comparator.comparing(TransactionEntry::getDate)
+            : Comparator.comparingLong(e -> ColumnarTransactionList.toCents(e.getAmount()));
+        rows.sort(order.thenComparingLong(TransactionEntry::getId));
+        if (descending) {
+            Collections.reverse(rows);
+        }
+        return ids(rows);
+    }
+
+    private static List<Long> ids(List<? extends TransactionEntry> entries) {
+        return entries.stream().map(TransactionEntry::getId).toList();
+    }
+}
@@ -0,0 +1,99 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.LedgerAggregates;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class LedgerAggregatesTest {
+
+    private ColumnarTransactionList transactionList;
+    private LedgerAggregates aggregates;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+        aggregates = new LedgerAggregates();
+        transactionList.addListener(aggregates);
+    }
+
+    // Same figures as the original summary test, kept up to date by events
+    @Test
+    void testSummaryCalculations() {
+        transactionList.add(new TransactionEntry("Salary", 1200.0, "Income", "Income", LocalDate.now()));
+        transactionList.add(new TransactionEntry("Utilities", 180.0, "Bills", "Expense", LocalDate.now()));
+        transactionList.add(new TransactionEntry("Dining", 90.0, "Dining Out", "Expense", LocalDate.now()));
+        transactionList.add(new TransactionEntry("Bonus", 300.0, "Income", "Income", LocalDate.now()));
+
+        assertEquals(150000, aggregates.getIncomeCents());
+        assertEquals(27000, aggregates.getExpenseCents());
+        assertEquals(123000, aggregates.getBalanceCents());
+        assertEquals(18000L, aggregates.getExpenseByCategory().get("Bills"));
+
+        transactionList.remove(1);
+        assertEquals(9000, aggregates.getExpenseCents());
+        assertFalse(aggregates.getExpenseByCategory().containsKey("Bills"));
+    }
+
+    // Random adds, edits and deletes always match a full recompute
+    @Test
+    void testMatchesFullRecompute() {
+        String[] categories = {"Dining Out", "Bills", "Gas", "Groceries", "Income"};
+        Random random = new Random(42);
+        for (int step = 0; step < 5000; step++) {
+            int op = random.nextInt(10);
+            String category = categories[random.nextInt(categories.length)];
+            String type = category.equals("Income") ? "Income" : "Expense";
+            TransactionEntry entry = new TransactionEntry("t" + step, random.nextInt(100000) / 100.0, category, type, LocalDate.of(2024, 1, 1));
+            if (op < 6 || transactionList.isEmpty()) {
+                transactionList.add(entry);
+            } else if (op < 8) {
+                transactionList.set(random.nextInt(transactionList.size()), entry);
+            } else {
+                transactionList.remove(random.nextInt(transactionList.size()));
+            }
+        }
+
+        LedgerAggregates recomputed = LedgerAggregates.of(transactionList);
+        assertEquals(recomputed.getIncomeCents(), aggregates.getIncomeCents());
+        assertEquals(recomputed.getExpenseCents(), aggregates.getExpenseCents());
+        assertEquals(recomputed.getExpenseByCategory(), aggregates.getExpenseByCategory());
+    }
+
+    // The column kernels agree with the row-by-row totals, whatever the mix of types, the
+    // number of categories or the length of the range
+    @Test
+    void testColumnKernelsMatchRows() {
+        String[] types = {"Expense", "Income", "expense", "Transfer", "INCOME"};
+        Random random = new Random(9);
+        for (int categoryCount : new int[] {3, 40}) {
+            ColumnarTransactionList ledger = new ColumnarTransactionList();
+            List<TransactionEntry> batch = new ArrayList<>();
+            for (int i = 0; i < 10_007; i++) {
+                batch.add(new TransactionEntry("t" + i, random.nextInt(1_000_000) / 100.0, "c" + random.nextInt(categoryCount),
+                    types[random.nextInt(types.length)], LocalDate.of(2024, 1, 1)));
+            }
+            ledger.addAll(batch.subList(0, 5));
+            LedgerAggregates incremental = new LedgerAggregates();
+            ledger.addListener(incremental);
+            ledger.addAll(batch.subList(5, batch.size()));
+
+            LedgerAggregates rows = LedgerAggregates.of(new ArrayList<>(ledger));
+            LedgerAggregates full = LedgerAggregates.of(ledger);
+            LedgerAggregates prefix = LedgerAggregates.of(batch.subList(0, 5));
+            assertEquals(rows.getIncomeCents(), full.getIncomeCents());
+            assertEquals(rows.getExpenseCents(), full.getExpenseCents());
+            assertEquals(rows.getExpenseByCategory(), full.getExpenseByCategory());
+            assertEquals(rows.getExpenseCents() - prefix.getExpenseCents(), incremental.getExpenseCents());
+            assertEquals(rows.getIncomeCents() - prefix.getIncomeCents(), incremental.getIncomeCents());
+        }
+    }
+}
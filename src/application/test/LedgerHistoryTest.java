@@ -0,0 +1,79 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.LedgerAggregates;
+import application.LedgerHistory;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class LedgerHistoryTest {
+
+    // Undoing every change walks back through each earlier state, IDs included, and redo
+    // walks forward again; listeners such as the totals follow along
+    @Test
+    void testUndoAndRedoEveryStep() {
+        ColumnarTransactionList transactionList = new ColumnarTransactionList();
+        for (int i = 0; i < 6000; i++) {
+            transactionList.add(entry(i));
+        }
+        LedgerAggregates aggregates = LedgerAggregates.of(transactionList);
+        transactionList.addListener(aggregates);
+        LedgerHistory history = new LedgerHistory(transactionList, 1000);
+
+        Random random = new Random(11);
+        List<List<String>> states = new ArrayList<>();
+        states.add(rows(transactionList));
+        for (int step = 0; step < 60; step++) {
+            int at = random.nextInt(transactionList.size());
+            switch (random.nextInt(5)) {
+                case 0 -> transactionList.add(at, entry(10_000 + step));
+                case 1 -> transactionList.set(at, entry(20_000 + step));
+                case 2 -> transactionList.remove(at);
+                case 3 -> transactionList.remove(at, Math.min(transactionList.size(), at + 300));
+                default -> transactionList.replaceRange(at, Math.min(transactionList.size(), at + 3),
+                    List.of(entry(30_000 + step), entry(40_000 + step), entry(50_000 + step), entry(60_000 + step)));
+            }
+            states.add(rows(transactionList));
+        }
+
+        for (int step = states.size() - 2; step >= 0; step--) {
+            assertTrue(history.undo());
+            assertEquals(states.get(step), rows(transactionList), "after undoing to state " + step);
+        }
+        assertFalse(history.undo());
+        assertEquals(LedgerAggregates.of(transactionList).getExpenseByCategory(), aggregates.getExpenseByCategory());
+
+        for (int step = 1; step < states.size(); step++) {
+            assertTrue(history.redo());
+            assertEquals(states.get(step), rows(transactionList), "after redoing to state " + step);
+        }
+        assertFalse(history.redo());
+
+        // A new change after undoing drops the redo steps
+        history.undo();
+        transactionList.add(entry(99));
+        assertFalse(history.canRedoProperty().get());
+        assertTrue(history.canUndoProperty().get());
+    }
+
+    // Every field, the row ID included
+    private static List<String> rows(List<TransactionEntry> entries) {
+        List<String> rows = new ArrayList<>();
+        for (TransactionEntry t : entries) {
+            rows.add(t.getId() + "|" + t.getTitle() + "|" + t.getAmount() + "|" + t.getCategory() + "|" + t.getType() + "|" + t.getDate());
+        }
+        return rows;
+    }
+
+    private static TransactionEntry entry(int i) {
+        return new TransactionEntry("Row " + i, i % 500 + 0.25, "c" + i % 9, i % 10 == 0 ? "Income" : "Expense",
+            LocalDate.of(2024, 1, 1).plusDays(i % 366));
+    }
+}
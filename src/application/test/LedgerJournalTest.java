@@ -0,0 +1,155 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import application.ColumnarTransactionList;
+import application.LedgerJournal;
+import application.TransactionEntry;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LedgerJournalTest {
+
+    @TempDir
+    Path dir;
+
+    // Adds, edits and deletes survive a restart
+    @Test
+    void testReplayRestoresLedger() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ObservableList<TransactionEntry> transactionList = FXCollections.observableArrayList();
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            transactionList.addListener(journal);
+            transactionList.add(new TransactionEntry("Paycheck", 2000.0, "Income", "Income", LocalDate.of(2024, 1, 5)));
+            transactionList.add(new TransactionEntry("Netflix", 15.99, "Entertainment", "Expense", LocalDate.of(2024, 1, 7)));
+            transactionList.add(new TransactionEntry("Groceries", 82.5, "Groceries", "Expense", LocalDate.of(2024, 1, 9)));
+            transactionList.set(1, new TransactionEntry("Netflix", 17.99, "Entertainment", "Expense", LocalDate.of(2024, 1, 8)));
+            transactionList.remove(0);
+        }
+
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            List<TransactionEntry> restored = journal.replay();
+            assertEquals(2, restored.size());
+            assertEquals("Netflix", restored.get(0).getTitle());
+            assertEquals(17.99, restored.get(0).getAmount());
+            assertEquals(LocalDate.of(2024, 1, 8), restored.get(0).getDate());
+            assertEquals("Groceries", restored.get(1).getTitle());
+            assertEquals("Expense", restored.get(1).getType());
+        }
+    }
+
+    // A record cut off by a crash is dropped instead of corrupting the ledger
+    @Test
+    void testTornRecordIsDropped() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ObservableList<TransactionEntry> transactionList = FXCollections.observableArrayList();
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            transactionList.addListener(journal);
+            transactionList.addAll(
+                new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 2, 1)),
+                new TransactionEntry("Gas", 40.0, "Gas", "Expense", LocalDate.of(2024, 2, 3)));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 10);
+        }
+
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            List<TransactionEntry> restored = journal.replay();
+            assertEquals(1, restored.size());
+            assertEquals("Rent", restored.get(0).getTitle());
+        }
+    }
+
+    // Compaction keeps the same ledger in fewer records
+    @Test
+    void testCompaction() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ObservableList<TransactionEntry> transactionList = FXCollections.observableArrayList();
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            transactionList.addListener(journal);
+            List<TransactionEntry> batch = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                batch.add(new TransactionEntry("Coffee " + i, 3.5, "Dining Out", "Expense", LocalDate.of(2024, 3, 1)));
+            }
+            transactionList.addAll(batch);
+            transactionList.remove(10, 2990);
+        }
+
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            List<TransactionEntry> restored = journal.replay();
+            assertTrue(journal.compactIfNeeded(restored));
+            assertEquals(20, journal.getRecordCount());
+        }
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            List<TransactionEntry> restored = journal.replay();
+            assertEquals(20, restored.size());
+            assertEquals("Coffee 2999", restored.get(19).getTitle());
+        }
+    }
+
+    // Row IDs are journaled, so a restart keeps them
+    @Test
+    void testIdsSurviveRestart() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ColumnarTransactionList transactionList = new ColumnarTransactionList();
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            transactionList.addListener(journal);
+            transactionList.add(new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 2, 1)));
+            transactionList.add(new TransactionEntry("Gas", 40.0, "Gas", "Expense", LocalDate.of(2024, 2, 3)));
+            transactionList.add(new TransactionEntry("Pay", 900.0, "Income", "Income", LocalDate.of(2024, 2, 5)));
+            transactionList.remove(0);
+        }
+        long gasId = transactionList.idAt(0);
+        long payId = transactionList.idAt(1);
+
+        ColumnarTransactionList restored = new ColumnarTransactionList();
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            restored.setAll(journal.replay());
+        }
+        assertEquals(0, restored.indexOfId(gasId));
+        assertEquals(1, restored.indexOfId(payId));
+        restored.add(new TransactionEntry("New", 1.0, "Other", "Expense", LocalDate.of(2024, 2, 6)));
+        assertTrue(restored.idAt(2) > payId);
+    }
+
+    // A failed write stops journaling instead of throwing into the code that changed the
+    // ledger; recovering writes the whole ledger out and journaling carries on
+    @Test
+    void testFailedWriteAndRecovery() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ObservableList<TransactionEntry> transactionList = FXCollections.observableArrayList();
+        List<Exception> failures = new ArrayList<>();
+        LedgerJournal journal = LedgerJournal.open(file);
+        journal.setOnFailure(failures::add);
+        transactionList.addListener(journal);
+        transactionList.add(new TransactionEntry("Rent", 1200.0, "Bills", "Expense", LocalDate.of(2024, 2, 1)));
+
+        journal.close(); // the next write fails
+        transactionList.add(new TransactionEntry("Gas", 40.0, "Gas", "Expense", LocalDate.of(2024, 2, 3)));
+        transactionList.add(new TransactionEntry("Pay", 900.0, "Income", "Income", LocalDate.of(2024, 2, 5)));
+        assertTrue(journal.isFailed());
+        assertEquals(1, failures.size());
+        assertSame(journal.getFailure(), failures.get(0));
+
+        journal.recover(transactionList);
+        assertFalse(journal.isFailed());
+        transactionList.remove(0);
+        journal.close();
+
+        try (LedgerJournal reopened = LedgerJournal.open(file)) {
+            List<TransactionEntry> restored = reopened.replay();
+            assertEquals(2, restored.size());
+            assertEquals("Gas", restored.get(0).getTitle());
+            assertEquals("Pay", restored.get(1).getTitle());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.LatencyHistogram;
+import application.LedgerMetrics;
+import application.TransactionEntry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class LedgerMetricsTest {
+
+    // Percentiles stay within the histogram's 12.5% bucket width of the exact values
+    @Test
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(3);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.max());
+        for (double fraction : new double[] {0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            long reported = histogram.percentile(fraction);
+            assertTrue(reported >= exact && reported <= exact + exact / 8 + 1, fraction + ": " + reported + " vs " + exact);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    // Each outermost ledger mutation is one Flight Recorder event and one histogram sample
+    @Test
+    void testLedgerChangesAreRecorded() throws Exception {
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        List<TransactionEntry> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(new TransactionEntry("Row " + i, i, "Groceries", "Expense", LocalDate.of(2024, 1, 1).plusDays(i)));
+        }
+        LatencyHistogram changes = LedgerMetrics.histogram(LedgerMetrics.Operation.LEDGER_CHANGE);
+        long before = changes.count();
+
+        Path file = Files.createTempFile("ledger-metrics", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("application.LedgerOperation");
+            recording.start();
+            ledger.setAll(rows);                     // clears and adds, recorded once
+            ledger.remove(5);
+            ledger.replaceRange(0, 10, rows.subList(0, 3));
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        assertEquals(3, changes.count() - before);
+        assertEquals(3, events.size());
+        assertEquals("Ledger change", events.get(0).getString("operation"));
+        assertEquals(100, events.get(0).getLong("rows"));
+        assertEquals(10, events.get(2).getLong("rows"));
+    }
+}
@@ -0,0 +1,93 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import application.ColumnarTransactionList;
+import application.LedgerJournal;
+import application.LedgerPageStore;
+import application.LedgerPageView;
+import application.TransactionEntry;
+
+import java.nio.IntBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+public class LedgerPageStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // Pages, sort orders and filters read from disk match the ledger that wrote the journal,
+    // after appends, inserts, edits and deletes, and again when the saved indexes are reused
+    @Test
+    void testStoreMatchesLedger() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        Random random = new Random(17);
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            ledger.addListener(journal);
+            List<TransactionEntry> batch = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                batch.add(TestEntries.random(random, i, 50_000));
+            }
+            ledger.addAll(batch);
+            for (int op = 0; op < 1500; op++) {
+                int kind = random.nextInt(4);
+                if (kind == 0) {
+                    ledger.add(TestEntries.random(random, op, 50_000));
+                } else if (kind == 1) {
+                    ledger.add(random.nextInt(ledger.size() + 1), TestEntries.random(random, op, 50_000));
+                } else if (kind == 2) {
+                    ledger.set(random.nextInt(ledger.size()), TestEntries.random(random, op, 50_000));
+                } else {
+                    ledger.remove(random.nextInt(ledger.size()));
+                }
+            }
+        }
+
+        for (int open = 0; open < 2; open++) {
+            try (LedgerPageStore store = LedgerPageStore.open(file, dir.resolve("index"), 500)) {
+                assertEquals(ledger.size(), store.size());
+                assertRows(new ArrayList<>(ledger), new LedgerPageView(store, null, false));
+
+                List<TransactionEntry> byAmount = new ArrayList<>(ledger);
+                byAmount.sort(Comparator.comparingLong(e -> ColumnarTransactionList.toCents(e.getAmount())));
+                assertRows(byAmount, new LedgerPageView(store, store.order(LedgerPageStore.SortKey.AMOUNT), false));
+
+                List<TransactionEntry> gasByDate = new ArrayList<>();
+                for (TransactionEntry entry : ledger) {
+                    if (entry.getType().equals("Expense") && entry.getCategory().equals("Gas")) {
+                        gasByDate.add(entry);
+                    }
+                }
+                gasByDate.sort(Comparator.comparing(TransactionEntry::getDate));
+                List<TransactionEntry> newestFirst = new ArrayList<>(gasByDate);
+                Collections.reverse(newestFirst);
+                IntBuffer rows = store.select(LedgerPageStore.SortKey.DATE, "Expense", "Gas");
+                assertRows(newestFirst, new LedgerPageView(store, rows, true));
+
+                assertEquals(0, store.select(null, "Expense", "Unknown").limit());
+                assertNull(store.select(null, null, null));
+            }
+        }
+    }
+
+    private static void assertRows(List<TransactionEntry> expected, LedgerPageView view) {
+        assertEquals(expected.size(), view.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TransactionEntry want = expected.get(i);
+            TransactionEntry got = view.get(i);
+            assertEquals(want.getId(), got.getId(), "row " + i);
+            assertEquals(want.getTitle(), got.getTitle());
+            assertEquals(want.getAmount(), got.getAmount());
+            assertEquals(want.getCategory(), got.getCategory());
+            assertEquals(want.getDate(), got.getDate());
+        }
+    }
+}
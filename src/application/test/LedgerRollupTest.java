@@ -0,0 +1,133 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.LedgerRollup;
+import application.ReportPeriod;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Random;
+
+public class LedgerRollupTest {
+
+    private ColumnarTransactionList transactionList;
+    private LedgerRollup rollup;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+        rollup = new LedgerRollup();
+        transactionList.addListener(rollup);
+    }
+
+    // Range totals and per-category breakdowns for a quarter
+    @Test
+    void testQuarterTotals() {
+        transactionList.add(new TransactionEntry("Market", 80.0, "Groceries", "Expense", LocalDate.of(2024, 4, 3)));
+        transactionList.add(new TransactionEntry("Market", 45.5, "Groceries", "Expense", LocalDate.of(2024, 6, 30)));
+        transactionList.add(new TransactionEntry("Market", 60.0, "Groceries", "Expense", LocalDate.of(2024, 7, 1)));
+        transactionList.add(new TransactionEntry("Shell", 40.0, "Gas", "Expense", LocalDate.of(2024, 5, 12)));
+        transactionList.add(new TransactionEntry("Salary", 3000.0, "Income", "Income", LocalDate.of(2024, 5, 31)));
+
+        LocalDate from = LocalDate.of(2024, 4, 1);
+        LocalDate to = LocalDate.of(2024, 6, 30);
+        assertEquals(12550, rollup.total("Expense", "Groceries", from, to));
+        assertEquals(16550, rollup.total("Expense", from, to));
+        assertEquals(300000, rollup.total("income", from, to));
+        assertEquals(4000L, rollup.totalsByCategory("Expense", from, to).get("Gas"));
+
+        long[] months = rollup.totalsPerPeriod("Expense", null, from, Period.ofMonths(1), 4);
+        assertArrayEquals(new long[] {8000, 4000, 4550, 6000}, months);
+
+        transactionList.remove(3);
+        assertNull(rollup.totalsByCategory("Expense", from, to).get("Gas"));
+    }
+
+    // Random adds, edits and deletes over a wide date span match a brute-force sum
+    @Test
+    void testMatchesScan() {
+        String[] categories = {"Dining Out", "Bills", "Gas", "Income"};
+        Random random = new Random(7);
+        LocalDate origin = LocalDate.of(2020, 1, 1);
+        for (int step = 0; step < 4000; step++) {
+            String category = categories[random.nextInt(categories.length)];
+            String type = category.equals("Income") ? "Income" : "Expense";
+            // Dates spread both before and after the first one, so the trees grow in both directions
+            LocalDate date = origin.plusDays(random.nextInt(6000) - 3000);
+            TransactionEntry entry = new TransactionEntry("t" + step, random.nextInt(100000) / 100.0, category, type, date);
+            int op = random.nextInt(10);
+            if (op < 6 || transactionList.isEmpty()) {
+                transactionList.add(entry);
+            } else if (op < 8) {
+                transactionList.set(random.nextInt(transactionList.size()), entry);
+            } else {
+                transactionList.remove(random.nextInt(transactionList.size()));
+            }
+        }
+
+        for (int q = 0; q < 200; q++) {
+            LocalDate from = origin.plusDays(random.nextInt(7000) - 3500);
+            LocalDate to = from.plusDays(random.nextInt(1000));
+            long expected = 0;
+            for (int row = 0; row < transactionList.size(); row++) {
+                int day = transactionList.epochDayAt(row);
+                if (transactionList.get(row).getCategory().equals("Gas") && day >= from.toEpochDay() && day <= to.toEpochDay()) {
+                    expected += transactionList.amountCentsAt(row);
+                }
+            }
+            assertEquals(expected, rollup.total("Expense", "Gas", from, to));
+        }
+        assertEquals(LedgerRollup.of(transactionList).total("Income", null, null), rollup.total("Income", null, null));
+    }
+
+    // A mistyped year far from the rest of the ledger is counted without stretching the
+    // trees across it, whether it comes first or among the other rows
+    @Test
+    void testOutlierDates() {
+        transactionList.add(new TransactionEntry("Typo", 10.0, "Gas", "Expense", LocalDate.of(1900, 1, 1)));
+        Random random = new Random(5);
+        for (int i = 0; i < 2000; i++) {
+            transactionList.add(new TransactionEntry("Shell", random.nextInt(10000) / 100.0, "Gas", "Expense",
+                LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1500))));
+        }
+        transactionList.add(new TransactionEntry("Typo", 25.0, "Gas", "Expense", LocalDate.of(9999, 12, 31)));
+
+        LocalDate[][] ranges = {
+            {null, null},
+            {LocalDate.of(1900, 1, 1), LocalDate.of(1900, 1, 1)},
+            {null, LocalDate.of(2020, 6, 30)},
+            {LocalDate.of(2021, 3, 1), LocalDate.of(2022, 2, 28)},
+            {LocalDate.of(2023, 1, 1), null},
+            {LocalDate.of(9999, 12, 31), null},
+        };
+        for (LocalDate[] range : ranges) {
+            long expected = 0;
+            for (int row = 0; row < transactionList.size(); row++) {
+                LocalDate date = LocalDate.ofEpochDay(transactionList.epochDayAt(row));
+                if ((range[0] == null || !date.isBefore(range[0])) && (range[1] == null || !date.isAfter(range[1]))) {
+                    expected += transactionList.amountCentsAt(row);
+                }
+            }
+            assertEquals(expected, rollup.total("Expense", "Gas", range[0], range[1]), range[0] + ".." + range[1]);
+        }
+
+        transactionList.remove(0);
+        assertEquals(0, rollup.total("Expense", null, LocalDate.of(1900, 1, 1)));
+        assertEquals(2500, rollup.total("Expense", LocalDate.of(9000, 1, 1), null));
+    }
+
+    // Quarter boundaries for the period selector
+    @Test
+    void testReportPeriods() {
+        LocalDate today = LocalDate.of(2024, 2, 14);
+        assertEquals(LocalDate.of(2023, 10, 1), ReportPeriod.LAST_QUARTER.start(today));
+        assertEquals(LocalDate.of(2023, 12, 31), ReportPeriod.LAST_QUARTER.end(today));
+        assertEquals(LocalDate.of(2024, 2, 29), ReportPeriod.THIS_MONTH.end(today));
+        assertNull(ReportPeriod.ALL_TIME.start(today));
+    }
+}
@@ -0,0 +1,82 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import application.RowBitmap;
+
+import java.util.BitSet;
+import java.util.Random;
+
+public class RowBitmapTest {
+
+    // Random adds/removes across sparse and dense containers agree with java.util.BitSet
+    @Test
+    void testMatchesBitSet() {
+        Random random = new Random(7);
+        RowBitmap bitmap = new RowBitmap();
+        BitSet expected = new BitSet();
+        for (int i = 0; i < 200_000; i++) {
+            // Dense rows in the first container, sparse ones further out
+            int row = random.nextBoolean() ? random.nextInt(20_000) : random.nextInt(1_000_000);
+            if (random.nextInt(4) == 0) {
+                bitmap.remove(row);
+                expected.clear(row);
+            } else {
+                bitmap.add(row);
+                expected.set(row);
+            }
+        }
+        assertEquals(expected.cardinality(), bitmap.cardinality());
+        assertArrayEquals(expected.stream().toArray(), bitmap.toArray());
+        for (int row = 0; row < 30_000; row++) {
+            assertEquals(expected.get(row), bitmap.contains(row));
+        }
+    }
+
+    @Test
+    void testAndOr() {
+        Random random = new Random(11);
+        RowBitmap a = new RowBitmap();
+        RowBitmap b = new RowBitmap();
+        BitSet ea = new BitSet();
+        BitSet eb = new BitSet();
+        for (int i = 0; i < 100_000; i++) {
+            int x = random.nextInt(300_000);
+            int y = random.nextInt(i % 2 == 0 ? 300_000 : 70_000);
+            a.add(x);
+            ea.set(x);
+            b.add(y);
+            eb.set(y);
+        }
+        BitSet and = (BitSet) ea.clone();
+        and.and(eb);
+        BitSet or = (BitSet) ea.clone();
+        or.or(eb);
+        assertArrayEquals(and.stream().toArray(), a.and(b).toArray());
+        assertArrayEquals(or.stream().toArray(), a.or(b).toArray());
+    }
+
+    // A snapshot keeps its rows while the original changes in both container kinds
+    @Test
+    void testSnapshotIsCopyOnWrite() {
+        RowBitmap bitmap = new RowBitmap();
+        for (int row = 0; row < 10_000; row++) {
+            bitmap.add(row); // dense first container
+        }
+        bitmap.add(70_000); // sparse second container
+        RowBitmap snapshot = bitmap.snapshot();
+
+        bitmap.remove(5);
+        bitmap.add(70_001);
+        for (int row = 9_000; row < 10_000; row++) {
+            bitmap.remove(row);
+        }
+
+        assertEquals(10_001, snapshot.cardinality());
+        assertTrue(snapshot.contains(5));
+        assertTrue(snapshot.contains(70_000));
+        assertFalse(snapshot.contains(70_001));
+        assertEquals(9_001, bitmap.cardinality());
+    }
+}
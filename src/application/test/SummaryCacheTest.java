@@ -0,0 +1,54 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import application.ColumnarTransactionList;
+import application.LedgerAggregates;
+import application.LedgerJournal;
+import application.SummaryCache;
+import application.TransactionEntry;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+public class SummaryCacheTest {
+
+    @TempDir
+    Path dir;
+
+    // The saved totals come back while the journal is unchanged, and are dropped once it changes
+    @Test
+    void testRoundTripAndStaleness() throws Exception {
+        Path file = dir.resolve("ledger.journal");
+        assertNull(SummaryCache.load(file));
+
+        ColumnarTransactionList ledger = new ColumnarTransactionList();
+        LedgerAggregates aggregates = new LedgerAggregates();
+        ledger.addListener(aggregates);
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            ledger.addListener(journal);
+            ledger.add(new TransactionEntry("Paycheck", 2000.0, "Income", "Income", LocalDate.of(2024, 1, 5)));
+            ledger.add(new TransactionEntry("Groceries", 82.5, "Groceries", "Expense", LocalDate.of(2024, 1, 9)));
+            ledger.add(new TransactionEntry("Shell", 40.25, "Gas", "Expense", LocalDate.of(2024, 1, 10)));
+        }
+        SummaryCache.of(aggregates).save(file);
+
+        SummaryCache saved = SummaryCache.load(file);
+        assertNotNull(saved);
+        assertEquals(200_000, saved.incomeCents());
+        assertEquals(12_275, saved.expenseCents());
+        assertEquals(Map.of("Groceries", 8_250L, "Gas", 4_025L), saved.expenseByCategory());
+
+        // Another session changes the journal without saving a summary
+        try (LedgerJournal journal = LedgerJournal.open(file)) {
+            ColumnarTransactionList restored = new ColumnarTransactionList();
+            restored.setAll(journal.replay());
+            restored.addListener(journal);
+            restored.remove(0);
+        }
+        assertNull(SummaryCache.load(file));
+    }
+}
@@ -0,0 +1,24 @@
+package application.test;
+
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+// Random ledger rows for the generative tests: titled "t<i>", over a few categories with
+// "Income" as the income type, dated within 2023
+final class TestEntries {
+
+    static final String[] CATEGORIES = {"Dining Out", "Bills", "Gas", "Groceries", "Income"};
+
+    private TestEntries() {
+    }
+
+    // Amounts below maxCents; a small range gives the sort tests plenty of ties
+    static TransactionEntry random(Random random, int i, int maxCents) {
+        String category = CATEGORIES[random.nextInt(CATEGORIES.length)];
+        String type = category.equals("Income") ? "Income" : "Expense";
+        LocalDate date = LocalDate.of(2023, 1, 1).plusDays(random.nextInt(365));
+        return new TransactionEntry("t" + i, random.nextInt(maxCents) / 100.0, category, type, date);
+    }
+}
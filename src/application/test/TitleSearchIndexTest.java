@@ -0,0 +1,116 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import application.ColumnarTransactionList;
+import application.IndexedFilteredList;
+import application.LedgerFilter;
+import application.LedgerIndex;
+import application.RowBitmap;
+import application.TitleSearchIndex;
+import application.TransactionEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class TitleSearchIndexTest {
+
+    private static final String[] MERCHANTS = {"Netflix", "NETFLIX.COM", "Shell Oil", "Starbucks", "Kroger", "Amazon Prime", "Spotify", "Net Pay"};
+
+    private ColumnarTransactionList transactionList;
+    private LedgerIndex ledgerIndex;
+    private Random random;
+
+    @BeforeEach
+    void setup() {
+        transactionList = new ColumnarTransactionList();
+        ledgerIndex = new LedgerIndex(transactionList);
+        random = new Random(11);
+    }
+
+    // Substring and prefix searches agree with a scan while rows are added, edited and deleted
+    @Test
+    void testMatchesScan() {
+        for (int step = 0; step < 3000; step++) {
+            int op = random.nextInt(10);
+            if (op < 6 || transactionList.isEmpty()) {
+                transactionList.add(random.nextInt(transactionList.size() + 1), randomEntry());
+            } else if (op < 8) {
+                transactionList.set(random.nextInt(transactionList.size()), randomEntry());
+            } else {
+                transactionList.remove(random.nextInt(transactionList.size()));
+            }
+        }
+        TitleSearchIndex titles = ledgerIndex.getTitles();
+        for (String search : List.of("netflix", "NET", "ne", "x", "^net", "^n", "^Netflix.", "oil", "bucks #1", "zzz", "^pay")) {
+            assertArrayEquals(scan(search), positions(titles.idsMatching(search)), search);
+        }
+        assertTrue(titles.idsMatching("  ").isEmpty());
+    }
+
+    // The search combines with the other filters and follows later edits
+    @Test
+    void testCombinedWithFilters() {
+        for (int i = 0; i < 2000; i++) {
+            transactionList.add(randomEntry());
+        }
+        IndexedFilteredList filteredData = new IndexedFilteredList(ledgerIndex);
+        LedgerFilter filter = new LedgerFilter("Expense", null, LocalDate.of(2024, 3, 1), null, -1, "netflix");
+        filteredData.setFilter(filter);
+        assertEquals(expected(filter), titles(filteredData));
+
+        transactionList.add(0, new TransactionEntry("Netflix #9999", 15.99, "Entertainment", "Expense", LocalDate.of(2024, 6, 1)));
+        transactionList.set(5, new TransactionEntry("Shell Oil", 40.0, "Gas", "Expense", LocalDate.of(2024, 6, 2)));
+        assertEquals(expected(filter), titles(filteredData));
+    }
+
+    private TransactionEntry randomEntry() {
+        String title = MERCHANTS[random.nextInt(MERCHANTS.length)] + " #" + random.nextInt(50);
+        LocalDate date = LocalDate.of(2024, 1, 1).plusDays(random.nextInt(300));
+        return new TransactionEntry(title, random.nextInt(10_000) / 100.0, "Entertainment", "Expense", date);
+    }
+
+    private int[] scan(String search) {
+        boolean prefix = search.startsWith("^");
+        String text = (prefix ? search.substring(1) : search).toLowerCase();
+        RowBitmap rows = new RowBitmap();
+        for (int row = 0; row < transactionList.size(); row++) {
+            String title = transactionList.titleAt(row).toLowerCase();
+            if (prefix ? title.startsWith(text) : title.contains(text)) {
+                rows.add(row);
+            }
+        }
+        return rows.toArray();
+    }
+
+    private int[] positions(RowBitmap ids) {
+        int[] rows = ids.toArray();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = transactionList.indexOfId(rows[i]);
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    private List<String> expected(LedgerFilter filter) {
+        List<String> titles = new ArrayList<>();
+        for (TransactionEntry e : transactionList) {
+            if (e.getType().equalsIgnoreCase(filter.getType()) && !e.getDate().isBefore(filter.getFrom())
+                    && e.getTitle().toLowerCase().contains(filter.getTitle())) {
+                titles.add(e.getTitle());
+            }
+        }
+        return titles;
+    }
+
+    private List<String> titles(List<TransactionEntry> entries) {
+        List<String> titles = new ArrayList<>();
+        entries.forEach(e -> titles.add(e.getTitle()));
+        return titles;
+    }
+}
@@ -0,0 +1,123 @@
+package application.test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import application.TransactionEntry;
+import application.TransactionImporter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionImporterTest {
+
+    @TempDir
+    Path dir;
+
+    // Signed amounts decide the type, quoted fields keep their commas
+    @Test
+    void testCsvImport() throws Exception {
+        Path file = dir.resolve("export.csv");
+        Files.writeString(file, String.join("\r\n",
+            "Date,Description,Amount,Category",
+            "2024-01-05,Paycheck,\"2,000.00\",",
+            "01/07/2024,\"Netflix, Inc.\",-15.99,Entertainment",
+            "not a date,Broken,1.00,",
+            "2024-01-09,\"Joe's \"\"Diner\"\"\",($42.50),Dining Out",
+            ""));
+
+        List<TransactionEntry> entries = new ArrayList<>();
+        TransactionImporter.ImportResult result = new TransactionImporter().importFile(file, entries::addAll);
+
+        assertEquals(3, result.imported());
+        assertEquals(1, result.skipped());
+        assertEquals("Paycheck", entries.get(0).getTitle());
+        assertEquals(2000.0, entries.get(0).getAmount());
+        assertEquals("Income", entries.get(0).getType());
+        assertEquals("Income", entries.get(0).getCategory());
+        assertEquals("Netflix, Inc.", entries.get(1).getTitle());
+        assertEquals(15.99, entries.get(1).getAmount());
+        assertEquals("Expense", entries.get(1).getType());
+        assertEquals(LocalDate.of(2024, 1, 7), entries.get(1).getDate());
+        assertEquals("Joe's \"Diner\"", entries.get(2).getTitle());
+        assertEquals(42.5, entries.get(2).getAmount());
+        assertEquals("Dining Out", entries.get(2).getCategory());
+    }
+
+    // Dotted dates are day first; slashed ones month first
+    @Test
+    void testDottedDates() throws Exception {
+        Path file = dir.resolve("dotted.csv");
+        Files.writeString(file, String.join("\n",
+            "Date,Description,Amount",
+            "05.01.2024,Bakery,-3.20",
+            "31.01.2024,Rent,-800.00",
+            "05.02.24,Pharmacy,-12.00",
+            "2024.03.04,Refund,5.00",
+            "05/01/2024,Shop,-1.00",
+            ""));
+
+        List<TransactionEntry> entries = new ArrayList<>();
+        TransactionImporter.ImportResult result = new TransactionImporter().importFile(file, entries::addAll);
+
+        assertEquals(5, result.imported());
+        assertEquals(LocalDate.of(2024, 1, 5), entries.get(0).getDate());
+        assertEquals(LocalDate.of(2024, 1, 31), entries.get(1).getDate());
+        assertEquals(LocalDate.of(2024, 2, 5), entries.get(2).getDate());
+        assertEquals(LocalDate.of(2024, 3, 4), entries.get(3).getDate());
+        assertEquals(LocalDate.of(2024, 5, 1), entries.get(4).getDate());
+    }
+
+    // Rows straddling window boundaries are neither lost nor split
+    @Test
+    void testCsvAcrossWindows() throws Exception {
+        Path file = dir.resolve("large.csv");
+        StringBuilder csv = new StringBuilder("date,payee,debit,credit\n");
+        for (int i = 0; i < 5000; i++) {
+            csv.append("2024-02-").append(1 + i % 28).append(",Store ").append(i).append(",").append(i % 100).append(".25,\n");
+        }
+        Files.writeString(file, csv);
+
+        List<List<TransactionEntry>> batches = new ArrayList<>();
+        TransactionImporter.ImportResult result = new TransactionImporter(4096).importFile(file, batches::add);
+
+        assertEquals(5000, result.imported());
+        assertTrue(batches.size() > 1);
+        List<TransactionEntry> all = batches.stream().flatMap(List::stream).toList();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("Store " + i, all.get(i).getTitle());
+            assertEquals(i % 100 + 0.25, all.get(i).getAmount());
+            assertEquals("Expense", all.get(i).getType());
+        }
+    }
+
+    @Test
+    void testOfxImport() throws Exception {
+        Path file = dir.resolve("statement.ofx");
+        Files.writeString(file, String.join("\n",
+            "OFXHEADER:100",
+            "<OFX><BANKMSGSRSV1><STMTTRNRS><STMTRS><BANKTRANLIST>",
+            "<STMTTRN><TRNTYPE>DEBIT<DTPOSTED>20240310120000<TRNAMT>-54.20<NAME>SHELL OIL</STMTTRN>",
+            "<STMTTRN>",
+            "<TRNTYPE>CREDIT",
+            "<DTPOSTED>20240315",
+            "<TRNAMT>1500.00",
+            "<NAME>PAYROLL",
+            "</STMTTRN>",
+            "</BANKTRANLIST></STMTRS></STMTTRNRS></BANKMSGSRSV1></OFX>"));
+
+        List<TransactionEntry> entries = new ArrayList<>();
+        TransactionImporter.ImportResult result = new TransactionImporter().importFile(file, entries::addAll);
+
+        assertEquals(2, result.imported());
+        assertEquals("SHELL OIL", entries.get(0).getTitle());
+        assertEquals(54.2, entries.get(0).getAmount());
+        assertEquals("Expense", entries.get(0).getType());
+        assertEquals(LocalDate.of(2024, 3, 10), entries.get(0).getDate());
+        assertEquals("Income", entries.get(1).getType());
+    }
+}